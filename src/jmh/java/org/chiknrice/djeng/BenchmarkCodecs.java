@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Builds codecs for the benchmarks without a message configuration.  It is in the same package as the codecs so that
+ * filters can be chained the same way the configuration does.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public final class BenchmarkCodecs {
+
+    private BenchmarkCodecs() {
+    }
+
+    /**
+     * Wraps the codec with the filter, both sharing the attributes, and compiles them starting from the codec.
+     *
+     * @param filter     the filter wrapping the codec
+     * @param codec      the codec being wrapped
+     * @param attributes the attributes of the codec and the filter
+     * @param <T>        the type of value encoded by the codec
+     * @return the compiled filter
+     */
+    public static <T> Codec<T> wrap(CodecFilter<T, T> filter, Codec<T> codec, Map<Attribute, Object> attributes) {
+        codec.attributes = Collections.unmodifiableMap(attributes);
+        codec.compile();
+        filter.chain = codec;
+        filter.attributes = codec.attributes;
+        filter.compile();
+        return filter;
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.benchmark;
+
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodecConfig;
+import org.chiknrice.djeng.fin.FinancialAttribute;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Configurations and messages shared by the benchmarks.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+final class BenchmarkMessages {
+
+    static final String ISO8583_1987_ASCII = "iso8583-1987-ascii.xml";
+    static final String ISO8583_1993_BCD = "iso8583-1993-bcd.xml";
+    static final String AS2805 = "as2805.xml";
+
+    private BenchmarkMessages() {
+    }
+
+    static MessageCodecConfig.MessageCodecConfigBuilder config(String xmlConfig) {
+        return MessageCodecConfig.fromXml(xmlConfig).withSchemas("djeng-financial.xsd").withCustomAttributes(FinancialAttribute.values());
+    }
+
+    /**
+     * @return a 0200 financial request with the elements configured in {@link #ISO8583_1987_ASCII}
+     */
+    static Message iso87FinancialRequest() {
+        Message message = new Message();
+        message.setElement("mti", "0200");
+        message.setElement("2", "4111111111111111");
+        message.setElement("3", "003000");
+        message.setElement("4", 1234L);
+        message.setElement("7", date("MMddHHmmss", "1017235959"));
+        message.setElement("11", 42);
+        message.setElement("12", date("HHmmss", "235959"));
+        message.setElement("13", date("MMdd", "1017"));
+        message.setElement("14", date("yyMM", "2812"));
+        message.setElement("18", "5999");
+        message.setElement("22", "051");
+        message.setElement("25", "00");
+        message.setElement("32", "123456");
+        message.setElement("35", "4111111111111111=28121011234567890");
+        message.setElement("37", "000000000001");
+        message.setElement("41", "TERM01");
+        message.setElement("42", "MERCHANT0001");
+        message.setElement("43", "ACME STORE             WELLINGTON    NZ");
+        message.setElement("48.1", "ABC");
+        message.setElement("48.2", "some additional data");
+        message.setElement("49", "554");
+        message.setElement("52", new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        message.setElement("102", "ACCOUNT-1");
+        return message;
+    }
+
+    /**
+     * @return a 1200 financial request with the elements configured in {@link #ISO8583_1993_BCD}
+     */
+    static Message iso93FinancialRequest() {
+        Message message = new Message();
+        message.setElement("mti", "1200");
+        message.setElement("2", "4111111111111111");
+        message.setElement("3", "003000");
+        message.setElement("4", 1234L);
+        message.setElement("7", date("MMddHHmmss", "1017235959"));
+        message.setElement("11", 42);
+        message.setElement("12", date("yyMMddHHmmss", "161017235959"));
+        message.setElement("14", date("yyMM", "2812"));
+        message.setElement("22", "510101511344");
+        message.setElement("24", "200");
+        message.setElement("26", "5999");
+        message.setElement("32", "123456");
+        message.setElement("35", "4111111111111111=28121011234567890");
+        message.setElement("37", "000000000001");
+        message.setElement("41", "TERM01");
+        message.setElement("42", "MERCHANT0001");
+        message.setElement("43", "ACME STORE\\WELLINGTON\\6011      NZ");
+        message.setElement("48", "some additional data");
+        message.setElement("49", "554");
+        message.setElement("52", new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        message.setElement("102", "ACCOUNT-1");
+        message.setElement("128", new byte[]{8, 7, 6, 5, 4, 3, 2, 1});
+        return message;
+    }
+
+    /**
+     * @return a 0200 financial request with the elements configured in {@link #AS2805}
+     */
+    static Message as2805FinancialRequest() {
+        Message message = new Message();
+        message.setElement("mti", "0200");
+        message.setElement("2", "4111111111111111");
+        message.setElement("3", "003000");
+        message.setElement("4", 1234L);
+        message.setElement("7", date("MMddHHmmss", "1017235959"));
+        message.setElement("11", 42);
+        message.setElement("12", date("HHmmss", "235959"));
+        message.setElement("13", date("MMdd", "1017"));
+        message.setElement("14", date("yyMM", "2812"));
+        message.setElement("15", date("MMdd", "1018"));
+        message.setElement("18", "5999");
+        message.setElement("22", "051");
+        message.setElement("25", "00");
+        message.setElement("28", -150L);
+        message.setElement("32", "56025");
+        message.setElement("33", "579944");
+        message.setElement("35", "4111111111111111=28121011234567890");
+        message.setElement("37", "000000000001");
+        message.setElement("41", "TERM01");
+        message.setElement("42", "MERCHANT0001");
+        message.setElement("43", "ACME STORE             WELLINGTON    NZ");
+        message.setElement("47", "TCC07\\");
+        message.setElement("52", new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        message.setElement("53", "0000000000000001");
+        message.setElement("57", 0L);
+        message.setElement("64", new byte[]{8, 7, 6, 5, 4, 3, 2, 1});
+        return message;
+    }
+
+    /**
+     * @param xmlConfig one of the benchmark configurations
+     * @return the message of the configuration
+     */
+    static Message financialRequest(String xmlConfig) {
+        switch (xmlConfig) {
+            case ISO8583_1987_ASCII:
+                return iso87FinancialRequest();
+            case ISO8583_1993_BCD:
+                return iso93FinancialRequest();
+            case AS2805:
+                return as2805FinancialRequest();
+            default:
+                throw new IllegalArgumentException("Unknown benchmark configuration " + xmlConfig);
+        }
+    }
+
+    static Date date(String pattern, String value) {
+        try {
+            return new SimpleDateFormat(pattern).parse(value);
+        } catch (ParseException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+}
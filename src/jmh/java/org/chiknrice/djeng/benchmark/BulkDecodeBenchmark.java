@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.benchmark;
+
+import org.chiknrice.djeng.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding a buffer of {@value #RECORDS} framed financial requests on the calling thread and in parallel on a
+ * {@code ForkJoinPool}, ordered and unordered.  The throughput is per message and scaling is measured by comparing runs
+ * with different pool sizes, e.g. {@code gradle jmh -Pjmh="BulkDecode -p parallelism=1,2,4,8"}.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkDecodeBenchmark {
+
+    private static final int RECORDS = 10000;
+    private static final FrameHeader HEADER = FrameHeader.binary(2);
+
+    @Param({"0"})
+    int parallelism;
+
+    private MessageCodec messageCodec;
+    private ForkJoinPool pool;
+    private ParallelMessageDecoder orderedDecoder;
+    private ParallelMessageDecoder unorderedDecoder;
+    private ByteBuffer records;
+
+    @Setup
+    public void setup() {
+        messageCodec = new MessageCodec(BenchmarkMessages.config(BenchmarkMessages.ISO8583_1987_ASCII).build());
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+        orderedDecoder = new ParallelMessageDecoder(messageCodec, HEADER, pool, true);
+        unorderedDecoder = new ParallelMessageDecoder(messageCodec, HEADER, pool, false);
+        List<Message> messages = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            Message message = BenchmarkMessages.iso87FinancialRequest();
+            message.setElement("11", i);
+            messages.add(message);
+        }
+        records = ByteBuffer.allocateDirect(RECORDS * (HEADER.size() + messageCodec.encode(messages.get(0)).length));
+        messageCodec.encodeAll(messages, HEADER, records);
+        records.flip();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int sequential(Blackhole blackhole) {
+        records.rewind();
+        return messageCodec.decodeAll(records, HEADER, new BlackholeHandler(blackhole));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int parallelOrdered(Blackhole blackhole) {
+        records.rewind();
+        return orderedDecoder.decodeAll(records, new BlackholeHandler(blackhole));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int parallelUnordered(Blackhole blackhole) {
+        records.rewind();
+        return unorderedDecoder.decodeAll(records, new BlackholeHandler(blackhole));
+    }
+
+    private static final class BlackholeHandler implements MessageHandler {
+
+        private final Blackhole blackhole;
+
+        private BlackholeHandler(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            blackhole.consume(message);
+        }
+
+    }
+
+}
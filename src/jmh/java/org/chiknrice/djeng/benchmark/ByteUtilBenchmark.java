@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.benchmark;
+
+import org.chiknrice.djeng.ByteUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the table driven BCD/hex conversions of {@link ByteUtil} against the previous implementations (kept in
+ * {@link Legacy}) which converted through hex strings and validated the result afterwards.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteUtilBenchmark {
+
+    private static final String AMOUNT = "000000012345";
+    private static final long AMOUNT_VALUE = 12345L;
+
+    private byte[] bcd;
+    private byte[] cBcd;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        bcd = ByteUtil.encodeBcd(AMOUNT);
+        cBcd = ByteUtil.encodeCBcd("-" + AMOUNT.substring(1));
+        buffer = ByteBuffer.allocate(16);
+    }
+
+    @Benchmark
+    public byte[] encodeBcdLegacy() {
+        return Legacy.encodeBcd(AMOUNT);
+    }
+
+    @Benchmark
+    public byte[] encodeBcd() {
+        return ByteUtil.encodeBcd(AMOUNT);
+    }
+
+    @Benchmark
+    public ByteBuffer putBcdLongLegacy() {
+        buffer.clear();
+        buffer.put(Legacy.encodeBcd(String.format("%012d", AMOUNT_VALUE)));
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer putBcdLong() {
+        buffer.clear();
+        ByteUtil.putBcd(buffer, AMOUNT_VALUE, 12);
+        return buffer;
+    }
+
+    @Benchmark
+    public String decodeBcdLegacy() {
+        return Legacy.decodeBcd(bcd);
+    }
+
+    @Benchmark
+    public String decodeBcd() {
+        return ByteUtil.decodeBcd(bcd);
+    }
+
+    @Benchmark
+    public long getBcdLongLegacy() {
+        return Long.parseLong(Legacy.decodeBcd(bcd));
+    }
+
+    @Benchmark
+    public long getBcdLong() {
+        return ByteUtil.getBcdLong(ByteBuffer.wrap(bcd), bcd.length);
+    }
+
+    @Benchmark
+    public String decodeCBcdLegacy() {
+        return Legacy.decodeCBcd(cBcd);
+    }
+
+    @Benchmark
+    public String decodeCBcd() {
+        return ByteUtil.decodeCBcd(cBcd);
+    }
+
+    @Benchmark
+    public String encodeHexLegacy() {
+        return new String(Legacy.bytesToHexChars(bcd));
+    }
+
+    @Benchmark
+    public String encodeHex() {
+        return ByteUtil.encodeHex(bcd);
+    }
+
+    /**
+     * The previous string based conversions.
+     */
+    static final class Legacy {
+
+        private static final String HEX = "0123456789ABCDEF";
+
+        static int hexValue(char c) {
+            int value = HEX.indexOf(Character.toUpperCase(c));
+            if (value == -1) {
+                throw new IllegalArgumentException(String.format("Invalid hex char %s", c));
+            }
+            return value;
+        }
+
+        static char[] bytesToHexChars(byte[] bytes) {
+            char[] chars = new char[bytes.length * 2];
+            int charPos = chars.length - 1;
+            for (int bytePos = bytes.length - 1; bytePos >= 0; bytePos--) {
+                chars[charPos--] = HEX.charAt(bytes[bytePos] & 0x0f);
+                chars[charPos--] = HEX.charAt((bytes[bytePos] & 0xf0) >> 4);
+            }
+            return chars;
+        }
+
+        static byte[] hexCharsToBytes(char[] chars) {
+            if (chars.length % 2 > 0) {
+                throw new IllegalArgumentException("Odd character hex chars");
+            }
+            byte[] bytes = new byte[chars.length / 2];
+            int length = chars.length;
+            for (int charPos = length - 1; charPos >= 0; charPos--) {
+                int bytePos = bytes.length - ((length - charPos - 1) / 2) - 1;
+                boolean hi = (length - charPos) % 2 == 0;
+                bytes[bytePos] |= (hexValue(chars[charPos]) << (hi ? 4 : 0));
+            }
+            return bytes;
+        }
+
+        static byte[] encodeBcd(String value) {
+            validateBcd(value);
+            int length = value.length();
+            if (length % 2 == 0) {
+                return hexCharsToBytes(value.toCharArray());
+            } else {
+                char[] chars = new char[length + 1];
+                value.getChars(0, length, chars, 1);
+                chars[0] = '0';
+                return hexCharsToBytes(chars);
+            }
+        }
+
+        static String decodeBcd(byte[] bytes) {
+            String decoded = new String(bytesToHexChars(bytes));
+            validateBcd(decoded);
+            return decoded;
+        }
+
+        static String decodeCBcd(byte[] bytes) {
+            char[] chars = bytesToHexChars(bytes);
+            chars[0] = chars[0] == 'D' ? '-' : chars[0] == 'C' ? '0' : chars[0];
+            String decoded = new String(chars);
+            for (int i = 0; i < decoded.length(); i++) {
+                char c = decoded.charAt(i);
+                if (i == 0 ? c != '0' && c != '-' : !Character.isDigit(c)) {
+                    throw new IllegalArgumentException("Invalid C_BCD: " + decoded);
+                }
+            }
+            return decoded;
+        }
+
+        private static void validateBcd(String string) {
+            for (int i = 0; i < string.length(); i++) {
+                if (!Character.isDigit(string.charAt(i))) {
+                    throw new IllegalArgumentException("Invalid BCD: " + string);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.benchmark;
+
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.MessageCodecConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stresses a single {@link MessageCodec} shared by all the benchmark threads.  Each thread round trips its own message
+ * and checks the result against the bytes encoded by a codec private to the thread, so any state leaking between
+ * threads fails the run.  The jmh task runs as many threads as there are processors unless {@code -t} is passed, while
+ * {@link #main(String[])} (the jmhScaling task) runs the benchmark once per thread count to compare the scaling.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class ConcurrentCodecBenchmark {
+
+    @Param({"false", "true"})
+    boolean lazyDecoding;
+
+    private MessageCodec sharedCodec;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        sharedCodec = new MessageCodec(config().build());
+    }
+
+    private MessageCodecConfig.MessageCodecConfigBuilder config() {
+        MessageCodecConfig.MessageCodecConfigBuilder builder = BenchmarkMessages.config(BenchmarkMessages.ISO8583_1987_ASCII);
+        if (lazyDecoding) {
+            builder.withLazyDecoding();
+        }
+        return builder;
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadMessage {
+
+        Message message;
+        String pan;
+        int stan;
+        byte[] expected;
+
+        @Setup
+        public void setup(ConcurrentCodecBenchmark benchmark) {
+            int thread = benchmark.threadCount.incrementAndGet();
+            // the elements differ per thread so that a value decoded for another thread would be noticed
+            pan = String.format("4111%012d", thread);
+            stan = thread;
+            message = BenchmarkMessages.iso87FinancialRequest();
+            message.setElement("2", pan);
+            message.setElement("11", stan);
+            message.setElement("48.1", String.format("%03d", thread % 1000));
+            expected = new MessageCodec(benchmark.config().build()).encode(message);
+        }
+
+    }
+
+    @Benchmark
+    public byte[] encode(ThreadMessage threadMessage) {
+        byte[] encoded = sharedCodec.encode(threadMessage.message);
+        check(Arrays.equals(threadMessage.expected, encoded), "Encoded bytes differ");
+        return encoded;
+    }
+
+    @Benchmark
+    public Message decode(ThreadMessage threadMessage) {
+        Message message = sharedCodec.decode(threadMessage.expected);
+        check(threadMessage.pan.equals(message.getElement("2")), "Decoded PAN differs");
+        check(threadMessage.stan == message.getIntElement("11"), "Decoded STAN differs");
+        return message;
+    }
+
+    @Benchmark
+    public byte[] roundTrip(ThreadMessage threadMessage) {
+        Message message = sharedCodec.decode(sharedCodec.encode(threadMessage.message));
+        check(threadMessage.pan.equals(message.getElement("2")), "Decoded PAN differs");
+        byte[] encoded = sharedCodec.encode(message);
+        check(Arrays.equals(threadMessage.expected, encoded), "Re-encoded bytes differ");
+        return encoded;
+    }
+
+    /**
+     * Runs the benchmark with each of the thread counts and prints the throughput of each run.
+     *
+     * @param args the thread counts, the powers of 2 up to the available processors if none
+     * @throws RunnerException if a run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        List<Integer> threadCounts = new ArrayList<>();
+        for (String arg : args) {
+            threadCounts.add(Integer.parseInt(arg));
+        }
+        if (threadCounts.isEmpty()) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            for (int threads = 1; threads < processors; threads *= 2) {
+                threadCounts.add(threads);
+            }
+            threadCounts.add(processors);
+        }
+        List<String> lines = new ArrayList<>();
+        for (int threads : threadCounts) {
+            for (RunResult runResult : new Runner(new OptionsBuilder().include(
+                    ConcurrentCodecBenchmark.class.getName()).threads(threads).build()).run()) {
+                Result result = runResult.getPrimaryResult();
+                lines.add(String.format("%-12s %-6s %8d %14.0f %12.0f %s", result.getLabel(),
+                        runResult.getParams().getParam("lazyDecoding"), threads, result.getScore(),
+                        result.getScoreError(), result.getScoreUnit()));
+            }
+        }
+        System.out.println(String.format("%-12s %-6s %8s %14s %12s", "Benchmark", "Lazy", "Threads", "Score", "Error"));
+        for (String line : lines) {
+            System.out.println(line);
+        }
+    }
+
+    private static void check(boolean condition, String error) {
+        if (!condition) {
+            throw new IllegalStateException(error + " in " + Thread.currentThread().getName());
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.benchmark;
+
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.MessageCodecConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares eager and lazy decoding of a message where only a few elements are read, as done when routing messages.
+ * The {@code decodeAndReencode} benchmark forwards the message after reading the routing elements.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazyDecodeBenchmark {
+
+    private static final String[] ROUTING_ELEMENTS = {"mti", "2", "3", "4", "32", "41"};
+
+    @Param({"false", "true"})
+    boolean lazyDecoding;
+
+    private MessageCodec messageCodec;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        MessageCodecConfig.MessageCodecConfigBuilder builder = BenchmarkMessages.config(BenchmarkMessages.ISO8583_1987_ASCII);
+        if (lazyDecoding) {
+            builder.withLazyDecoding();
+        }
+        messageCodec = new MessageCodec(builder.build());
+        encoded = messageCodec.encode(BenchmarkMessages.iso87FinancialRequest());
+    }
+
+    @Benchmark
+    public void decodeAndRead(Blackhole blackhole) {
+        Message message = messageCodec.decode(encoded);
+        for (String index : ROUTING_ELEMENTS) {
+            blackhole.consume(message.getElement(index));
+        }
+    }
+
+    @Benchmark
+    public byte[] decodeAndReencode(Blackhole blackhole) {
+        Message message = messageCodec.decode(encoded);
+        for (String index : ROUTING_ELEMENTS) {
+            blackhole.consume(message.getElement(index));
+        }
+        return messageCodec.encode(message);
+    }
+
+}
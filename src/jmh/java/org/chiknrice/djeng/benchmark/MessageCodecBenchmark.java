@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.benchmark;
+
+import org.chiknrice.djeng.FrameHeader;
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.MessageHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding a financial request with each of the benchmark configurations: ISO8583-1987 with
+ * ASCII numerics, ISO8583-1993 with BCD numerics and a secondary bitmap, and AS2805 with BCD_F and C_BCD numerics.  The
+ * encode buffer is pooled so the {@code gc.alloc.rate.norm} of {@code encode} only accounts for the encoded bytes.
+ * The batch benchmarks encode and decode {@value #BATCH_SIZE} framed messages per invocation and report the throughput
+ * per message so they compare directly with {@code encode} and {@code decode}.  {@code decodeSelected} only decodes the
+ * elements needed to route the message.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    @Param({BenchmarkMessages.ISO8583_1987_ASCII, BenchmarkMessages.ISO8583_1993_BCD, BenchmarkMessages.AS2805})
+    String xmlConfig;
+
+    private static final int BATCH_SIZE = 100;
+    private static final FrameHeader HEADER = FrameHeader.binary(2);
+    private static final String[] ROUTING_ELEMENTS = {"mti", "2", "3", "4", "11", "32", "41"};
+
+    private MessageCodec messageCodec;
+    private MessageCodec selectiveCodec;
+    private Message message;
+    private byte[] encoded;
+    private List<Message> batch;
+    private ByteBuffer batchBuffer;
+    private ByteBuffer encodedBatch;
+
+    @Setup
+    public void setup() {
+        messageCodec = new MessageCodec(BenchmarkMessages.config(xmlConfig).withEncodeBufferPool(1).build());
+        selectiveCodec = new MessageCodec(BenchmarkMessages.config(xmlConfig).withSelectiveDecoding(ROUTING_ELEMENTS).build());
+        message = BenchmarkMessages.financialRequest(xmlConfig);
+        encoded = messageCodec.encode(message);
+        batch = Collections.nCopies(BATCH_SIZE, message);
+        batchBuffer = ByteBuffer.allocate(BATCH_SIZE * (HEADER.size() + encoded.length));
+        messageCodec.encodeAll(batch, HEADER, batchBuffer);
+        batchBuffer.flip();
+        encodedBatch = ByteBuffer.allocate(batchBuffer.remaining());
+        encodedBatch.put(batchBuffer).flip();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return messageCodec.encode(message);
+    }
+
+    @Benchmark
+    public Message decode() {
+        return messageCodec.decode(encoded);
+    }
+
+    @Benchmark
+    public Message decodeSelected() {
+        return selectiveCodec.decode(encoded);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public ByteBuffer encodeBatch() {
+        batchBuffer.clear();
+        messageCodec.encodeAll(batch, HEADER, batchBuffer);
+        return batchBuffer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int decodeBatch(final Blackhole blackhole) {
+        encodedBatch.rewind();
+        return messageCodec.decodeAll(encodedBatch, HEADER, new MessageHandler() {
+            @Override
+            public void onMessage(Message message) {
+                blackhole.consume(message);
+            }
+        });
+    }
+
+}
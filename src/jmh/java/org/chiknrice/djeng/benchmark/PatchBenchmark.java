@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.benchmark;
+
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.MessagePatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the response of an ISO8583-1987 financial request from the request bytes.  {@code rebuild} decodes
+ * the request, changes it and encodes the response.  {@code patchInPlace} only changes the MTI which is overwritten in
+ * place and {@code patchSplice} also sets the response code and removes the track 2 which re-encodes the message with
+ * the other elements copied as is.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatchBenchmark {
+
+    private MessageCodec messageCodec;
+    private MessagePatcher messagePatcher;
+    private byte[] request;
+    private Map<String, Object> mtiChange;
+    private Map<String, Object> responseChanges;
+
+    @Setup
+    public void setup() {
+        messageCodec = new MessageCodec(BenchmarkMessages.config(BenchmarkMessages.ISO8583_1987_ASCII).withEncodeBufferPool(1).build());
+        messagePatcher = new MessagePatcher(new MessageCodec(BenchmarkMessages.config(BenchmarkMessages.ISO8583_1987_ASCII).withLazyDecoding().withEncodeBufferPool(1).build()));
+        request = messageCodec.encode(BenchmarkMessages.iso87FinancialRequest());
+        mtiChange = new LinkedHashMap<>();
+        mtiChange.put("mti", "0210");
+        responseChanges = new LinkedHashMap<>(mtiChange);
+        responseChanges.put("39", "00");
+        responseChanges.put("35", null);
+    }
+
+    @Benchmark
+    public byte[] rebuild() {
+        Message response = messageCodec.decode(request);
+        response.setElement("mti", "0210");
+        response.setElement("39", "00");
+        response.removeElement("35");
+        return messageCodec.encode(response);
+    }
+
+    @Benchmark
+    public byte[] patchInPlace() {
+        return messagePatcher.patch(request.clone(), mtiChange);
+    }
+
+    @Benchmark
+    public byte[] patchSplice() {
+        return messagePatcher.patch(request, responseChanges);
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.benchmark;
+
+import org.chiknrice.djeng.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding with and without a {@link SectionListener}.  When run with {@code -prof gc}, the
+ * {@code gc.alloc.rate.norm} of {@code recordSections=false} should only account for the message buffers and the
+ * element values, the difference with {@code recordSections=true} being the per element tracing.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SectionRecordingBenchmark {
+
+    @Param({"false", "true"})
+    boolean recordSections;
+
+    private MessageCodec messageCodec;
+    private Message message;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        MessageCodecConfig.MessageCodecConfigBuilder builder = BenchmarkMessages.config(BenchmarkMessages.ISO8583_1987_ASCII);
+        if (recordSections) {
+            builder.withSectionListener(new SectionListener() {
+                @Override
+                public void onEncode(SortedSet<Section> sections) {
+                }
+
+                @Override
+                public void onDecode(SortedSet<Section> sections) {
+                }
+            });
+        }
+        messageCodec = new MessageCodec(builder.build());
+        message = BenchmarkMessages.iso87FinancialRequest();
+        encoded = messageCodec.encode(message);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return messageCodec.encode(message);
+    }
+
+    @Benchmark
+    public Message decode() {
+        return messageCodec.decode(encoded);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.Attribute;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding of a bitmap with each {@link Bitmap.Encoding}.  The benchmark is in the same package
+ * as the codec so the codec can be used without a message configuration.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitmapCodecBenchmark {
+
+    private static final int[] ISO_BITS = {2, 3, 4, 7, 11, 12, 13, 14, 18, 22, 25, 32, 37, 41, 42, 43, 49, 70, 90, 128};
+    private static final int[] DATA_SET_BITS = {2, 3, 5, 8, 11, 14, 20, 23, 30};
+
+    @Param({"BINARY", "HEX", "DATA_SET"})
+    Bitmap.Encoding encoding;
+
+    private BitmapCodec codec;
+    private Bitmap bitmap;
+    private ByteBuffer buffer;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setup() {
+        codec = new BitmapCodec() {
+            @Override
+            public <A> A getAttribute(Attribute attribute) {
+                //noinspection unchecked
+                return FinancialAttribute.BITMAP_ENCODING.equals(attribute) ? (A) encoding : null;
+            }
+        };
+        codec.compile();
+        bitmap = new Bitmap();
+        for (int bit : Bitmap.Encoding.DATA_SET.equals(encoding) ? DATA_SET_BITS : ISO_BITS) {
+            bitmap.set(bit);
+        }
+        buffer = ByteBuffer.allocate(64);
+        codec.encodeValue(buffer, bitmap);
+        buffer.flip();
+        encoded = buffer.slice();
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        buffer.clear();
+        codec.encodeValue(buffer, bitmap);
+        return buffer;
+    }
+
+    @Benchmark
+    public Bitmap decode() {
+        encoded.rewind();
+        return codec.decodeValue(encoded);
+    }
+
+}
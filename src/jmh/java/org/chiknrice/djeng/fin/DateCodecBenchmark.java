@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.Attribute;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding of the date patterns of the transmission date and time (MMddHHmmss), the local time
+ * (HHmmss) and an expiry date (yyMM).  The benchmark is in the same package as the codec so the codec can be used
+ * without a message configuration.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateCodecBenchmark {
+
+    @Param({"MMddHHmmss", "HHmmss", "yyMM"})
+    String pattern;
+
+    @Param({"CHAR", "BCD"})
+    String encoding;
+
+    private DateCodec codec;
+    private Date date;
+    private ByteBuffer buffer;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setup() {
+        codec = new DateCodec() {
+            @Override
+            public <A> A getAttribute(Attribute attribute) {
+                Object value = null;
+                if (FinancialAttribute.PATTERN.equals(attribute)) {
+                    value = pattern;
+                } else if (FinancialAttribute.DATE_ENCODING.equals(attribute)) {
+                    value = Encoding.valueOf(encoding);
+                } else if (FinancialAttribute.TIMEZONE.equals(attribute)) {
+                    value = "UTC";
+                }
+                //noinspection unchecked
+                return (A) value;
+            }
+        };
+        codec.compile();
+        date = new Date(1476748799000L);
+        buffer = ByteBuffer.allocate(32);
+        codec.encodeValue(buffer, date);
+        buffer.flip();
+        encoded = buffer.slice();
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        buffer.clear();
+        codec.encodeValue(buffer, date);
+        return buffer;
+    }
+
+    @Benchmark
+    public Date decode() {
+        encoded.rewind();
+        return codec.decodeValue(encoded);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.Attribute;
+import org.chiknrice.djeng.BenchmarkCodecs;
+import org.chiknrice.djeng.Codec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding, decoding and skipping an LLVAR string with each length prefix encoding.  Skipping is how elements
+ * are consumed when decoding lazily.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LengthPrefixCodecFilterBenchmark {
+
+    private static final String VALUE = "ACCOUNT-1";
+
+    @Param({"CHAR", "BCD", "BINARY"})
+    String lvarEncoding;
+
+    private Codec<String> codec;
+    private ByteBuffer buffer;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setup() {
+        Map<Attribute, Object> attributes = new HashMap<>();
+        attributes.put(FinancialAttribute.LVAR_LENGTH, 2);
+        attributes.put(FinancialAttribute.LVAR_ENCODING, Encoding.valueOf(lvarEncoding));
+        codec = BenchmarkCodecs.wrap(new LengthPrefixCodecFilter<String>(), new StringCodec(), attributes);
+        buffer = ByteBuffer.allocate(32);
+        codec.encode(buffer, VALUE);
+        buffer.flip();
+        encoded = buffer.slice();
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        buffer.clear();
+        codec.encode(buffer, VALUE);
+        return buffer;
+    }
+
+    @Benchmark
+    public String decode() {
+        encoded.rewind();
+        return codec.decode(encoded);
+    }
+
+    @Benchmark
+    public ByteBuffer skip() {
+        encoded.rewind();
+        codec.skip(encoded);
+        return encoded;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.Attribute;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding of a 12 digit amount with each fixed length numeric encoding, and of a PAN with the
+ * BCD_F var length encoding, as a {@code LONG} and as a {@code STRING}.  The benchmark is in the same package as the
+ * codec so the codec can be used without a message configuration.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumericCodecBenchmark {
+
+    private static final int AMOUNT_LENGTH = 12;
+    private static final long AMOUNT = 12345L;
+    private static final long PAN = 4111111111111111L;
+
+    @Param({"CHAR", "BCD", "C_BCD", "CC_BCD", "BCD_F"})
+    String encoding;
+
+    @Param({"LONG", "STRING"})
+    String numericType;
+
+    private NumericCodec codec;
+    private Object value;
+    private ByteBuffer buffer;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setup() {
+        final boolean varLength = Encoding.BCD_F.name().equals(encoding);
+        codec = new NumericCodec() {
+            @Override
+            public <A> A getAttribute(Attribute attribute) {
+                Object value = null;
+                if (FinancialAttribute.LENGTH.equals(attribute)) {
+                    value = varLength ? null : AMOUNT_LENGTH;
+                } else if (FinancialAttribute.FIXED_NUMERIC_ENCODING.equals(attribute)) {
+                    value = varLength ? null : Encoding.valueOf(encoding);
+                } else if (FinancialAttribute.VAR_NUMERIC_ENCODING.equals(attribute)) {
+                    value = varLength ? Encoding.valueOf(encoding) : null;
+                } else if (FinancialAttribute.NUMERIC_TYPE.equals(attribute)) {
+                    value = NumericType.valueOf(numericType);
+                }
+                //noinspection unchecked
+                return (A) value;
+            }
+        };
+        codec.compile();
+        if (NumericCodec.NumericType.LONG.name().equals(numericType)) {
+            value = varLength ? PAN : AMOUNT;
+        } else {
+            // a CC_BCD string includes the 2 characters of the C/D byte
+            int width = Encoding.CC_BCD.name().equals(encoding) ? AMOUNT_LENGTH + 2 : AMOUNT_LENGTH;
+            value = varLength ? Long.toString(PAN) : String.format("%0" + width + "d", AMOUNT);
+        }
+        buffer = ByteBuffer.allocate(32);
+        codec.encode(buffer, value);
+        buffer.flip();
+        encoded = buffer.slice();
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        buffer.clear();
+        codec.encode(buffer, value);
+        return buffer;
+    }
+
+    @Benchmark
+    public Object decode() {
+        encoded.rewind();
+        return codec.decode(encoded);
+    }
+
+    @Benchmark
+    public long decodeLong() {
+        encoded.rewind();
+        return codec.decodeLong(encoded);
+    }
+
+}
@@ -40,17 +40,19 @@ public class ArrayCodecFilter<W> extends CodecFilter<CompositeMap, W> {
         CompositeMap compositeMap = element;
         Set<String> elementsLeft = new HashSet<>(compositeMap.keySet());
         int index = 1;
+        String arrayIndex = Integer.toString(index);
         W arrayElement;
-        while ((arrayElement = (W) compositeMap.get(Integer.toString(index))) != null) {
+        while ((arrayElement = (W) compositeMap.get(arrayIndex)) != null) {
             try {
-                pushIndex(Integer.toString(index));
+                pushIndex(arrayIndex);
                 chain.encode(buffer, arrayElement);
-                elementsLeft.remove(Integer.toString(index++));
+                elementsLeft.remove(arrayIndex);
             } catch (Exception e) {
-                throw new CodecException(e, getCurrentIndexPath());
+                throw subElementException(e, arrayIndex);
             } finally {
                 popIndex();
             }
+            arrayIndex = Integer.toString(++index);
         }
         if (elementsLeft.size() > 0) {
             throw new RuntimeException("Unexpected array elements: " + elementsLeft);
@@ -69,15 +71,34 @@ public class ArrayCodecFilter<W> extends CodecFilter<CompositeMap, W> {
         CompositeMap compositeMap = new CompositeMap();
         int index = 1;
         while (buffer.hasRemaining()) {
+            String arrayIndex = Integer.toString(index++);
             try {
-                pushIndex(Integer.toString(index));
-                compositeMap.put(Integer.toString(index++), chain.decode(buffer));
+                pushIndex(arrayIndex);
+                compositeMap.put(arrayIndex, chain.decode(buffer));
             } catch (Exception e) {
-                throw new CodecException(e, getCurrentIndexPath());
+                throw subElementException(e, arrayIndex);
             } finally {
                 popIndex();
             }
         }
         return compositeMap;
     }
+
+    /**
+     * Skips the array elements up to the limit of the {@code ByteBuffer}.
+     *
+     * @param buffer the source of the bytes to skip
+     */
+    @Override
+    public void skip(ByteBuffer buffer) {
+        int index = 1;
+        while (buffer.hasRemaining()) {
+            String arrayIndex = Integer.toString(index++);
+            try {
+                chain.skip(buffer);
+            } catch (Exception e) {
+                throw subElementException(e, arrayIndex);
+            }
+        }
+    }
 }
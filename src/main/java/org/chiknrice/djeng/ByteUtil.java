@@ -15,7 +15,11 @@
  */
 package org.chiknrice.djeng;
 
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import static java.lang.String.format;
 
@@ -26,6 +30,46 @@ public final class ByteUtil {
 
     private static final String HEX = "0123456789ABCDEF";
 
+    private static final byte[] HEX_DIGITS = HEX.getBytes(StandardCharsets.ISO_8859_1);
+
+    /**
+     * The nibble value of each ASCII hex character (upper and lower case) or -1 if the character is not a hex digit.
+     */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    /**
+     * The 2 hex characters of each byte value.
+     */
+    private static final char[] HEX_PAIRS = new char[512];
+
+    /**
+     * The decimal value (0 to 99) of each packed BCD byte, or -1 if any of its nibbles is above 9.
+     */
+    private static final byte[] BCD_VALUES = new byte[256];
+
+    /**
+     * The packed BCD byte of each decimal value from 0 to 99.
+     */
+    private static final byte[] BCD_BYTES = new byte[100];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < HEX.length(); i++) {
+            HEX_VALUES[HEX.charAt(i)] = (byte) i;
+            HEX_VALUES[Character.toLowerCase(HEX.charAt(i))] = (byte) i;
+        }
+        for (int b = 0; b < 256; b++) {
+            int hi = b >>> 4;
+            int lo = b & 0x0f;
+            HEX_PAIRS[b * 2] = HEX.charAt(hi);
+            HEX_PAIRS[b * 2 + 1] = HEX.charAt(lo);
+            BCD_VALUES[b] = (byte) (hi > 9 || lo > 9 ? -1 : hi * 10 + lo);
+        }
+        for (int i = 0; i < 100; i++) {
+            BCD_BYTES[i] = (byte) (((i / 10) << 4) | (i % 10));
+        }
+    }
+
     /**
      * Gets the hex value of a given character.  This operation is case insensitive.  This should be much more efficient
      * than Integer.parseInt(s, 16).
@@ -35,13 +79,17 @@ public final class ByteUtil {
      * @throws IllegalArgumentException if the character is not a valid hex value (0 to F)
      */
     public static int hexValue(char c) {
-        int value = HEX.indexOf(Character.toUpperCase(c));
+        int value = c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
         if (value == -1) {
             throw new IllegalArgumentException(String.format("Invalid hex char %s", c));
         }
         return value;
     }
 
+    private static IllegalArgumentException invalid(String type, CharSequence value) {
+        return new IllegalArgumentException("Invalid " + type + ": " + value);
+    }
+
     /**
      * Transforms bytes to an array of hex characters representing the nibbles
      *
@@ -50,11 +98,10 @@ public final class ByteUtil {
      */
     static char[] bytesToHexChars(byte[] bytes) {
         char[] chars = new char[bytes.length * 2];
-        int charPos = chars.length - 1;// LSB
-
-        for (int bytePos = bytes.length - 1; bytePos >= 0; bytePos--) {
-            chars[charPos--] = HEX.charAt(bytes[bytePos] & 0x0f);
-            chars[charPos--] = HEX.charAt((bytes[bytePos] & 0xf0) >> 4);
+        for (int i = 0; i < bytes.length; i++) {
+            int pair = (bytes[i] & 0xFF) * 2;
+            chars[i * 2] = HEX_PAIRS[pair];
+            chars[i * 2 + 1] = HEX_PAIRS[pair + 1];
         }
         return chars;
     }
@@ -65,22 +112,14 @@ public final class ByteUtil {
      * @param chars TODO
      * @return TODO
      */
-    static byte[] hexCharsToBytes(char[] chars) {
-        if (chars.length % 2 > 0) {
+    static byte[] hexCharsToBytes(CharSequence chars) {
+        int length = chars.length();
+        if (length % 2 > 0) {
             throw new IllegalArgumentException("Odd character hex chars");
         }
-        byte[] bytes = new byte[chars.length / 2];
-
-        int length = chars.length;
-
-        for (int charPos = length - 1; charPos >= 0; charPos--) {
-            int bytePos = bytes.length - ((length - charPos - 1) / 2) - 1;
-            boolean hi = (length - charPos) % 2 == 0;
-
-            char c = chars[charPos];
-            int hex = hexValue(c);
-
-            bytes[bytePos] |= (hex << (hi ? 4 : 0));
+        byte[] bytes = new byte[length / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ((hexValue(chars.charAt(i * 2)) << 4) | hexValue(chars.charAt(i * 2 + 1)));
         }
         return bytes;
     }
@@ -95,6 +134,46 @@ public final class ByteUtil {
         return new String(bytesToHexChars(bytes));
     }
 
+    /**
+     * Same as {@link #encodeHex(byte[])} but the bytes are read directly from the buffer.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be encoded
+     * @return the hex string
+     */
+    public static String getHex(ByteBuffer buffer, int length) {
+        return new String(getHexChars(buffer, length));
+    }
+
+    /**
+     * Reads the hex characters representing the nibbles of the next {@code length} bytes of the buffer.
+     */
+    private static char[] getHexChars(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < chars.length; i += 2) {
+            int pair = (buffer.get() & 0xFF) * 2;
+            chars[i] = HEX_PAIRS[pair];
+            chars[i + 1] = HEX_PAIRS[pair + 1];
+        }
+        return chars;
+    }
+
+    /**
+     * Gets the hex string of the bytes in the buffer without consuming them, used to report invalid values.
+     */
+    private static String hexString(ByteBuffer buffer, int start, int length) {
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.position(start);
+        return getHex(bytes, length);
+    }
+
+    private static void checkRemaining(ByteBuffer buffer, int length) {
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+    }
+
     /**
      * Decodes a string of (even) hex characters to nibbles in a byte[]
      *
@@ -102,7 +181,7 @@ public final class ByteUtil {
      * @return TODO
      */
     public static byte[] decodeHex(String hex) {
-        return hexCharsToBytes(hex.toCharArray());
+        return hexCharsToBytes(hex);
     }
 
     /**
@@ -114,17 +193,9 @@ public final class ByteUtil {
      * @throws IllegalArgumentException if the string contains non numeric characters
      */
     public static byte[] encodeBcd(String value) {
-        validateBcd(value);
-        int length = value.length();
-        int padLength = length % 2;
-        if (padLength == 0) {
-            return decodeHex(value);
-        } else {
-            char[] chars = new char[length + padLength];
-            value.getChars(0, length, chars, 1);
-            chars[0] = '0';
-            return hexCharsToBytes(chars);
-        }
+        byte[] bytes = new byte[(value.length() + 1) / 2];
+        putBcd(ByteBuffer.wrap(bytes), value);
+        return bytes;
     }
 
     /**
@@ -135,9 +206,80 @@ public final class ByteUtil {
      * @throws IllegalArgumentException if the bytes contains nibbles with value above 9 (A-F)
      */
     public static String decodeBcd(byte[] bytes) {
-        String decoded = encodeHex(bytes);
-        validateBcd(decoded);
-        return decoded;
+        return getBcd(ByteBuffer.wrap(bytes), bytes.length);
+    }
+
+    /**
+     * Same as {@link #decodeBcd(byte[])} but the bytes are read directly from the buffer.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be decoded
+     * @return the decoded numeric string
+     * @throws IllegalArgumentException if the bytes contains nibbles with value above 9 (A-F)
+     */
+    public static String getBcd(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        char[] chars = new char[length * 2];
+        getDigits(buffer, length, chars, 0, "BCD");
+        return new String(chars);
+    }
+
+    /**
+     * Reads packed BCD bytes as pairs of digit characters.  The nibbles are validated as they are read.
+     */
+    private static void getDigits(ByteBuffer buffer, int length, char[] chars, int offset, String type) {
+        int start = buffer.position();
+        for (int i = 0; i < length; i++) {
+            int value = BCD_VALUES[buffer.get() & 0xFF];
+            if (value < 0) {
+                throw invalid(type, hexString(buffer, start, length));
+            }
+            chars[offset++] = (char) ('0' + value / 10);
+            chars[offset++] = (char) ('0' + value % 10);
+        }
+    }
+
+    /**
+     * Reads packed BCD bytes as a non negative number.  The nibbles are validated as they are read.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be decoded
+     * @return the decoded number
+     * @throws IllegalArgumentException if the bytes contains nibbles with value above 9 (A-F) or if the number doesn't
+     *                                  fit in a long
+     */
+    public static long getBcdLong(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        int start = buffer.position();
+        long number = getBcdDigits(buffer, length, 0, start, length, "BCD");
+        if (number < 0) {
+            throw invalid("BCD", hexString(buffer, start, length));
+        }
+        return number;
+    }
+
+    /**
+     * Accumulates {@code count} packed BCD bytes to the number read so far.
+     *
+     * @return the accumulated number, or -1 if a nibble is not a digit
+     */
+    private static long getBcdDigits(ByteBuffer buffer, int count, long number, int start, int length, String type) {
+        for (int i = 0; i < count; i++) {
+            int value = BCD_VALUES[buffer.get() & 0xFF];
+            if (value < 0) {
+                return -1;
+            }
+            number = appendDigits(number, value, 100, buffer, start, length, type);
+        }
+        return number;
+    }
+
+    private static long appendDigits(long number, int value, int radix, ByteBuffer buffer, int start, int length,
+                                     String type) {
+        if (number > (Long.MAX_VALUE - value) / radix) {
+            throw new IllegalArgumentException(type + " value exceeds long: " + hexString(buffer, start, length));
+        }
+        return number * radix + value;
     }
 
     /**
@@ -150,17 +292,9 @@ public final class ByteUtil {
      * @throws IllegalArgumentException if the string contains non numeric characters
      */
     public static byte[] encodeBcdF(String value) {
-        validateBcdF(value);
-        int length = value.length();
-        int padLength = length % 2;
-        if (padLength == 0) {
-            return decodeHex(value);
-        } else {
-            char[] chars = new char[length + padLength];
-            value.getChars(0, length, chars, 0);
-            chars[length] = 'F';
-            return hexCharsToBytes(chars);
-        }
+        byte[] bytes = new byte[(value.length() + 1) / 2];
+        putBcdF(ByteBuffer.wrap(bytes), value);
+        return bytes;
     }
 
     /**
@@ -173,11 +307,78 @@ public final class ByteUtil {
      *                                  has a non numeric values
      */
     public static String decodeBcdF(byte[] bytes) {
-        char[] chars = bytesToHexChars(bytes);
-        int length = chars[chars.length - 1] == 'F' ? chars.length - 1 : chars.length;
-        String decoded = new String(chars, 0, length);
-        validateBcdF(decoded);
-        return decoded;
+        return getBcdF(ByteBuffer.wrap(bytes), bytes.length);
+    }
+
+    /**
+     * Same as {@link #decodeBcdF(byte[])} but the bytes are read directly from the buffer.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be decoded
+     * @return the decoded numeric string
+     * @throws IllegalArgumentException if the last nibble contains any value of A to E, or if the rest of the nibbles
+     *                                  has a non numeric values
+     */
+    public static String getBcdF(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        int start = buffer.position();
+        char[] chars = new char[length * 2];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get() & 0xFF;
+            int hi = b >>> 4;
+            int lo = b & 0x0f;
+            boolean last = i == length - 1;
+            // the first nibble can be any hex digit but 0 while the last nibble can be the F padding
+            if (i == 0 ? hi == 0 : hi > 9) {
+                throw invalid("BCD_F", bcdFString(buffer, start, length));
+            }
+            chars[count++] = HEX.charAt(hi);
+            if (last && lo == 0x0f) {
+                break;
+            } else if (lo > 9) {
+                throw invalid("BCD_F", bcdFString(buffer, start, length));
+            }
+            chars[count++] = (char) ('0' + lo);
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Same as {@link #getBcdF(ByteBuffer, int)} but the digits are accumulated to a number.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be decoded
+     * @return the decoded number
+     * @throws IllegalArgumentException if the first nibble is not 1 to 9, if the last nibble contains any value of A to
+     *                                  E, if the rest of the nibbles has a non numeric values or if the number doesn't fit
+     *                                  in a long
+     */
+    public static long getBcdFLong(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        int start = buffer.position();
+        long number = 0;
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get() & 0xFF;
+            int hi = b >>> 4;
+            int lo = b & 0x0f;
+            if ((i == 0 && hi == 0) || hi > 9) {
+                throw invalid("BCD_F", bcdFString(buffer, start, length));
+            }
+            number = appendDigits(number, hi, 10, buffer, start, length, "BCD_F");
+            if (i == length - 1 && lo == 0x0f) {
+                break;
+            } else if (lo > 9) {
+                throw invalid("BCD_F", bcdFString(buffer, start, length));
+            }
+            number = appendDigits(number, lo, 10, buffer, start, length, "BCD_F");
+        }
+        return number;
+    }
+
+    private static String bcdFString(ByteBuffer buffer, int start, int length) {
+        String hex = hexString(buffer, start, length);
+        return hex.endsWith("F") ? hex.substring(0, hex.length() - 1) : hex;
     }
 
     /**
@@ -191,11 +392,9 @@ public final class ByteUtil {
      *                                  '0' nor '-'; or if the rest contains non numeric characters
      */
     public static byte[] encodeCBcd(String value) {
-        validateCBcd(value);
-        boolean credit = value.charAt(0) != '-';
-        char[] chars = value.toCharArray();
-        chars[0] = credit ? 'C' : 'D';
-        return hexCharsToBytes(chars);
+        byte[] bytes = new byte[value.length() / 2];
+        putCBcd(ByteBuffer.wrap(bytes), value);
+        return bytes;
     }
 
     /**
@@ -208,11 +407,73 @@ public final class ByteUtil {
      *                                  numeric characters
      */
     public static String decodeCBcd(byte[] bytes) {
-        char[] chars = bytesToHexChars(bytes);
-        chars[0] = chars[0] == 'D' ? '-' : chars[0] == 'C' ? chars[0] = '0' : chars[0];
-        String decoded = new String(chars);
-        validateCBcd(decoded);
-        return decoded;
+        return getCBcd(ByteBuffer.wrap(bytes), bytes.length);
+    }
+
+    /**
+     * Same as {@link #decodeCBcd(byte[])} but the bytes are read directly from the buffer.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be decoded
+     * @return the decoded numeric string
+     * @throws IllegalArgumentException if the first nibble is anything but '0', 'C', or 'D' or the rest contains non
+     *                                  numeric characters
+     */
+    public static String getCBcd(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        char[] chars = new char[length * 2];
+        if (length > 0) {
+            int start = buffer.position();
+            int b = buffer.get() & 0xFF;
+            int sign = b >>> 4;
+            int digit = b & 0x0f;
+            if ((sign != 0 && sign != 0xC && sign != 0xD) || digit > 9) {
+                throw invalid("C_BCD", cBcdString(buffer, start, length));
+            }
+            chars[0] = sign == 0xD ? '-' : '0';
+            chars[1] = (char) ('0' + digit);
+            try {
+                getDigits(buffer, length - 1, chars, 2, "C_BCD");
+            } catch (IllegalArgumentException e) {
+                throw invalid("C_BCD", cBcdString(buffer, start, length));
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Same as {@link #getCBcd(ByteBuffer, int)} but the digits are accumulated to a number and the sign nibble is
+     * applied to it.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be decoded
+     * @return the decoded number
+     * @throws IllegalArgumentException if the first nibble is anything but '0', 'C', or 'D', if the rest contains non
+     *                                  numeric characters or if the number doesn't fit in a long
+     */
+    public static long getCBcdLong(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        if (length == 0) {
+            return 0;
+        }
+        int start = buffer.position();
+        int b = buffer.get() & 0xFF;
+        int sign = b >>> 4;
+        int digit = b & 0x0f;
+        if ((sign != 0 && sign != 0xC && sign != 0xD) || digit > 9) {
+            throw invalid("C_BCD", cBcdString(buffer, start, length));
+        }
+        long number = getBcdDigits(buffer, length - 1, digit, start, length, "C_BCD");
+        if (number < 0) {
+            throw invalid("C_BCD", cBcdString(buffer, start, length));
+        }
+        return sign == 0xD ? -number : number;
+    }
+
+    private static String cBcdString(ByteBuffer buffer, int start, int length) {
+        char[] chars = hexString(buffer, start, length).toCharArray();
+        chars[0] = chars[0] == 'D' ? '-' : chars[0] == 'C' ? '0' : chars[0];
+        return new String(chars);
     }
 
     /**
@@ -227,12 +488,9 @@ public final class ByteUtil {
      *                                  either "00" or "-0"; or if the rest contains non numeric characters
      */
     public static byte[] encodeCcBcd(String value) {
-        validateCcBcd(value);
-        boolean credit = !value.startsWith("-0");
-        char[] chars = value.toCharArray();
-        chars[0] = '4';
-        chars[1] = credit ? '3' : '4';
-        return hexCharsToBytes(chars);
+        byte[] bytes = new byte[value.length() / 2];
+        putCcBcd(ByteBuffer.wrap(bytes), value);
+        return bytes;
     }
 
     /**
@@ -246,53 +504,438 @@ public final class ByteUtil {
      *                                  non numeric characters
      */
     public static String decodeCcBcd(byte[] bytes) {
-        String prefix = new String(bytes, 0, 1);
-        prefix = prefix.equals("D") ? "-0" : prefix.equals("C") ? "00" : null;
-        char[] chars = bytesToHexChars(bytes);
-        if (prefix != null) {
-            chars[0] = prefix.charAt(0);
-            chars[1] = prefix.charAt(1);
-        }
-        String decoded = new String(chars);
-        validateCcBcd(decoded);
-        return decoded;
+        return getCcBcd(ByteBuffer.wrap(bytes), bytes.length);
+    }
+
+    /**
+     * Same as {@link #decodeCcBcd(byte[])} but the bytes are read directly from the buffer.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be decoded
+     * @return the decoded numeric string
+     * @throws IllegalArgumentException if the first byte is anything but '0x00', '0x43', or '0x44' or the rest contains
+     *                                  non numeric characters
+     */
+    public static String getCcBcd(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        char[] chars = new char[length * 2];
+        if (length > 0) {
+            int start = buffer.position();
+            // the first byte is either ASCII 'C' (0x43) or 'D' (0x44)
+            int sign = buffer.get() & 0xFF;
+            if (sign != 0 && sign != 0x43 && sign != 0x44) {
+                throw invalid("CC_BCD", ccBcdString(buffer, start, length));
+            }
+            chars[0] = sign == 0x44 ? '-' : '0';
+            chars[1] = '0';
+            try {
+                getDigits(buffer, length - 1, chars, 2, "CC_BCD");
+            } catch (IllegalArgumentException e) {
+                throw invalid("CC_BCD", ccBcdString(buffer, start, length));
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Same as {@link #getCcBcd(ByteBuffer, int)} but the digits are accumulated to a number and the sign byte is
+     * applied to it.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be decoded
+     * @return the decoded number
+     * @throws IllegalArgumentException if the first byte is anything but '0x00', '0x43', or '0x44', if the rest contains
+     *                                  non numeric characters or if the number doesn't fit in a long
+     */
+    public static long getCcBcdLong(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        if (length == 0) {
+            return 0;
+        }
+        int start = buffer.position();
+        int sign = buffer.get() & 0xFF;
+        if (sign != 0 && sign != 0x43 && sign != 0x44) {
+            throw invalid("CC_BCD", ccBcdString(buffer, start, length));
+        }
+        long number = getBcdDigits(buffer, length - 1, 0, start, length, "CC_BCD");
+        if (number < 0) {
+            throw invalid("CC_BCD", ccBcdString(buffer, start, length));
+        }
+        return sign == 0x44 ? -number : number;
     }
 
-    private static void validateBcd(String string) {
-        for (int i = 0; i < string.length(); i++) {
-            if (!Character.isDigit(string.charAt(i))) {
-                throw new IllegalArgumentException("Invalid BCD: " + string);
+    private static String ccBcdString(ByteBuffer buffer, int start, int length) {
+        char[] chars = hexString(buffer, start, length).toCharArray();
+        if (chars[0] == '4' && (chars[1] == '3' || chars[1] == '4')) {
+            chars[0] = chars[1] == '4' ? '-' : '0';
+            chars[1] = '0';
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Reads the next {@code length} bytes of the buffer as an ISO-8859-1 string.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be decoded
+     * @return the decoded string
+     */
+    public static String getChars(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        String decoded;
+        if (buffer.hasArray()) {
+            decoded = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.ISO_8859_1);
+            buffer.position(buffer.position() + length);
+        } else {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (buffer.get() & 0xFF);
             }
+            decoded = new String(chars);
         }
+        return decoded;
     }
 
-    private static void validateBcdF(String string) {
-        for (int i = 0; i < string.length(); i++) {
-            char c = string.charAt(i);
-            if (i == 0 ? c == '0' : !Character.isDigit(c)) {
-                throw new IllegalArgumentException("Invalid BCD_F: " + string);
+    /**
+     * Reads the next {@code length} bytes of the buffer as ASCII digits with an optional leading '-' or '+' sign.  The
+     * digits are accumulated the same way as {@code Long.parseLong(String)} does without creating the string.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes to be decoded
+     * @return the decoded number
+     * @throws NumberFormatException if the bytes are not a number or if the number doesn't fit in a long
+     */
+    public static long getCharsLong(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        int start = buffer.position();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0) {
+            byte first = buffer.get(start);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                buffer.get();
+                i++;
+            }
+        }
+        if (i == length) {
+            throw notANumber(buffer, start, length);
+        }
+        // accumulated negatively so that Long.MIN_VALUE can be read
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long number = 0;
+        for (; i < length; i++) {
+            int digit = buffer.get() - '0';
+            if (digit < 0 || digit > 9 || number < multiplyLimit) {
+                throw notANumber(buffer, start, length);
+            }
+            number *= 10;
+            if (number < limit + digit) {
+                throw notANumber(buffer, start, length);
             }
+            number -= digit;
         }
+        return negative ? number : -number;
     }
 
-    private static void validateCBcd(String string) {
-        for (int i = 0; i < string.length(); i++) {
-            char c = string.charAt(i);
-            if (i == 0 ? c != '0' && c != '-' : !Character.isDigit(c)) {
-                throw new IllegalArgumentException("Invalid C_BCD: " + string);
+    private static NumberFormatException notANumber(ByteBuffer buffer, int start, int length) {
+        ByteBuffer chars = buffer.duplicate();
+        chars.position(start);
+        return new NumberFormatException("For input string: \"" + getChars(chars, length) + "\"");
+    }
+
+    /**
+     * Puts the ISO-8859-1 bytes of the characters to the buffer.  Characters which cannot be mapped are encoded the
+     * same way as {@code String#getBytes(Charset)} does.
+     *
+     * @param buffer the buffer where the bytes would be put
+     * @param value  the characters to be encoded
+     */
+    public static void putChars(ByteBuffer buffer, CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) > 0xFF) {
+                buffer.put(value.toString().getBytes(StandardCharsets.ISO_8859_1));
+                return;
             }
         }
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    /**
+     * Puts a number as ISO-8859-1 digits zero padded to {@code length} characters without creating a string.  A
+     * negative number starts with '-' which is part of the length.
+     *
+     * @param buffer the buffer where the bytes would be put
+     * @param value  the number to be encoded
+     * @param length the number of characters
+     * @throws IllegalArgumentException if the number doesn't fit in {@code length} characters
+     */
+    public static void putChars(ByteBuffer buffer, long value, int length) {
+        if (buffer.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        int start = buffer.position();
+        boolean negative = value < 0;
+        // digits are taken from the negated value so that Long.MIN_VALUE doesn't overflow
+        long remaining = negative ? value : -value;
+        int first = negative ? start + 1 : start;
+        for (int i = start + length - 1; i >= first; i--) {
+            buffer.put(i, (byte) ('0' - remaining % 10));
+            remaining /= 10;
+        }
+        if (remaining != 0 || first > start + length) {
+            throw new IllegalArgumentException(format("%d exceeds %d characters", value, length));
+        }
+        if (negative) {
+            buffer.put(start, (byte) '-');
+        }
+        buffer.position(start + length);
+    }
+
+    /**
+     * Puts the bytes to the buffer as a string of hex characters (2 bytes per byte).
+     *
+     * @param buffer the buffer where the hex characters would be put
+     * @param bytes  the bytes to be encoded
+     */
+    public static void putHexChars(ByteBuffer buffer, byte[] bytes) {
+        for (byte b : bytes) {
+            buffer.put(HEX_DIGITS[(b & 0xf0) >> 4]);
+            buffer.put(HEX_DIGITS[b & 0x0f]);
+        }
+    }
+
+    /**
+     * Puts the lowest {@code length} bytes of the value to the buffer as hex characters (2 bytes per byte), most
+     * significant nibble first.
+     *
+     * @param buffer the buffer where the hex characters would be put
+     * @param value  the bytes to be encoded
+     * @param length the number of bytes (up to 8) to be encoded
+     */
+    public static void putHexLong(ByteBuffer buffer, long value, int length) {
+        for (int shift = length * 8 - 4; shift >= 0; shift -= 4) {
+            buffer.put(HEX_DIGITS[(int) (value >>> shift) & 0x0f]);
+        }
+    }
+
+    /**
+     * Reads the hex characters representing the next {@code length} bytes (up to 8) as a long.
+     *
+     * @param buffer the buffer where the hex characters would be read from
+     * @param length the number of bytes represented by the hex characters
+     * @return the bytes as the lowest bytes of a long
+     * @throws IllegalArgumentException if the characters are not valid hex characters
+     */
+    public static long getHexLong(ByteBuffer buffer, int length) {
+        long value = 0;
+        for (int i = length * 2; i > 0; i--) {
+            value = (value << 4) | hexValue((char) (buffer.get() & 0xFF));
+        }
+        return value;
+    }
+
+    /**
+     * Same as {@link #encodeBcd(String)} but the encoded value is put directly to the buffer.
+     *
+     * @param buffer the buffer where the encoded value would be put
+     * @param value  the numeric characters to be encoded
+     * @throws IllegalArgumentException if the string contains non numeric characters
+     */
+    public static void putBcd(ByteBuffer buffer, CharSequence value) {
+        int length = value.length();
+        validateDigits(value, 0, "BCD");
+        int start = length % 2;
+        if (start > 0) {
+            buffer.put((byte) (value.charAt(0) - '0'));
+        }
+        putDigits(buffer, value, start, length);
+    }
+
+    /**
+     * Puts a non negative number as packed BCD zero padded to the number of digits.  If the digits are odd the first
+     * nibble is the '0' padding.
+     *
+     * @param buffer the buffer where the encoded value would be put
+     * @param value  the non negative number to be encoded
+     * @param digits the number of digits
+     * @throws IllegalArgumentException if the number is negative or has more digits than {@code digits}
+     */
+    public static void putBcd(ByteBuffer buffer, long value, int digits) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid BCD: " + value);
+        }
+        int length = (digits + 1) / 2;
+        if (buffer.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        int start = buffer.position();
+        long remaining = value;
+        for (int i = start + length - 1; i >= start; i--) {
+            buffer.put(i, BCD_BYTES[(int) (remaining % 100)]);
+            remaining /= 100;
+        }
+        if (remaining > 0 || (digits % 2 > 0 && length > 0 && (buffer.get(start) & 0xf0) != 0)) {
+            throw new IllegalArgumentException(format("%d exceeds %d digits", value, digits));
+        }
+        buffer.position(start + length);
+    }
+
+    /**
+     * Same as {@link #encodeBcdF(String)} but the encoded value is put directly to the buffer.
+     *
+     * @param buffer the buffer where the encoded value would be put
+     * @param value  the numeric characters to be encoded
+     * @throws IllegalArgumentException if the string contains non numeric characters
+     */
+    public static void putBcdF(ByteBuffer buffer, CharSequence value) {
+        int length = value.length();
+        if (length == 0) {
+            return;
+        }
+        char first = value.charAt(0);
+        if (first == '0') {
+            throw invalid("BCD_F", value);
+        }
+        validateDigits(value, 1, "BCD_F");
+        // the first nibble can be any hex digit but 0
+        int hi = hexValue(first);
+        int lo = length > 1 ? value.charAt(1) - '0' : 0x0f;
+        buffer.put((byte) ((hi << 4) | lo));
+        int end = length - length % 2;
+        putDigits(buffer, value, 2, end);
+        if (end < length && length > 1) {
+            buffer.put((byte) (((value.charAt(end) - '0') << 4) | 0x0f));
+        }
+    }
+
+    /**
+     * Same as {@link #encodeCBcd(String)} but the encoded value is put directly to the buffer.
+     *
+     * @param buffer the buffer where the encoded value would be put
+     * @param value  the characters to be encoded
+     * @throws IllegalArgumentException if the value is odd number of character; or the first char of value is neither
+     *                                  '0' nor '-'; or if the rest contains non numeric characters
+     */
+    public static void putCBcd(ByteBuffer buffer, CharSequence value) {
+        int length = value.length();
+        if (length == 0) {
+            return;
+        }
+        char sign = value.charAt(0);
+        if (sign != '0' && sign != '-') {
+            throw invalid("C_BCD", value);
+        }
+        validateDigits(value, 1, "C_BCD");
+        validateEvenLength(value);
+        buffer.put((byte) ((sign == '-' ? 0xD0 : 0xC0) | (value.charAt(1) - '0')));
+        putDigits(buffer, value, 2, length);
+    }
+
+    /**
+     * Puts a number as C_BCD without creating a string.  The first nibble is 'C' or 'D' for a non negative or a negative
+     * number followed by {@code length - 1} zero padded digits, the same as {@link #putCBcd(ByteBuffer, CharSequence)}
+     * of a {@code length} characters string.
+     *
+     * @param buffer the buffer where the encoded value would be put
+     * @param value  the number to be encoded
+     * @param length the number of characters including the sign which should be even
+     * @throws IllegalArgumentException if the length is odd or the number doesn't fit in {@code length - 1} digits
+     */
+    public static void putCBcd(ByteBuffer buffer, long value, int length) {
+        if (length % 2 > 0) {
+            throw new IllegalArgumentException("Odd character hex chars");
+        }
+        if (length == 0) {
+            return;
+        }
+        checkSignedBcd(value, length - 1);
+        int start = buffer.position();
+        putBcd(buffer, Math.abs(value), length - 1);
+        buffer.put(start, (byte) (buffer.get(start) | (value < 0 ? 0xD0 : 0xC0)));
+    }
+
+    /**
+     * Same as {@link #encodeCcBcd(String)} but the encoded value is put directly to the buffer.
+     *
+     * @param buffer the buffer where the encoded value would be put
+     * @param value  the characters to be encoded
+     * @throws IllegalArgumentException if the value is odd number of character; or if the string doesn't start with
+     *                                  either "00" or "-0"; or if the rest contains non numeric characters
+     */
+    public static void putCcBcd(ByteBuffer buffer, CharSequence value) {
+        int length = value.length();
+        if (length == 0) {
+            return;
+        }
+        char sign = value.charAt(0);
+        if ((sign != '0' && sign != '-') || (length > 1 && value.charAt(1) != '0')) {
+            throw invalid("CC_BCD", value);
+        }
+        validateDigits(value, 2, "CC_BCD");
+        validateEvenLength(value);
+        buffer.put((byte) (sign == '-' ? 0x44 : 0x43));
+        putDigits(buffer, value, 2, length);
     }
 
-    private static void validateCcBcd(String string) {
-        for (int i = 0; i < string.length(); i++) {
-            char c = string.charAt(i);
-            if (i == 0 ? c != '0' && c != '-' : i == 1 ? c != '0' : !Character.isDigit(c)) {
-                throw new IllegalArgumentException("Invalid CC_BCD: " + string);
+    /**
+     * Puts a number as CC_BCD without creating a string.  The first byte is ASCII 'C' (0x43) or 'D' (0x44) for a non
+     * negative or a negative number followed by the number as BCD zero padded to {@code digits}.
+     *
+     * @param buffer the buffer where the encoded value would be put
+     * @param value  the number to be encoded
+     * @param digits the number of digits excluding the sign
+     * @throws IllegalArgumentException if the number doesn't fit in {@code digits}
+     */
+    public static void putCcBcd(ByteBuffer buffer, long value, int digits) {
+        checkSignedBcd(value, digits);
+        if (buffer.remaining() < 1 + (digits + 1) / 2) {
+            throw new BufferOverflowException();
+        }
+        buffer.put((byte) (value < 0 ? 0x44 : 0x43));
+        putBcd(buffer, Math.abs(value), digits);
+    }
+
+    private static void checkSignedBcd(long value, int digits) {
+        if (value == Long.MIN_VALUE) {
+            throw new IllegalArgumentException(format("%d exceeds %d digits", value, digits));
+        }
+    }
+
+    /**
+     * Validates the characters from {@code start} are numeric so that nothing is put to the buffer if the value is
+     * invalid.
+     */
+    private static void validateDigits(CharSequence value, int start, String type) {
+        int length = value.length();
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                throw invalid(type, value);
             }
         }
     }
 
+    /**
+     * Puts pairs of numeric characters from {@code start} to {@code end} as packed nibbles.  The number of characters is
+     * expected to be even and already validated.
+     */
+    private static void putDigits(ByteBuffer buffer, CharSequence digits, int start, int end) {
+        for (int i = start; i < end; i += 2) {
+            buffer.put((byte) (((digits.charAt(i) - '0') << 4) | (digits.charAt(i + 1) - '0')));
+        }
+    }
+
+    private static void validateEvenLength(CharSequence value) {
+        if (value.length() % 2 > 0) {
+            throw new IllegalArgumentException("Odd character hex chars");
+        }
+    }
+
     /**
      * Creates a new ByteBuffer with capacity = length from the current position.  Creation of the buffer consumes
      * length bytes.
@@ -370,6 +1013,47 @@ public final class ByteUtil {
         return bytes;
     }
 
+    /**
+     * Puts a non negative number as an unsigned big endian binary of {@code length} bytes.
+     *
+     * @param buffer the buffer where the bytes would be put
+     * @param value  the number to be encoded
+     * @param length the number of bytes
+     * @throws IllegalArgumentException if the number is negative or doesn't fit in {@code length} bytes
+     */
+    public static void putBinary(ByteBuffer buffer, long value, int length) {
+        if (buffer.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        if (value < 0 || (length < 8 && value >>> (length * 8) != 0)) {
+            throw new IllegalArgumentException(format("%d trimmed on encoding to %d bytes", value, length));
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            buffer.put(i < 8 ? (byte) (value >>> (i * 8)) : 0);
+        }
+    }
+
+    /**
+     * Reads {@code length} bytes as an unsigned big endian binary number.
+     *
+     * @param buffer the buffer where the bytes would be read from
+     * @param length the number of bytes
+     * @return the decoded number
+     * @throws IllegalArgumentException if the number doesn't fit in a long
+     */
+    public static long getBinaryLong(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        long number = 0;
+        for (int i = 0; i < length; i++) {
+            if (number >>> 55 != 0) {
+                throw new IllegalArgumentException("Binary value exceeds long: " + hexString(buffer,
+                        buffer.position() - i, length));
+            }
+            number = number << 8 | (buffer.get() & 0xFF);
+        }
+        return number;
+    }
+
     public static Long decodeBinaryLong(byte[] bytes) {
         return wrap(bytes, 8).getLong();
     }
@@ -16,9 +16,10 @@
 package org.chiknrice.djeng;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
-import java.util.Stack;
 import java.util.TreeSet;
 
 /**
@@ -54,6 +55,29 @@ public abstract class Codec<T> {
      */
     public abstract T decode(ByteBuffer buffer);
 
+    /**
+     * Consumes the bytes of an encoded value from the buffer's current position without decoding them.  This is used to
+     * find where an element ends when decoding lazily.  The default implementation decodes the value and discards it,
+     * codecs which can determine the length of the encoded value should override this.
+     *
+     * @param buffer the source of the bytes to skip
+     */
+    public void skip(ByteBuffer buffer) {
+        decode(buffer);
+    }
+
+    /**
+     * Decodes the bytes of a whole number to a primitive {@code long}.  The default implementation decodes the value
+     * and unboxes it, codecs of whole numbers should override this to read the digits without creating the value.
+     *
+     * @param buffer the source of the bytes to decode
+     * @return the decoded number
+     * @throws ClassCastException if the decoded value is not a {@code Number}
+     */
+    public long decodeLong(ByteBuffer buffer) {
+        return ((Number) decode(buffer)).longValue();
+    }
+
     Map<Attribute, Object> attributes;
 
     /**
@@ -68,110 +92,150 @@ public abstract class Codec<T> {
         return (A) attributes.get(attribute);
     }
 
-    private static final ThreadLocal<Boolean> RECORDING_SECTION = new ThreadLocal<>();
-    private static final ThreadLocal<Stack<String>> INDEX_STACK = new ThreadLocal<>();
-    private static final ThreadLocal<SortedSet<Section>> SECTIONS = new ThreadLocal<>();
+    /**
+     * Called by the configuration once the attributes are set and before the codec is used.  Codecs should resolve
+     * their attributes and delegates here rather than on every encode/decode.  Filters are compiled after the codec they
+     * wrap and composite codecs are compiled after their sub-element codecs.  Overriding codecs should call {@code
+     * super.compile()}.
+     * <p/>
+     * A compiled codec is shared by the threads using the {@link MessageCodec} and should not change its fields after
+     * this, anything computed from the attributes is computed here rather than lazily on first use.
+     */
+    protected void compile() {
+    }
+
+    /**
+     * Set by the configuration when a {@link SectionListener} is configured.  When {@code false} (production mode), the
+     * codec never touches the section recording state and no tracing related objects are created.
+     */
+    boolean sectionsEnabled;
+
+    private static final ThreadLocal<SectionRecording> SECTION_RECORDING = new ThreadLocal<>();
+
+    /**
+     * The state of recording the sections of the current encode/decode.  The index path is only tracked while recording
+     * as it is only needed to label the sections.
+     */
+    private static final class SectionRecording {
+
+        private final SortedSet<Section> sections = new TreeSet<>();
+        private final List<String> indexPath = new ArrayList<>();
+        private boolean suspended;
+
+    }
 
+    /**
+     * Tracks the index of the sub-element being encoded/decoded when sections are recorded, does nothing otherwise.
+     * Each call should be paired with {@link #popIndex()} in a {@code finally} block.
+     *
+     * @param index the index of the sub-element
+     */
     protected void pushIndex(String index) {
-        INDEX_STACK.get().push(index);
+        if (sectionsEnabled) {
+            SectionRecording recording = SECTION_RECORDING.get();
+            if (recording != null) {
+                recording.indexPath.add(index);
+            }
+        }
     }
 
     protected void popIndex() {
-        Stack<String> indexStack = INDEX_STACK.get();
-        if (indexStack == null) {
-            throw new IllegalStateException("No existing " + INDEX_STACK);
+        if (sectionsEnabled) {
+            SectionRecording recording = SECTION_RECORDING.get();
+            if (recording != null) {
+                recording.indexPath.remove(recording.indexPath.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Wraps the error of encoding/decoding a sub-element.  The index path is not tracked while encoding/decoding,
+     * instead the exception starts with the index of the sub-element and the enclosing codecs add theirs as the
+     * exception propagates, so the path is only built when there is an error.
+     *
+     * @param e     the error of encoding/decoding the sub-element
+     * @param index the index of the sub-element
+     * @return the exception to be thrown
+     */
+    protected static CodecException subElementException(Exception e, String index) {
+        if (e instanceof CodecException) {
+            return ((CodecException) e).withParentIndex(index);
+        }
+        return new CodecException(e, index);
+    }
+
+    /**
+     * Checks if sections are being recorded for the current encode/decode.  Codecs should check this before computing
+     * anything which is only needed by {@link #recordSection(int, int, Object, ByteBuffer)}.
+     *
+     * @return {@code true} if a {@link SectionListener} is configured and recording has not been suspended
+     */
+    protected boolean isRecordingSections() {
+        if (!sectionsEnabled) {
+            return false;
         }
-        indexStack.pop();
+        SectionRecording recording = SECTION_RECORDING.get();
+        return recording != null && !recording.suspended;
     }
 
     protected void recordSection(int pos, int len, Object value, ByteBuffer buffer) {
-        if (RECORDING_SECTION.get()) {
-            SortedSet<Section> sections = SECTIONS.get();
+        if (isRecordingSections()) {
             byte[] bytes = new byte[buffer.remaining()];
             buffer.get(bytes);
-            sections.add(new Section(pos, len, getCurrentIndexPath(), value, ByteUtil.encodeHex(bytes)));
+            SECTION_RECORDING.get().sections.add(new Section(pos, len, getCurrentIndexPath(), value, ByteUtil.encodeHex(bytes)));
         }
     }
 
+    /**
+     * Gets the position of the buffer relative to the backing array so that sections recorded from slices of the same
+     * buffer line up.  Buffers without an accessible array (e.g. direct buffers) only have relative positions.
+     *
+     * @param buffer the buffer being encoded to or decoded from
+     * @return the position of the buffer used when recording sections
+     */
+    protected static int sectionPosition(ByteBuffer buffer) {
+        return buffer.hasArray() ? buffer.arrayOffset() + buffer.position() : buffer.position();
+    }
+
+    /**
+     * @return the index path of the element being encoded/decoded, which is only tracked while recording sections
+     */
     protected String getCurrentIndexPath() {
-        Stack<String> indexStack = INDEX_STACK.get();
+        SectionRecording recording = sectionsEnabled ? SECTION_RECORDING.get() : null;
         StringBuilder indexPath = new StringBuilder();
-        for (String index : indexStack) {
-            if (indexPath.length() > 0) {
-                indexPath.append(".");
+        if (recording != null) {
+            for (String index : recording.indexPath) {
+                if (indexPath.length() > 0) {
+                    indexPath.append(".");
+                }
+                indexPath.append(index);
             }
-            indexPath.append(index);
         }
         return indexPath.toString();
     }
 
     protected void suspendRecordingSections() {
-        RECORDING_SECTION.set(Boolean.FALSE);
+        SectionRecording recording = SECTION_RECORDING.get();
+        if (recording != null) {
+            recording.suspended = true;
+        }
     }
 
     protected void resumeRecordingSections() {
-        RECORDING_SECTION.set(Boolean.TRUE);
-    }
-
-    void dumpLogs(boolean printLogs) {
-        // TODO is this what we want to do with the sections?
-        StringBuilder sb = new StringBuilder();
-        int expectedPos = 0;
-        for (Section section : SECTIONS.get()) {
-            if (section.pos != expectedPos) {
-                //throw new RuntimeException("Expecting pos " + expectedPos + ", got " + section.pos);
-                System.err.println("Expecting pos " + expectedPos + ", got " + section.pos);
-            }
-            expectedPos += section.len;
-            if (printLogs) {
-                System.err.println(section);
-            }
-            sb.append(section.hex);
-        }
-        if (printLogs) {
-            System.err.println(sb.toString());
+        SectionRecording recording = SECTION_RECORDING.get();
+        if (recording != null) {
+            recording.suspended = false;
         }
     }
 
     void startRecordingSections() {
-        RECORDING_SECTION.set(Boolean.TRUE);
-        INDEX_STACK.set(new Stack<String>());
-        SECTIONS.set(new TreeSet<Section>());
-    }
-
-    void stopRecordingSections() {
-        RECORDING_SECTION.remove();
-        INDEX_STACK.remove();
-        SECTIONS.remove();
+        SECTION_RECORDING.set(new SectionRecording());
     }
 
-    private static class Section implements Comparable<Section> {
-
-        final int pos;
-        final int len;
-        final String indexPath;
-        final Object value;
-        final String hex;
-
-        Section(int pos, int len, String indexPath, Object value, String hex) {
-            this.pos = pos;
-            this.len = len;
-            this.indexPath = indexPath;
-            this.value = value;
-            this.hex = hex;
-        }
-
-        @Override
-        public int compareTo(Section o) {
-            return pos < o.pos ? -1 : pos > o.pos ? 1 : 0;
-        }
-
-        @Override
-        public String toString() {
-            int leftPad = 5 - (indexPath.contains(".") ? indexPath.indexOf(".") : indexPath.length());
-            int rightPad = 20 - leftPad - indexPath.length();
-            return String.format("%5d[%5d]|%" + leftPad + "s%s%" + rightPad + "s%40s | 0x%-40s", pos, len, "", indexPath, "", value, hex);
-        }
+    SortedSet<Section> stopRecordingSections() {
+        SectionRecording recording = SECTION_RECORDING.get();
+        SECTION_RECORDING.remove();
+        return recording.sections;
     }
 
 }
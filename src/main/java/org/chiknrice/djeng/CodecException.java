@@ -20,7 +20,7 @@ package org.chiknrice.djeng;
  */
 public final class CodecException extends RuntimeException {
 
-    private final String elementIndex;
+    private String elementIndex;
 
     public CodecException(Throwable cause, String elementIndex) {
         super(cause);
@@ -32,6 +32,17 @@ public final class CodecException extends RuntimeException {
         this.elementIndex = elementIndex;
     }
 
+    /**
+     * Adds the index of the enclosing element to the index path as the exception propagates.
+     *
+     * @param parentIndex the index of the enclosing element
+     * @return this exception
+     */
+    CodecException withParentIndex(String parentIndex) {
+        elementIndex = elementIndex == null || elementIndex.isEmpty() ? parentIndex : parentIndex + "." + elementIndex;
+        return this;
+    }
+
     @Override
     public String getMessage() {
         return String.format("element[%s] %s", elementIndex, super.getMessage());
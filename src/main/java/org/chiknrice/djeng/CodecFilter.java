@@ -42,8 +42,39 @@ public abstract class CodecFilter<T, W> extends Codec<T> {
 
     protected abstract T decode(ByteBuffer buffer, Codec<W> chain);
 
+    @Override
+    public final long decodeLong(ByteBuffer buffer) {
+        if (chain == null) {
+            throw new RuntimeException("Missing codec chain");
+        }
+        return decodeLong(buffer, chain);
+    }
+
+    /**
+     * Decodes a whole number to a primitive {@code long}.  The default implementation unboxes the value decoded by the
+     * filter, filters which pass the bytes through should delegate to the chain's {@link Codec#decodeLong(ByteBuffer)}.
+     *
+     * @param buffer the source of the bytes to decode
+     * @param chain  the codec wrapped by the filter
+     * @return the decoded number
+     */
+    protected long decodeLong(ByteBuffer buffer, Codec<W> chain) {
+        return ((Number) decode(buffer, chain)).longValue();
+    }
+
+    /**
+     * Filters share the attributes of the codec they wrap.  The configuration sets the same attributes to the filter so
+     * the chain is only walked if the filter was not configured.
+     *
+     * @param attribute the attribute's ID to get
+     * @param <A>       the expected type of the attribute value
+     * @return the attribute value, or {@code null} if the attribute wasn't set
+     */
     @Override
     public final <A> A getAttribute(Attribute attribute) {
+        if (attributes != null) {
+            return super.getAttribute(attribute);
+        }
         //noinspection unchecked
         return (A) chain.getAttribute(attribute);
     }
@@ -25,9 +25,23 @@ import java.util.Set;
  */
 public class CompositeCodec extends Codec<CompositeMap> {
 
+    private Map<String, Codec> subElementsCodecs;
+
+    @Override
+    protected void compile() {
+        super.compile();
+        subElementsCodecs = getAttribute(CoreAttribute.SUB_ELEMENT_CODECS_MAP);
+    }
+
+    /**
+     * @return the codecs of the sub-elements in the order they are configured
+     */
+    protected final Map<String, Codec> getSubElementsCodecs() {
+        return subElementsCodecs;
+    }
+
     @Override
     public final void encode(ByteBuffer buffer, CompositeMap element) {
-        Map<String, Codec> subElementsCodecs = getAttribute(CoreAttribute.SUB_ELEMENT_CODECS_MAP);
         encodeSubElements(buffer, element, subElementsCodecs);
     }
 
@@ -35,11 +49,12 @@ public class CompositeCodec extends Codec<CompositeMap> {
         Set<String> elementsLeft = new HashSet<>(compositeMap.keySet());
         for (Map.Entry<String, Codec> codecEntry : subElementsCodecs.entrySet()) {
             String index = codecEntry.getKey();
-            Object subElement = compositeMap.get(index);
+            Codec<?> codec = codecEntry.getValue();
+            Object subElement = getSubElement(compositeMap, index, codec);
             if (subElement == null) {
                 throw new CodecException("Missing required element", index);
             }
-            encodeSubElement(index, codecEntry.getValue(), buffer, subElement);
+            encodeSubElement(index, codec, buffer, subElement);
             elementsLeft.remove(index);
         }
         if (elementsLeft.size() > 0) {
@@ -47,14 +62,29 @@ public class CompositeCodec extends Codec<CompositeMap> {
         }
     }
 
+    /**
+     * Gets the sub-element to be encoded by the codec.  A lazily decoded sub-element is only decoded if the codec
+     * cannot encode its original bytes.
+     *
+     * @param compositeMap the composite element being encoded
+     * @param index        the index of the sub-element
+     * @param codec        the codec which would encode the sub-element
+     * @return the sub-element, or {@code null} if it doesn't exist
+     */
+    protected final Object getSubElement(CompositeMap compositeMap, String index, Codec<?> codec) {
+        Object subElement = compositeMap.getUndecoded(index);
+        if (subElement instanceof LazyElement && !((LazyElement) subElement).isEncodableBy(codec)) {
+            subElement = compositeMap.get(index);
+        }
+        return subElement;
+    }
+
     protected final void encodeSubElement(String index, Codec codec, ByteBuffer buffer, Object element) {
         try {
             pushIndex(index);
             codec.encode(buffer, element);
-        } catch (CodecException ce) {
-            throw ce;
         } catch (Exception e) {
-            throw new CodecException(e, getCurrentIndexPath());
+            throw subElementException(e, index);
         } finally {
             popIndex();
         }
@@ -62,7 +92,6 @@ public class CompositeCodec extends Codec<CompositeMap> {
 
     @Override
     public final CompositeMap decode(ByteBuffer buffer) {
-        Map<String, Codec> subElementsCodecs = getAttribute(CoreAttribute.SUB_ELEMENT_CODECS_MAP);
         return decodeSubElements(buffer, subElementsCodecs);
     }
 
@@ -71,22 +100,67 @@ public class CompositeCodec extends Codec<CompositeMap> {
         for (Map.Entry<String, Codec> subElementCodec : subElementsCodecs.entrySet()) {
             String index = subElementCodec.getKey();
             Object subElement = decodeSubElement(index, subElementCodec.getValue(), buffer);
-            compositeMap.put(index, subElement);
+            if (subElement != null) {
+                compositeMap.put(index, subElement);
+            }
         }
         return compositeMap;
     }
 
+    /**
+     * Consumes the bytes of the sub-elements without decoding them so that a composite element which is not needed
+     * (e.g. not selected or decoded lazily) is never decoded.
+     */
+    @Override
+    public void skip(ByteBuffer buffer) {
+        skipSubElements(buffer, subElementsCodecs);
+    }
+
+    protected void skipSubElements(ByteBuffer buffer, Map<String, Codec> subElementsCodecs) {
+        for (Map.Entry<String, Codec> subElementCodec : subElementsCodecs.entrySet()) {
+            skipSubElement(subElementCodec.getKey(), subElementCodec.getValue(), buffer);
+        }
+    }
+
+    /**
+     * Checks if the sub-element can be decoded lazily when the configuration enables lazy decoding, or skipped when the
+     * configuration enables selective decoding and the sub-element was not selected.  Sub-elements which are needed to
+     * decode the rest of the composite element (e.g. a bitmap) should always be decoded.
+     *
+     * @param index the index of the sub-element
+     * @param codec the codec of the sub-element
+     * @return {@code true} if the sub-element can be decoded lazily
+     */
+    protected boolean isLazilyDecodable(String index, Codec<?> codec) {
+        return true;
+    }
+
+    /**
+     * Decodes a sub-element.  Composite codecs should leave out a sub-element which is decoded to {@code null}, which is
+     * the case when the sub-element was skipped by selective decoding.
+     *
+     * @param index  the index of the sub-element
+     * @param codec  the codec of the sub-element
+     * @param buffer the source of the bytes to decode
+     * @return the decoded sub-element, or {@code null} if it was skipped
+     */
     protected final Object decodeSubElement(String index, Codec codec, ByteBuffer buffer) {
         try {
             pushIndex(index);
             return codec.decode(buffer);
-        } catch (CodecException ce) {
-            throw ce;
         } catch (Exception e) {
-            throw new CodecException(e, getCurrentIndexPath());
+            throw subElementException(e, index);
         } finally {
             popIndex();
         }
     }
 
+    protected final void skipSubElement(String index, Codec<?> codec, ByteBuffer buffer) {
+        try {
+            codec.skip(buffer);
+        } catch (Exception e) {
+            throw subElementException(e, index);
+        }
+    }
+
 }
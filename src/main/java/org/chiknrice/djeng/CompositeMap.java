@@ -15,38 +15,530 @@
  */
 package org.chiknrice.djeng;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
- * The {@code CompositeMap} is a tweak to the {@code java.util.HashMap} which
+ * The {@code CompositeMap} is the map of sub-elements of a composite element.  It restricts keys and values to non-null
+ * {@code String} and {@code Object} and considers {@code byte[]} values when comparing maps.
+ * <p/>
+ * Numeric indexes from 1 to {@value #MAX_NUMERIC_INDEX} (e.g. ISO8583 data elements) are kept in an array with a
+ * presence mask rather than being hashed, other indexes fall back to a {@code HashMap}.  The array grows up to the
+ * highest numeric index put in the map.  Only canonical numeric indexes (without leading zeros) are stored in the
+ * array.  Numeric indexes are iterated in ascending order before the other indexes.
+ * <p/>
+ * Like the {@code HashMap} it used to extend, the map is {@code Serializable} and {@code Cloneable}.
  *
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
-public class CompositeMap extends HashMap<String, Object> {
+public class CompositeMap extends AbstractMap<String, Object> implements Serializable, Cloneable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
-     * Restricted implementation of {@code HashMap#put} to non-null keys and values.
+     * The highest index stored in the array, which covers the tertiary bitmap of ISO8583.
+     */
+    public static final int MAX_NUMERIC_INDEX = 192;
+
+    private static final String[] NUMERIC_INDEXES = new String[MAX_NUMERIC_INDEX + 1];
+
+    static {
+        for (int i = 1; i <= MAX_NUMERIC_INDEX; i++) {
+            NUMERIC_INDEXES[i] = Integer.toString(i).intern();
+        }
+    }
+
+    private transient Object[] numericElements;
+    private transient long[] numericMask = new long[(MAX_NUMERIC_INDEX + 63) / 64];
+    private transient int numericCount;
+    private transient Map<String, Object> namedElements;
+
+    private transient boolean hasLazyElements;
+
+    private transient Set<String> keySet;
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * Gets the index string of a numeric index without creating a new string.
      *
-     * @param key   TODO
-     * @param value TODO
-     * @return TODO
+     * @param index the numeric index from 1 to {@value #MAX_NUMERIC_INDEX}
+     * @return the index as a string
+     */
+    public static String toIndex(int index) {
+        checkNumericIndex(index);
+        return NUMERIC_INDEXES[index];
+    }
+
+    private static void checkNumericIndex(int index) {
+        if (index < 1 || index > MAX_NUMERIC_INDEX) {
+            throw new IllegalArgumentException("Numeric index should be from 1 to " + MAX_NUMERIC_INDEX);
+        }
+    }
+
+    /**
+     * @param key the key of the element
+     * @return the numeric index if the key is a canonical numeric index within range, otherwise 0
+     */
+    private static int toNumericIndex(Object key) {
+        if (!(key instanceof String)) {
+            return 0;
+        }
+        String index = (String) key;
+        int length = index.length();
+        if (length == 0 || length > 3 || index.charAt(0) == '0') {
+            return 0;
+        }
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = index.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= MAX_NUMERIC_INDEX ? value : 0;
+    }
+
+    private boolean isPresent(int index) {
+        int bit = index - 1;
+        return (numericMask[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Restricted implementation of {@code Map#put} to non-null keys and values.
+     *
+     * @param key   the index of the element
+     * @param value the non-null element
+     * @return the previous element or {@code null} if there was none
+     * @throws IllegalArgumentException if the key or the value is {@code null}
      */
     @Override
     public Object put(String key, Object value) {
         if (key == null || value == null) {
             throw new IllegalArgumentException("Composite map cannot have null keys or values");
         }
-        return super.put(key, value);
+        int index = toNumericIndex(key);
+        if (index > 0) {
+            return put(index, value);
+        }
+        if (value instanceof LazyElement) {
+            hasLazyElements = true;
+        }
+        if (namedElements == null) {
+            namedElements = new HashMap<>();
+        }
+        return namedElements.put(key, value);
+    }
+
+    /**
+     * Puts an element with a numeric index without converting the index to a string.
+     *
+     * @param index the numeric index from 1 to {@value #MAX_NUMERIC_INDEX}
+     * @param value the non-null element
+     * @return the previous element or {@code null} if there was none
+     */
+    public Object put(int index, Object value) {
+        checkNumericIndex(index);
+        if (value == null) {
+            throw new IllegalArgumentException("Composite map cannot have null keys or values");
+        }
+        if (value instanceof LazyElement) {
+            hasLazyElements = true;
+        }
+        ensureNumericCapacity(index);
+        Object previous = numericElements[index];
+        if (previous == null) {
+            int bit = index - 1;
+            numericMask[bit >>> 6] |= 1L << bit;
+            numericCount++;
+        }
+        numericElements[index] = value;
+        return previous;
+    }
+
+    /**
+     * Grows the array to hold the index, doubling its length to limit copying when the indexes are put in ascending
+     * order.
+     *
+     * @param index the numeric index from 1 to {@value #MAX_NUMERIC_INDEX}
+     */
+    private void ensureNumericCapacity(int index) {
+        if (numericElements == null) {
+            numericElements = new Object[index + 1];
+        } else if (index >= numericElements.length) {
+            int length = Math.min(Math.max(index + 1, numericElements.length * 2), MAX_NUMERIC_INDEX + 1);
+            numericElements = Arrays.copyOf(numericElements, length);
+        }
+    }
+
+    /**
+     * Implementation of {@code Map#get} which decodes a lazily decoded element when it is first accessed.
+     *
+     * @param key the index of the element
+     * @return the decoded element or {@code null} if there was none
+     */
+    @Override
+    public Object get(Object key) {
+        int index = toNumericIndex(key);
+        if (index > 0) {
+            return get(index);
+        }
+        if (namedElements == null) {
+            return null;
+        }
+        Object value = namedElements.get(key);
+        if (value instanceof LazyElement) {
+            value = ((LazyElement) value).decode();
+            namedElements.put((String) key, value);
+        }
+        return value;
     }
 
     /**
-     * Improved implementation to {@code HashMap#equals} which considers {@code byte[]} values.
+     * Gets an element with a numeric index without converting the index to a string.
      *
-     * @param o TODO
-     * @return TODO
+     * @param index the numeric index from 1 to {@value #MAX_NUMERIC_INDEX}
+     * @return the element or {@code null} if there was none
+     */
+    public Object get(int index) {
+        checkNumericIndex(index);
+        if (!isPresent(index)) {
+            return null;
+        }
+        Object value = numericElements[index];
+        if (value instanceof LazyElement) {
+            value = ((LazyElement) value).decode();
+            numericElements[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Gets the element without decoding it if it was lazily decoded.
+     *
+     * @param key the index of the element
+     * @return the element which could be a {@link LazyElement}
+     */
+    Object getUndecoded(String key) {
+        int index = toNumericIndex(key);
+        if (index > 0) {
+            return isPresent(index) ? numericElements[index] : null;
+        }
+        return namedElements != null ? namedElements.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int index = toNumericIndex(key);
+        if (index > 0) {
+            return isPresent(index);
+        }
+        return namedElements != null && namedElements.containsKey(key);
+    }
+
+    /**
+     * Checks an element with a numeric index without converting the index to a string.
+     *
+     * @param index the numeric index from 1 to {@value #MAX_NUMERIC_INDEX}
+     * @return {@code true} if the element is present
+     */
+    public boolean containsKey(int index) {
+        checkNumericIndex(index);
+        return isPresent(index);
+    }
+
+    /**
+     * Gets the next numeric index which is present without iterating the other indexes, e.g. {@code for (int index =
+     * compositeMap.nextIndex(1); index > 0; index = compositeMap.nextIndex(index + 1))}.
+     *
+     * @param fromIndex the numeric index to start from (inclusive)
+     * @return the next numeric index which is present or -1 if there are none
+     */
+    public int nextIndex(int fromIndex) {
+        for (int i = Math.max(fromIndex, 1); i <= MAX_NUMERIC_INDEX; ) {
+            int bit = i - 1;
+            long word = numericMask[bit >>> 6] >>> bit;
+            if (word != 0) {
+                return i + Long.numberOfTrailingZeros(word);
+            }
+            // skip to the start of the next word
+            i = ((bit >>> 6) + 1) * 64 + 1;
+        }
+        return -1;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int index = toNumericIndex(key);
+        if (index > 0) {
+            return removeNumeric(index);
+        }
+        return namedElements != null ? namedElements.remove(key) : null;
+    }
+
+    private Object removeNumeric(int index) {
+        if (!isPresent(index)) {
+            return null;
+        }
+        Object previous = numericElements[index];
+        numericElements[index] = null;
+        int bit = index - 1;
+        numericMask[bit >>> 6] &= ~(1L << bit);
+        numericCount--;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (numericElements != null) {
+            Arrays.fill(numericElements, null);
+        }
+        Arrays.fill(numericMask, 0L);
+        numericCount = 0;
+        if (namedElements != null) {
+            namedElements.clear();
+        }
+        hasLazyElements = false;
+    }
+
+    @Override
+    public int size() {
+        return numericCount + (namedElements != null ? namedElements.size() : 0);
+    }
+
+    /**
+     * The keys are iterated without decoding lazily decoded elements.
+     *
+     * @return a view of the indexes of the elements which writes through to the map
+     */
+    @Override
+    public Set<String> keySet() {
+        if (keySet == null) {
+            keySet = new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    final EntryIterator entries = new EntryIterator();
+                    return new Iterator<String>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public String next() {
+                            return entries.next().getKey();
+                        }
+
+                        @Override
+                        public void remove() {
+                            entries.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return CompositeMap.this.size();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public boolean remove(Object o) {
+                    if (containsKey(o)) {
+                        CompositeMap.this.remove(o);
+                        return true;
+                    }
+                    return false;
+                }
+
+                @Override
+                public void clear() {
+                    CompositeMap.this.clear();
+                }
+            };
+        }
+        return keySet;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        decodeLazyElements();
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return CompositeMap.this.size();
+                }
+
+                @Override
+                public void clear() {
+                    CompositeMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    @Override
+    public Collection<Object> values() {
+        decodeLazyElements();
+        return super.values();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        decodeLazyElements();
+        return super.containsValue(value);
+    }
+
+    private void decodeLazyElements() {
+        if (hasLazyElements) {
+            if (numericElements != null) {
+                for (int i = 1; i < numericElements.length; i++) {
+                    if (numericElements[i] instanceof LazyElement) {
+                        numericElements[i] = ((LazyElement) numericElements[i]).decode();
+                    }
+                }
+            }
+            if (namedElements != null) {
+                for (Map.Entry<String, Object> entry : namedElements.entrySet()) {
+                    if (entry.getValue() instanceof LazyElement) {
+                        entry.setValue(((LazyElement) entry.getValue()).decode());
+                    }
+                }
+            }
+            hasLazyElements = false;
+        }
+    }
+
+    /**
+     * Iterates the numeric indexes in ascending order followed by the other indexes.  The entries write through to the
+     * map.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private int next = nextIndex(1);
+        private int lastIndex;
+        private Iterator<Map.Entry<String, Object>> namedIterator;
+
+        private Iterator<Map.Entry<String, Object>> getNamedIterator() {
+            if (namedIterator == null) {
+                Set<Map.Entry<String, Object>> namedEntries = namedElements != null ? namedElements.entrySet() :
+                        Collections.<Map.Entry<String, Object>>emptySet();
+                namedIterator = namedEntries.iterator();
+            }
+            return namedIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next > 0 || getNamedIterator().hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (next > 0) {
+                lastIndex = next;
+                next = nextIndex(next + 1);
+                return new NumericEntry(lastIndex);
+            }
+            if (!getNamedIterator().hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastIndex = 0;
+            return getNamedIterator().next();
+        }
+
+        @Override
+        public void remove() {
+            if (lastIndex > 0) {
+                removeNumeric(lastIndex);
+                lastIndex = -1;
+            } else if (lastIndex == 0 && namedIterator != null) {
+                namedIterator.remove();
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private class NumericEntry implements Map.Entry<String, Object> {
+
+        private final int index;
+
+        NumericEntry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return NUMERIC_INDEXES[index];
+        }
+
+        @Override
+        public Object getValue() {
+            return numericElements[index];
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Composite map cannot have null keys or values");
+            }
+            Object previous = numericElements[index];
+            numericElements[index] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Object value = getValue();
+            return getKey().equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    /**
+     * Improved implementation to {@code AbstractMap#equals} which considers {@code byte[]} values.
+     *
+     * @param o the map to compare with
+     * @return {@code true} if the map has the same indexes and equal elements, comparing {@code byte[]} elements by
+     * content
      */
     @Override
     public boolean equals(Object o) {
@@ -88,9 +580,9 @@ public class CompositeMap extends HashMap<String, Object> {
     }
 
     /**
-     * Improved implementation to {@code HashMap#hashcode} which considers {@code byte[]} values.
+     * Improved implementation to {@code AbstractMap#hashcode} which considers {@code byte[]} values.
      *
-     * @return TODO
+     * @return the sum of the hash codes of the entries, hashing {@code byte[]} elements by content
      */
     @Override
     public int hashCode() {
@@ -108,4 +600,60 @@ public class CompositeMap extends HashMap<String, Object> {
         return h;
     }
 
+    /**
+     * Creates a shallow copy of the map, the elements themselves are not cloned.  Lazily decoded elements are shared
+     * and decoded separately by each copy.
+     *
+     * @return a copy of the map
+     */
+    @Override
+    public CompositeMap clone() {
+        CompositeMap clone;
+        try {
+            clone = (CompositeMap) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        clone.numericElements = numericElements != null ? numericElements.clone() : null;
+        clone.numericMask = numericMask.clone();
+        clone.namedElements = namedElements != null ? new HashMap<>(namedElements) : null;
+        clone.keySet = null;
+        clone.entrySet = null;
+        return clone;
+    }
+
+    /**
+     * Writes the number of elements followed by the index and element pairs.  Lazily decoded elements are decoded
+     * first as only their values are serializable.
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing to the stream fails
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        decodeLazyElements();
+        out.defaultWriteObject();
+        out.writeInt(size());
+        for (Map.Entry<String, Object> entry : entrySet()) {
+            out.writeObject(entry.getKey());
+            out.writeObject(entry.getValue());
+        }
+    }
+
+    /**
+     * Reads the elements written by {@link #writeObject(ObjectOutputStream)}.
+     *
+     * @param in the stream to read from
+     * @throws IOException            if reading from the stream fails
+     * @throws ClassNotFoundException if the class of an element cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        numericMask = new long[(MAX_NUMERIC_INDEX + 63) / 64];
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String key = (String) in.readObject();
+            put(key, in.readObject());
+        }
+    }
+
 }
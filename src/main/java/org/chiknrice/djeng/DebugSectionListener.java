@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.util.SortedSet;
+
+/**
+ * The {@code SectionListener} used when debugging is enabled.  It prints the sections to {@code System.err} and reports
+ * gaps or overlaps between the sections.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+class DebugSectionListener implements SectionListener {
+
+    @Override
+    public void onEncode(SortedSet<Section> sections) {
+        dump("ENCODED", sections);
+    }
+
+    @Override
+    public void onDecode(SortedSet<Section> sections) {
+        dump("DECODED", sections);
+    }
+
+    private void dump(String operation, SortedSet<Section> sections) {
+        StringBuilder sb = new StringBuilder();
+        System.err.println(operation);
+        int expectedPos = sections.isEmpty() ? 0 : sections.first().getPosition();
+        for (Section section : sections) {
+            if (section.getPosition() != expectedPos) {
+                System.err.println("Expecting pos " + expectedPos + ", got " + section.getPosition());
+            }
+            expectedPos += section.getLength();
+            System.err.println(section);
+            sb.append(section.getHex());
+        }
+        System.err.println(sb.toString());
+    }
+
+}
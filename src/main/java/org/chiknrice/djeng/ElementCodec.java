@@ -17,31 +17,108 @@ package org.chiknrice.djeng;
 
 import org.chiknrice.djeng.fin.FinancialAttribute;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 
 /**
  * TODO: document this for elements (as opposed to composites)
+ * <p/>
+ * Elements are encoded and decoded with the {@code ByteBuffer} methods {@link #encodeValue(ByteBuffer, Object)} and
+ * {@link #decodeValue(ByteBuffer)} which by default go through the {@code byte[]} methods.  A subclass of a codec which
+ * overrides the {@code ByteBuffer} methods can still override only the {@code byte[]} methods or {@link
+ * #putDataBytes(ByteBuffer, byte[])} and {@link #getDataBytes(ByteBuffer)}, in which case the elements are encoded and
+ * decoded through the {@code byte[]} methods.
  *
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
 public abstract class ElementCodec<T> extends Codec<T> {
 
+    private Integer length;
+    private boolean bytesEncoding;
+    private boolean bytesDecoding;
+
+    @Override
+    protected void compile() {
+        super.compile();
+        length = getAttribute(FinancialAttribute.LENGTH);
+        Class<?> bufferEncoder = declaringClass("encodeValue", ByteBuffer.class, Object.class);
+        bytesEncoding = isOverriddenBelow(declaringClass("encodeValue", Object.class), bufferEncoder)
+                || isOverriddenBelow(declaringClass("putDataBytes", ByteBuffer.class, byte[].class), bufferEncoder);
+        Class<?> bufferDecoder = declaringClass("decodeValue", ByteBuffer.class);
+        bytesDecoding = isOverriddenBelow(declaringClass("decodeValue", byte[].class), bufferDecoder)
+                || isOverriddenBelow(declaringClass("getDataBytes", ByteBuffer.class), bufferDecoder);
+    }
+
+    /**
+     * Finds the most specific class declaring the method with the erased signature.  Overriding a generic method
+     * declares a bridge method with the erased signature in the overriding class.
+     *
+     * @param name       the name of the method
+     * @param paramTypes the erased parameter types of the method
+     * @return the most specific class declaring the method
+     */
+    private Class<?> declaringClass(String name, Class<?>... paramTypes) {
+        for (Class<?> type = getClass(); type != ElementCodec.class; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod(name, paramTypes);
+                return type;
+            } catch (NoSuchMethodException e) {
+                // not declared at this level
+            }
+        }
+        return ElementCodec.class;
+    }
+
+    /**
+     * Checks if a {@code byte[]} method was overridden by a subclass of the class which last overrode the {@code
+     * ByteBuffer} method, in which case the {@code ByteBuffer} method doesn't know about the override.
+     *
+     * @param bytesMethodClass  the class which last declared the {@code byte[]} method
+     * @param bufferMethodClass the class which last declared the {@code ByteBuffer} method
+     * @return {@code true} if the {@code byte[]} methods should be used
+     */
+    private static boolean isOverriddenBelow(Class<?> bytesMethodClass, Class<?> bufferMethodClass) {
+        return bytesMethodClass != bufferMethodClass && bufferMethodClass.isAssignableFrom(bytesMethodClass);
+    }
+
+    /**
+     * Elements are decoded through {@link #getDataBytes(ByteBuffer)} and {@link #decodeValue(byte[])} if either was
+     * overridden by a subclass of the class which last overrode {@link #decodeValue(ByteBuffer)}.
+     *
+     * @return {@code true} if the elements are decoded through the {@code byte[]} methods
+     */
+    protected final boolean isBytesDecoding() {
+        return bytesDecoding;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public final void encode(ByteBuffer buffer, T element) {
-        int pos = buffer.arrayOffset() + buffer.position();
-        byte[] bytes = encodeValue(element);
-        putDataBytes(buffer, bytes);
-        int len = buffer.arrayOffset() + buffer.position() - pos;
+        if (!isRecordingSections()) {
+            encodeElement(buffer, element);
+            return;
+        }
+        int pos = sectionPosition(buffer);
+        encodeElement(buffer, element);
+        int len = sectionPosition(buffer) - pos;
         if (len > 0) {
             recordSection(pos, len, element, ByteUtil.recallToBuffer(buffer, len));
         }
     }
 
+    private void encodeElement(ByteBuffer buffer, T element) {
+        if (bytesEncoding) {
+            putDataBytes(buffer, encodeValue(element));
+        } else {
+            encodeValue(buffer, element);
+        }
+    }
+
     /**
-     * Encodes {@code T} to bytes.
+     * Encodes {@code T} to bytes.  This should not call {@link #encodeValue(ByteBuffer, Object)} which can call this
+     * method.
      *
      * @param value the actual value to be encoded
      * @return TODO
@@ -49,7 +126,21 @@ public abstract class ElementCodec<T> extends Codec<T> {
     protected abstract byte[] encodeValue(T value);
 
     /**
-     * Puts the data bytes to the buffer.
+     * Encodes {@code T} directly to the buffer.  The default implementation puts the bytes from {@link
+     * #encodeValue(Object)} using {@link #putDataBytes(ByteBuffer, byte[])}.  Codecs which can write the value in place
+     * should override this to avoid creating the intermediate {@code byte[]}.  A subclass which overrides {@link
+     * #encodeValue(Object)} but not this method is encoded through {@link #encodeValue(Object)}.
+     *
+     * @param buffer the ByteBuffer to which the value would be encoded
+     * @param value  the actual value to be encoded
+     */
+    protected void encodeValue(ByteBuffer buffer, T value) {
+        putDataBytes(buffer, encodeValue(value));
+    }
+
+    /**
+     * Puts the data bytes to the buffer.  A subclass which overrides this but not {@link #encodeValue(ByteBuffer,
+     * Object)} is encoded through {@link #encodeValue(Object)} and this method.
      *
      * @param buffer the ByteBuffer to which the bytes would be encoded
      * @param bytes  TODO
@@ -64,18 +155,43 @@ public abstract class ElementCodec<T> extends Codec<T> {
      */
     @Override
     public T decode(ByteBuffer buffer) {
-        int pos = buffer.arrayOffset() + buffer.position();
-        byte[] bytes = getDataBytes(buffer);
-        T element = decodeValue(bytes);
-        int len = buffer.arrayOffset() + buffer.position() - pos;
+        if (!isRecordingSections()) {
+            return decodeElement(buffer);
+        }
+        int pos = sectionPosition(buffer);
+        T element = decodeElement(buffer);
+        int len = sectionPosition(buffer) - pos;
         if (len > 0) {
             recordSection(pos, len, element, ByteUtil.recallToBuffer(buffer, len));
         }
         return element;
     }
 
+    private T decodeElement(ByteBuffer buffer) {
+        return bytesDecoding ? decodeValue(getDataBytes(buffer)) : decodeValue(buffer);
+    }
+
+    /**
+     * Skips {@link #getDataBytesCount(ByteBuffer)} bytes, or consumes the bytes with {@link #getDataBytes(ByteBuffer)}
+     * if the elements are decoded through the {@code byte[]} methods (see {@link #isBytesDecoding()}).
+     *
+     * @param buffer the source of the bytes to skip
+     */
+    @Override
+    public void skip(ByteBuffer buffer) {
+        if (bytesDecoding) {
+            getDataBytes(buffer);
+            return;
+        }
+        int dataBytesCount = getDataBytesCount(buffer);
+        if (dataBytesCount > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        buffer.position(buffer.position() + dataBytesCount);
+    }
+
     /**
-     * Decodes the bytes to {@code T}.
+     * Decodes the bytes to {@code T}.  This should not call {@link #decodeValue(ByteBuffer)} which can call this method.
      *
      * @param bytes TODO
      * @return TODO
@@ -83,21 +199,41 @@ public abstract class ElementCodec<T> extends Codec<T> {
     protected abstract T decodeValue(byte[] bytes);
 
     /**
-     * Gets the data bytes from the buffer.
+     * Decodes {@code T} directly from the buffer consuming the data bytes.  The default implementation decodes the
+     * bytes from {@link #getDataBytes(ByteBuffer)} using {@link #decodeValue(byte[])}.  Codecs which can read the value
+     * in place should override this to avoid copying the data bytes, normally reading {@link
+     * #getDataBytesCount(ByteBuffer)} bytes from the buffer.  A subclass which overrides {@link #decodeValue(byte[])}
+     * but not this method is decoded through {@link #decodeValue(byte[])}.
+     *
+     * @param buffer the ByteBuffer from which the value would be decoded
+     * @return the decoded value
+     */
+    protected T decodeValue(ByteBuffer buffer) {
+        return decodeValue(getDataBytes(buffer));
+    }
+
+    /**
+     * Gets the data bytes from the buffer.  A subclass which overrides this but not {@link #decodeValue(ByteBuffer)} is
+     * decoded through this method and {@link #decodeValue(byte[])}.
      *
      * @param buffer TODO
      * @return TODO
      */
     protected byte[] getDataBytes(ByteBuffer buffer) {
-        Integer length = getAttribute(FinancialAttribute.LENGTH);
-        byte[] bytes;
-        if (length != null) {
-            bytes = new byte[length];
-        } else {
-            bytes = new byte[buffer.remaining()];
-        }
+        byte[] bytes = new byte[getDataBytesCount(buffer)];
         buffer.get(bytes);
         return bytes;
     }
 
+    /**
+     * Determines the number of data bytes from the current position of the buffer without consuming them.  The
+     * default is the configured length or the remaining bytes if the element has no length.
+     *
+     * @param buffer the ByteBuffer from which the value would be decoded
+     * @return the number of data bytes of the element
+     */
+    protected int getDataBytesCount(ByteBuffer buffer) {
+        return length != null ? length : buffer.remaining();
+    }
+
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.nio.ByteBuffer;
+
+import static java.lang.String.format;
+
+/**
+ * The length header which frames each message on a stream or in a file, e.g. the 2 byte binary header used by most
+ * ISO8583 links or a 4 digit ASCII header.  The header holds the number of message bytes which follow it and is
+ * encoded the same way as the length prefixes of the message elements (binary, ASCII digits or BCD).
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public final class FrameHeader {
+
+    private enum Encoding {
+        BINARY,
+        CHARS,
+        BCD
+    }
+
+    private final Encoding encoding;
+    private final int digits;
+    private final int size;
+
+    private FrameHeader(Encoding encoding, int digits, int size) {
+        if (size < 1 || size > 8) {
+            throw new IllegalArgumentException(format("Invalid frame header size %d", size));
+        }
+        this.encoding = encoding;
+        this.digits = digits;
+        this.size = size;
+    }
+
+    /**
+     * @param bytes the number of bytes of the header
+     * @return an unsigned big endian binary header (e.g. 2 bytes)
+     */
+    public static FrameHeader binary(int bytes) {
+        return new FrameHeader(Encoding.BINARY, bytes, bytes);
+    }
+
+    /**
+     * @param digits the number of digits of the header
+     * @return a header of zero padded ISO-8859-1 digits (e.g. 4 digits)
+     */
+    public static FrameHeader chars(int digits) {
+        return new FrameHeader(Encoding.CHARS, digits, digits);
+    }
+
+    /**
+     * @param digits the number of digits of the header
+     * @return a packed BCD header (e.g. 4 digits in 2 bytes)
+     */
+    public static FrameHeader bcd(int digits) {
+        return new FrameHeader(Encoding.BCD, digits, digits / 2 + digits % 2);
+    }
+
+    /**
+     * @return the number of bytes of the header
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Reads the header from the buffer's current position.
+     *
+     * @param buffer the buffer where the header would be read from
+     * @return the number of message bytes which follow the header
+     * @throws java.nio.BufferUnderflowException if the buffer has less than {@link #size()} bytes remaining
+     * @throws RuntimeException                  if the header is not valid
+     */
+    public int getLength(ByteBuffer buffer) {
+        long length;
+        switch (encoding) {
+            case BINARY:
+                length = ByteUtil.getBinaryLong(buffer, size);
+                break;
+            case CHARS:
+                length = ByteUtil.getCharsLong(buffer, size);
+                break;
+            case BCD:
+                length = ByteUtil.getBcdLong(buffer, size);
+                break;
+            default:
+                throw new RuntimeException(format("Unsupported frame header encoding %s", encoding));
+        }
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new RuntimeException(format("Invalid frame length %d", length));
+        }
+        return (int) length;
+    }
+
+    /**
+     * Puts the header to the buffer's current position.
+     *
+     * @param buffer the buffer where the header would be put
+     * @param length the number of message bytes which follow the header
+     * @throws java.nio.BufferOverflowException if the buffer has less than {@link #size()} bytes remaining
+     * @throws IllegalArgumentException         if the length doesn't fit in the header
+     */
+    public void putLength(ByteBuffer buffer, int length) {
+        switch (encoding) {
+            case BINARY:
+                ByteUtil.putBinary(buffer, length, size);
+                break;
+            case CHARS:
+                ByteUtil.putChars(buffer, length, size);
+                break;
+            case BCD:
+                ByteUtil.putBcd(buffer, length, digits);
+                break;
+            default:
+                throw new RuntimeException(format("Unsupported frame header encoding %s", encoding));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return format("%s(%d)", encoding, digits);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code LazyCodecFilter} is applied by the configuration to the message elements when lazy decoding is enabled.
+ * Decoding only skips the encoded bytes of the element and returns a {@link LazyElement} which decodes the bytes when
+ * it is first accessed from the {@link CompositeMap}.  Encoding a {@code LazyElement} which was never accessed copies
+ * the original bytes.
+ * <p/>
+ * Elements are decoded eagerly while sections are being recorded so that the recorded sections are complete.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+final class LazyCodecFilter extends CodecFilter<Object, Object> {
+
+    private final String index;
+
+    LazyCodecFilter(String index, Codec<Object> codec) {
+        this.index = index;
+        this.chain = codec;
+        this.attributes = codec.attributes;
+        this.sectionsEnabled = codec.sectionsEnabled;
+    }
+
+    @Override
+    protected void encode(ByteBuffer buffer, Object element, Codec<Object> chain) {
+        if (element instanceof LazyElement) {
+            LazyElement lazyElement = (LazyElement) element;
+            if (lazyElement.isEncodableBy(this) && !isRecordingSections()) {
+                buffer.put(lazyElement.getEncodedBytes());
+                return;
+            }
+            element = lazyElement.decode();
+        }
+        chain.encode(buffer, element);
+    }
+
+    @Override
+    protected Object decode(ByteBuffer buffer, Codec<Object> chain) {
+        if (isRecordingSections()) {
+            return chain.decode(buffer);
+        }
+        int start = buffer.position();
+        chain.skip(buffer);
+        ByteBuffer encodedBytes = buffer.duplicate();
+        encodedBytes.position(start);
+        encodedBytes.limit(buffer.position());
+        return new LazyElement(this, encodedBytes.slice());
+    }
+
+    @Override
+    protected long decodeLong(ByteBuffer buffer, Codec<Object> chain) {
+        return chain.decodeLong(buffer);
+    }
+
+    @Override
+    public void skip(ByteBuffer buffer) {
+        chain.skip(buffer);
+    }
+
+    /**
+     * Decodes the bytes of a lazy element.  Errors are reported with the index of the element since this happens
+     * outside of decoding the message.
+     *
+     * @param encodedBytes the original bytes of the element
+     * @return the decoded element
+     */
+    Object decodeLazily(ByteBuffer encodedBytes) {
+        try {
+            pushIndex(index);
+            return chain.decode(encodedBytes);
+        } catch (Exception e) {
+            throw subElementException(e, index);
+        } finally {
+            popIndex();
+        }
+    }
+
+    /**
+     * Same as {@link #decodeLazily(ByteBuffer)} but decodes a whole number without creating the value.
+     *
+     * @param encodedBytes the original bytes of the element
+     * @return the decoded number
+     */
+    long decodeLongLazily(ByteBuffer encodedBytes) {
+        try {
+            pushIndex(index);
+            return chain.decodeLong(encodedBytes);
+        } catch (Exception e) {
+            throw subElementException(e, index);
+        } finally {
+            popIndex();
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A placeholder in a {@link CompositeMap} for an element which has not been decoded yet.  It holds a view of the
+ * element's original bytes and the codec which would decode them.  The placeholder never leaves the {@code
+ * CompositeMap} as it is replaced by the decoded value when accessed.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+final class LazyElement {
+
+    private final LazyCodecFilter codec;
+    private final ByteBuffer encodedBytes;
+
+    LazyElement(LazyCodecFilter codec, ByteBuffer encodedBytes) {
+        this.codec = codec;
+        this.encodedBytes = encodedBytes;
+    }
+
+    Object decode() {
+        return codec.decodeLazily(encodedBytes.duplicate());
+    }
+
+    /**
+     * Decodes the element as a whole number without replacing the placeholder.
+     *
+     * @return the decoded number
+     */
+    long decodeLong() {
+        return codec.decodeLongLazily(encodedBytes.duplicate());
+    }
+
+    /**
+     * @return a new view of the original bytes of the element
+     */
+    ByteBuffer getEncodedBytes() {
+        return encodedBytes.duplicate();
+    }
+
+    /**
+     * The original bytes can only be reused by the codec which decoded them.
+     *
+     * @param codec the codec encoding the element
+     * @return {@code true} if the original bytes can be encoded as is by the codec
+     */
+    boolean isEncodableBy(Codec<?> codec) {
+        return this.codec == codec;
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.lang.String.format;
+
+/**
+ * Reads a file of messages framed by a {@link FrameHeader} (e.g. a clearing file) by mapping it to memory.  Each message
+ * is decoded directly from the mapped bytes without copying them to the heap.  A {@code MappedByteBuffer} cannot be
+ * larger than 2GB so larger files are mapped a region at a time, the next region starting at the first frame which did
+ * not fit the previous one.
+ * <p/>
+ * When the codec decodes lazily the elements which were not accessed yet are views of the mapped bytes, which keep the
+ * region mapped until the message is garbage collected.
+ * <p/>
+ * Each region can be decoded in parallel with a {@link ParallelMessageDecoder}, in which case the messages of the region
+ * are delivered the way the decoder delivers them.
+ * <p/>
+ * A {@code MappedMessageReader} has no state of its own and is thread safe.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public final class MappedMessageReader {
+
+    private static final int DEFAULT_REGION_SIZE = 1 << 28;
+
+    private final MessageCodec messageCodec;
+    private final ParallelMessageDecoder parallelDecoder;
+    private final FrameHeader header;
+    private final int regionSize;
+
+    /**
+     * Maps regions of 256MB.
+     *
+     * @param messageCodec the codec of the messages
+     * @param header       the header of each frame
+     */
+    public MappedMessageReader(MessageCodec messageCodec, FrameHeader header) {
+        this(messageCodec, header, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * @param messageCodec the codec of the messages
+     * @param header       the header of each frame
+     * @param regionSize   the number of bytes mapped at a time which limits the size of a frame including the header
+     */
+    public MappedMessageReader(MessageCodec messageCodec, FrameHeader header, int regionSize) {
+        this(messageCodec, null, header, regionSize);
+    }
+
+    /**
+     * Maps regions of 256MB and decodes each region in parallel.
+     *
+     * @param parallelDecoder the decoder of the messages of each region
+     */
+    public MappedMessageReader(ParallelMessageDecoder parallelDecoder) {
+        this(parallelDecoder, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * @param parallelDecoder the decoder of the messages of each region
+     * @param regionSize      the number of bytes mapped at a time which limits the size of a frame including the header
+     *                        and the number of messages decoded at a time
+     */
+    public MappedMessageReader(ParallelMessageDecoder parallelDecoder, int regionSize) {
+        this(null, parallelDecoder, parallelDecoder.getHeader(), regionSize);
+    }
+
+    private MappedMessageReader(MessageCodec messageCodec, ParallelMessageDecoder parallelDecoder, FrameHeader header,
+                                int regionSize) {
+        if (regionSize <= header.size()) {
+            throw new IllegalArgumentException(format("Region size %d cannot fit a frame", regionSize));
+        }
+        this.messageCodec = messageCodec;
+        this.parallelDecoder = parallelDecoder;
+        this.header = header;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Decodes all the messages of the file.
+     *
+     * @param file    the file to read
+     * @param handler the handler of the decoded messages
+     * @return the number of messages decoded
+     * @throws EOFException          if the file ends in the middle of a frame
+     * @throws IOException           if opening or mapping the file fails
+     * @throws IllegalStateException if a frame is larger than the region size
+     */
+    public long read(Path file, MessageHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, handler);
+        }
+    }
+
+    /**
+     * Decodes all the messages from the channel's current position up to the end of the file.  The channel's position
+     * is not changed.
+     * <p/>
+     * If decoding a message fails the exception is thrown and the rest of the file is not read.
+     *
+     * @param channel the channel of the file to read
+     * @param handler the handler of the decoded messages
+     * @return the number of messages decoded
+     * @throws EOFException          if the file ends in the middle of a frame
+     * @throws IOException           if mapping the file fails
+     * @throws IllegalStateException if a frame is larger than the region size
+     */
+    public long read(FileChannel channel, MessageHandler handler) throws IOException {
+        long position = channel.position();
+        long size = channel.size();
+        long count = 0;
+        while (position < size) {
+            long mapped = Math.min(regionSize, size - position);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, mapped);
+            if (parallelDecoder != null) {
+                count += parallelDecoder.decodeAll(region, handler);
+            } else {
+                count += messageCodec.decodeAll(region, header, handler);
+            }
+            if (region.position() == 0) {
+                if (position + mapped == size) {
+                    throw new EOFException(format("End of file with %d bytes of an incomplete frame", mapped));
+                } else {
+                    throw new IllegalStateException(format("Frame at %d exceeds the region size %d", position, regionSize));
+                }
+            }
+            position += region.position();
+        }
+        return count;
+    }
+
+}
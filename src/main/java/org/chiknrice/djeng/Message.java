@@ -15,6 +15,7 @@
  */
 package org.chiknrice.djeng;
 
+import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -30,8 +31,8 @@ import static java.lang.String.format;
  * represents message elements using a collection of sub-elements which can either be a value element (leaf) or a
  * composite-element (branch).  Each branch/composite-element is also a collection of sub-elements.
  * <p/>
- * The collection of sub-elements is implemented using a {@link CompositeMap} which is a {@code HashMap} that restricts
- * keys and values to {@code String} and {@code Object}.  The key/index is the unique identifier of a sub-element within
+ * The collection of sub-elements is implemented using a {@link CompositeMap} which is a {@code Map} that restricts keys
+ * and values to {@code String} and {@code Object}.  The key/index is the unique identifier of a sub-element within
  * that {@code CompositeMap}. This would usually correspond to the index of the element in the configuration xml but can
  * be set to a different value depending on the {@code Codec} implementation.  Valid indexes are restricted by the
  * configuration schema which does not permit spaces or the dot (.) character.
@@ -229,6 +230,66 @@ public final class Message {
         return (T) element;
     }
 
+    /**
+     * Gets the whole number located at the indexPath as a primitive {@code long}.  An element which has not been
+     * decoded yet (see lazy decoding) is read straight from its original bytes without creating the value, and it stays
+     * undecoded so amount fields which are only read this way are never boxed.
+     *
+     * @param indexPath the dot separated indexes of the element from the top level of the message (e.g. {@code 48.1})
+     * @return the value of the element
+     * @throws IllegalArgumentException if the indexPath pattern is not valid, if the element doesn't exist or if it is
+     *                                  not a whole number which fits in a {@code long}
+     */
+    public long getLongElement(String indexPath) {
+        validateIndexPath(indexPath);
+
+        String[] indexes = indexPath.split("\\.");
+
+        CompositeMap currentCompositeMap = elements;
+        for (int i = 0; i < indexes.length - 1; i++) {
+            Object element = currentCompositeMap.get(indexes[i]);
+            if (!(element instanceof CompositeMap)) {
+                throw new IllegalArgumentException(format("No element at %s", indexPath));
+            }
+            currentCompositeMap = (CompositeMap) element;
+        }
+        Object element = currentCompositeMap.getUndecoded(indexes[indexes.length - 1]);
+        if (element instanceof LazyElement) {
+            return ((LazyElement) element).decodeLong();
+        } else if (element instanceof Integer || element instanceof Long) {
+            return ((Number) element).longValue();
+        } else if (element instanceof BigInteger && ((BigInteger) element).bitLength() < 64) {
+            return ((BigInteger) element).longValue();
+        } else if (element instanceof String) {
+            // numeric elements decoded as strings
+            try {
+                return Long.parseLong((String) element);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(format("Element at %s is not a long", indexPath), e);
+            }
+        } else if (element == null) {
+            throw new IllegalArgumentException(format("No element at %s", indexPath));
+        } else {
+            throw new IllegalArgumentException(format("Element at %s is not a long", indexPath));
+        }
+    }
+
+    /**
+     * Same as {@link #getLongElement(String)} but the value is expected to fit in an {@code int}.
+     *
+     * @param indexPath the dot separated indexes of the element from the top level of the message (e.g. {@code 48.1})
+     * @return the value of the element
+     * @throws IllegalArgumentException if the indexPath pattern is not valid, if the element doesn't exist, if it is not
+     *                                  a whole number or if it doesn't fit in an {@code int}
+     */
+    public int getIntElement(String indexPath) {
+        long value = getLongElement(indexPath);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(format("Element at %s exceeds int: %d", indexPath, value));
+        }
+        return (int) value;
+    }
+
     /**
      * Sets the value of an element at the position indicated by indexPath.  This method invalidates the underlying
      * byte[] if it exists.
@@ -15,10 +15,20 @@
 
 package org.chiknrice.djeng;
 
+import java.io.IOException;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Encodes and decodes a {@link Message} to and from a {@code byte[]}
+ * <p/>
+ * Batches of messages can be encoded to and decoded from a buffer or a channel where each message is framed by a
+ * {@link FrameHeader}.  Batches are encoded directly to one buffer rather than to a buffer per message.
+ * <p/>
+ * A {@code MessageCodec} is thread safe and is meant to be shared for the lifespan of the application.  The state of an
+ * encode/decode (index path and recorded sections) is kept per thread while a {@code Message} is not thread safe and
+ * should only be used by one thread at a time.
  *
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
@@ -31,27 +41,152 @@ public class MessageCodec {
     }
 
     /**
-     * Encodes the {@code Message} to {@code byte[]} based on the rules defined by the config.
+     * Encodes the {@code Message} to {@code byte[]} based on the rules defined by the config.  The encode buffer is taken
+     * from the pool if the config has one.
      *
      * @param message the message to be encoded.
      * @return the encoded bytes.
      */
     public byte[] encode(Message message) {
-        ByteBuffer buffer = ByteBuffer.allocate(config.getEncodeBufferSize());
-        Codec<CompositeMap> rootCodec = config.getRootCodec();
+        EncodeBufferPool pool = config.getEncodeBufferPool();
+        ByteBuffer buffer = pool != null ? pool.acquire() : ByteBuffer.allocate(config.getEncodeBufferSize());
         try {
-            rootCodec.startRecordingSections();
-            config.getRootCodec().encode(buffer, message.getCompositeMap());
-            byte[] encoded = new byte[buffer.position()];
-            buffer.rewind();
+            byte[] encoded = new byte[encodeInto(message, buffer)];
+            buffer.flip();
             buffer.get(encoded);
             return encoded;
         } finally {
-            if (config.isDebugEnabled()) {
-                System.err.println("ENCODED");
+            if (pool != null) {
+                pool.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Encodes the {@code Message} directly to the buffer starting at its current position.  On success the position of
+     * the buffer is after the last encoded byte, otherwise the position is restored to where it was before encoding.
+     *
+     * @param message the message to be encoded.
+     * @param buffer  the buffer where the message would be encoded to.
+     * @return the number of bytes encoded.
+     * @throws java.nio.BufferOverflowException if the encoded message does not fit the remaining bytes of the buffer
+     */
+    public int encodeInto(Message message, ByteBuffer buffer) {
+        int start = buffer.position();
+        boolean encoded = false;
+        try {
+            encode(buffer, message.getCompositeMap());
+            encoded = true;
+            return buffer.position() - start;
+        } finally {
+            if (!encoded) {
+                buffer.position(start);
+            }
+        }
+    }
+
+    /**
+     * Encodes the messages to the buffer starting at its current position, each message preceded by the header.
+     *
+     * @param messages the messages to be encoded
+     * @param header   the header of each message
+     * @param buffer   the buffer where the messages would be encoded to
+     * @return the number of messages encoded
+     * @throws RuntimeException if a message fails to encode or does not fit the buffer (caused by a {@code
+     *                          java.nio.BufferOverflowException}), in which case the buffer's position is after the
+     *                          last message encoded
+     */
+    public int encodeAll(Iterable<Message> messages, FrameHeader header, ByteBuffer buffer) {
+        int count = 0;
+        for (Message message : messages) {
+            encodeFrame(message, header, buffer);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Encodes the messages to the channel, each message preceded by the header.  The messages are encoded to a single
+     * buffer which is written to the channel whenever the next message doesn't fit.  The buffer is taken from the pool if
+     * the config has one.
+     *
+     * @param messages the messages to be encoded
+     * @param header   the header of each message
+     * @param channel  the channel where the messages would be written to
+     * @return the number of messages encoded
+     * @throws IOException if writing to the channel fails
+     */
+    public int encodeAll(Iterable<Message> messages, FrameHeader header, WritableByteChannel channel) throws IOException {
+        EncodeBufferPool pool = config.getEncodeBufferPool();
+        ByteBuffer buffer = pool != null ? pool.acquire() : ByteBuffer.allocate(config.getEncodeBufferSize());
+        try {
+            int count = 0;
+            for (Message message : messages) {
+                try {
+                    encodeFrame(message, header, buffer);
+                } catch (RuntimeException e) {
+                    if (buffer.position() == 0 || !isOverflow(e)) {
+                        throw e;
+                    }
+                    write(buffer, channel);
+                    encodeFrame(message, header, buffer);
+                }
+                count++;
+            }
+            write(buffer, channel);
+            return count;
+        } finally {
+            if (pool != null) {
+                pool.release(buffer);
             }
-            rootCodec.dumpLogs(config.isDebugEnabled());
-            rootCodec.stopRecordingSections();
+        }
+    }
+
+    private void encodeFrame(Message message, FrameHeader header, ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < header.size()) {
+            throw new BufferOverflowException();
+        }
+        boolean encoded = false;
+        try {
+            buffer.position(start + header.size());
+            int length = encodeInto(message, buffer);
+            int end = buffer.position();
+            buffer.position(start);
+            header.putLength(buffer, length);
+            buffer.position(end);
+            encoded = true;
+        } finally {
+            if (!encoded) {
+                buffer.position(start);
+            }
+        }
+    }
+
+    static boolean isOverflow(RuntimeException e) {
+        return e instanceof BufferOverflowException || e.getCause() instanceof BufferOverflowException;
+    }
+
+    private static void write(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void encode(ByteBuffer buffer, CompositeMap elements) {
+        Codec<CompositeMap> rootCodec = config.getRootCodec();
+        SectionListener sectionListener = config.getSectionListener();
+        if (sectionListener == null) {
+            rootCodec.encode(buffer, elements);
+            return;
+        }
+        try {
+            rootCodec.startRecordingSections();
+            rootCodec.encode(buffer, elements);
+        } finally {
+            sectionListener.onEncode(rootCodec.stopRecordingSections());
         }
     }
 
@@ -62,20 +197,94 @@ public class MessageCodec {
      * @return the decoded Message.
      */
     public Message decode(byte[] messageBytes) {
+        return decode(ByteBuffer.wrap(messageBytes));
+    }
+
+    /**
+     * Decodes a {@code Message} directly from the buffer starting at its current position up to its limit without
+     * copying the bytes.  On success the position of the buffer is after the last decoded byte.  Recorded sections are
+     * relative to the position where decoding started.
+     * <p/>
+     * With lazy decoding, the elements which were not accessed yet are views of the buffer's bytes, in which case the
+     * bytes should not be modified while the message is in use.
+     *
+     * @param buffer the buffer where the message would be decoded from.
+     * @return the decoded Message.
+     */
+    public Message decodeFrom(ByteBuffer buffer) {
+        ByteBuffer messageBytes = buffer.slice();
+        Message message = decode(messageBytes);
+        buffer.position(buffer.position() + messageBytes.position());
+        return message;
+    }
+
+    /**
+     * Decodes the messages from the buffer's current position up to its limit where each message is preceded by the
+     * header.  Messages are decoded directly from the buffer the same as {@link #decodeFrom(ByteBuffer)}.  An incomplete
+     * message at the end of the buffer is left for the caller (e.g. to be completed by the next read), in which case the
+     * position of the buffer is at its header.
+     * <p/>
+     * If a message fails to decode the exception is thrown with the buffer's position after that message.
+     *
+     * @param buffer  the buffer where the messages would be decoded from
+     * @param header  the header of each message
+     * @param handler the handler of the decoded messages
+     * @return the number of messages decoded
+     */
+    public int decodeAll(ByteBuffer buffer, FrameHeader header, MessageHandler handler) {
+        return decodeAll(buffer, header, handler, false);
+    }
+
+    /**
+     * @param copyFrames copies the bytes of each message before decoding, for buffers which are reused
+     */
+    int decodeAll(ByteBuffer buffer, FrameHeader header, MessageHandler handler, boolean copyFrames) {
+        int count = 0;
+        while (buffer.remaining() >= header.size()) {
+            int start = buffer.position();
+            int length = header.getLength(buffer);
+            if (buffer.remaining() < length) {
+                buffer.position(start);
+                break;
+            }
+            int limit = buffer.limit();
+            int end = buffer.position() + length;
+            Message message;
+            buffer.limit(end);
+            try {
+                if (copyFrames) {
+                    byte[] messageBytes = new byte[length];
+                    buffer.get(messageBytes);
+                    message = decode(messageBytes);
+                } else {
+                    message = decodeFrom(buffer);
+                }
+            } finally {
+                buffer.limit(limit);
+                buffer.position(end);
+            }
+            count++;
+            handler.onMessage(message);
+        }
+        return count;
+    }
+
+    private Message decode(ByteBuffer buffer) {
         Codec<CompositeMap> rootCodec = config.getRootCodec();
+        SectionListener sectionListener = config.getSectionListener();
+        if (sectionListener == null) {
+            return new Message(rootCodec.decode(buffer));
+        }
         try {
-            ByteBuffer buffer = ByteBuffer.wrap(messageBytes);
             rootCodec.startRecordingSections();
-            CompositeMap element = rootCodec.decode(buffer);
-            Message message = new Message(element);
-            return message;
+            return new Message(rootCodec.decode(buffer));
         } finally {
-            if (config.isDebugEnabled()) {
-                System.err.println("DECODED");
-            }
-            rootCodec.dumpLogs(config.isDebugEnabled());
-            rootCodec.stopRecordingSections();
+            sectionListener.onDecode(rootCodec.stopRecordingSections());
         }
     }
 
+    MessageCodecConfig getConfig() {
+        return config;
+    }
+
 }
@@ -28,7 +28,13 @@ import static org.chiknrice.djeng.XmlConfig.ElementName.*;
 /**
  * A {@code MessageCodecConfig} is the configuration required when creating a {@link MessageCodec}.  The configuration
  * requires at least a configuration xml and optional custom schemas and {@link Attribute}s.  The config can also be
- * built with an encode buffer size (defaults to 0xFFFF) and to enable debugging.
+ * built with an encode buffer size (defaults to 0x7FFF), an encode buffer pool, lazy decoding, selective decoding, and to
+ * enable debugging or a custom {@link SectionListener}.  Without a {@code SectionListener} the codecs do not record any sections.
+ * <p/>
+ * The codec tree is built and compiled within the constructor and is not modified afterwards, the attributes and the
+ * sub-element codecs are unmodifiable and codecs only assign their fields in {@link Codec#compile()}.  As the tree is
+ * reachable only through the final root codec, a config (and the {@link MessageCodec} using it) can be shared by any
+ * number of threads once built.
  *
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
@@ -72,7 +78,10 @@ public class MessageCodecConfig {
         private final List<String> customSchemas = new ArrayList<>();
         private final List<Attribute> customAttributes = new ArrayList<>();
         private int encodeBufferSize = 0x7FFF;
-        private boolean debugEnabled = false;
+        private int encodeBufferPoolSize;
+        private boolean lazyDecoding;
+        private Set<String> selectedElements;
+        private SectionListener sectionListener;
 
         private MessageCodecConfigBuilder(InputStream xmlConfig) {
             this.xmlConfig = xmlConfig;
@@ -83,8 +92,64 @@ public class MessageCodecConfig {
             return this;
         }
 
+        /**
+         * Enables pooling of encode buffers used by {@link MessageCodec#encode(Message)} instead of allocating a new
+         * buffer per message.  The pool is thread safe and holds at most {@code poolSize} buffers which are allocated
+         * as needed.
+         *
+         * @param poolSize the maximum number of buffers kept in the pool
+         * @return the builder
+         */
+        public MessageCodecConfigBuilder withEncodeBufferPool(int poolSize) {
+            encodeBufferPoolSize = poolSize;
+            return this;
+        }
+
+        /**
+         * Enables lazy decoding of the message elements.  Decoding only determines where each message element is in the
+         * decoded bytes and the element is decoded when it is first accessed.  Message elements which were never
+         * accessed are encoded by copying their original bytes.  The decoded {@code byte[]} is referenced by the
+         * message and should not be modified.
+         *
+         * @return the builder
+         */
+        public MessageCodecConfigBuilder withLazyDecoding() {
+            lazyDecoding = true;
+            return this;
+        }
+
+        /**
+         * Enables selective decoding of the message elements.  Only the selected elements are decoded, the bytes of
+         * the other elements are skipped using their fixed lengths or length prefixes and the decoded message only has
+         * the selected elements and the elements needed to decode them (e.g. the bitmap).  A composite element is
+         * decoded whole if it is selected and only its selected sub-elements if an index path within it is selected
+         * (e.g. {@code "48.1"}).  Index paths are matched against the configured elements, a composite element whose
+         * configured sub-elements don't match the index paths within it (e.g. the keys of a key-value composite) is
+         * decoded whole.
+         * <p/>
+         * A codec with this config is meant for decoding only, e.g. routing on a few elements of the message.
+         *
+         * @param indexPaths the index paths of the elements to decode (e.g. {@code "mti"}, {@code "3"} or {@code
+         *                   "48.1"})
+         * @return the builder
+         */
+        public MessageCodecConfigBuilder withSelectiveDecoding(String... indexPaths) {
+            selectedElements = new HashSet<>(Arrays.asList(indexPaths));
+            return this;
+        }
+
         public MessageCodecConfigBuilder withDebugEnabled() {
-            debugEnabled = true;
+            return withSectionListener(new DebugSectionListener());
+        }
+
+        /**
+         * Enables recording of sections which are passed to the listener after each encode/decode.
+         *
+         * @param sectionListener the thread safe listener of the recorded sections
+         * @return the builder
+         */
+        public MessageCodecConfigBuilder withSectionListener(SectionListener sectionListener) {
+            this.sectionListener = sectionListener;
             return this;
         }
 
@@ -101,7 +166,7 @@ public class MessageCodecConfig {
         }
 
         public MessageCodecConfig build() {
-            return new MessageCodecConfig(xmlConfig, customSchemas, customAttributes, encodeBufferSize, debugEnabled);
+            return new MessageCodecConfig(xmlConfig, customSchemas, customAttributes, encodeBufferSize, encodeBufferPoolSize, lazyDecoding, selectedElements, sectionListener);
         }
     }
 
@@ -109,20 +174,26 @@ public class MessageCodecConfig {
     private final Map<String, XmlConfig.XmlElement> codecConfigMap;
     private final Codec<CompositeMap> rootCodec;
     private final int encodeBufferSize;
-    private final boolean debugEnabled;
+    private final EncodeBufferPool encodeBufferPool;
+    private final boolean lazyDecoding;
+    private final Set<String> selectedElements;
+    private final SectionListener sectionListener;
 
-    private MessageCodecConfig(InputStream xmlConfigStream, List<String> customSchemas, List<Attribute> customAttributes, int encodeBufferSize, boolean debugEnabled) {
+    private MessageCodecConfig(InputStream xmlConfigStream, List<String> customSchemas, List<Attribute> customAttributes, int encodeBufferSize, int encodeBufferPoolSize, boolean lazyDecoding, Set<String> selectedElements, SectionListener sectionListener) {
+        this.lazyDecoding = lazyDecoding;
+        this.selectedElements = selectedElements != null ? Collections.unmodifiableSet(selectedElements) : null;
+        this.sectionListener = sectionListener;
         // XmlConfig only closes the input streams that it creates, the xmlConfigStream is required to be closed by the caller if needed
         try (XmlConfig xmlConfig = new XmlConfig(xmlConfigStream, customSchemas, customAttributes)) {
             this.xmlConfig = xmlConfig;
             codecConfigMap = buildCodecConfigMap();
             final XmlConfig.XmlElement messageElementsConfig = this.xmlConfig.getElement(MESSAGE_ELEMENTS);
-            rootCodec = (Codec<CompositeMap>) buildCodec(messageElementsConfig);
+            rootCodec = (Codec<CompositeMap>) buildCodec(messageElementsConfig, selectedElements != null ? "" : null);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
         }
         this.encodeBufferSize = encodeBufferSize;
-        this.debugEnabled = debugEnabled;
+        this.encodeBufferPool = encodeBufferPoolSize > 0 ? new EncodeBufferPool(encodeBufferPoolSize, encodeBufferSize) : null;
     }
 
     public Codec<CompositeMap> getRootCodec() {
@@ -133,8 +204,33 @@ public class MessageCodecConfig {
         return encodeBufferSize;
     }
 
+    /**
+     * @return the pool of encode buffers, or {@code null} if a buffer is allocated per encode
+     */
+    EncodeBufferPool getEncodeBufferPool() {
+        return encodeBufferPool;
+    }
+
+    public boolean isLazyDecoding() {
+        return lazyDecoding;
+    }
+
+    /**
+     * @return the index paths of the elements decoded, or {@code null} if all the elements are decoded
+     */
+    public Set<String> getSelectedElements() {
+        return selectedElements;
+    }
+
     public boolean isDebugEnabled() {
-        return debugEnabled;
+        return sectionListener != null;
+    }
+
+    /**
+     * @return the listener of recorded sections, or {@code null} if sections are not recorded
+     */
+    public SectionListener getSectionListener() {
+        return sectionListener;
     }
 
     private Map<String, XmlConfig.XmlElement> buildCodecConfigMap() throws Exception {
@@ -167,28 +263,44 @@ public class MessageCodecConfig {
         }
     }
 
-    private Map<String, Codec> buildSubElementCodecMap(XmlConfig.XmlElement compositeConfig) throws Exception {
+    /**
+     * @param selectionPath the index path of the composite if only some of its sub-elements are selected, otherwise
+     *                      {@code null}
+     */
+    private Map<String, Codec<Object>> buildSubElementCodecMap(XmlConfig.XmlElement compositeConfig, String selectionPath) throws Exception {
         // LinkedHashMap ensures the ordering of the elements in the config is maintained
-        Map<String, Codec> subElementCodecMap = new LinkedHashMap<>();
+        Map<String, Codec<Object>> subElementCodecMap = new LinkedHashMap<>();
         for (XmlConfig.XmlElement subElementConfig : compositeConfig.getChildren()) {
-            Codec subElementCodec = buildCodec(subElementConfig);
             String index = subElementConfig.getAttribute(INDEX);
+            String indexPath = selectionPath != null ? toIndexPath(selectionPath, index) : null;
+            Codec<Object> subElementCodec = buildCodec(subElementConfig, indexPath != null && isPartiallySelected(indexPath) ? indexPath : null);
             subElementCodecMap.put(index, subElementCodec);
         }
         return subElementCodecMap;
     }
 
-    private Codec buildCodec(XmlConfig.XmlElement elementConfig) throws Exception {
+    /**
+     * @param selectionPath the index path of the element if only some of its sub-elements are selected, otherwise
+     *                      {@code null}
+     */
+    private Codec buildCodec(XmlConfig.XmlElement elementConfig, String selectionPath) throws Exception {
         String codecRef = elementConfig.getAttribute(CODEC);
         XmlConfig.XmlElement codecConfig = codecConfigMap.get(codecRef);
         Codec codec = buildObject(codecConfig.<Class>getAttribute(CLASS));
+        codec.sectionsEnabled = sectionListener != null;
         Codec baseCodec = codec;
         Map<Attribute, Object> codecAttributes = new HashMap<>();
 
         final XmlConfig.ElementName name = elementConfig.getName();
         if (MESSAGE_ELEMENTS.equals(name) || COMPOSITE.equals(name)) {
-            Map<String, Codec> subElementCodecMap = buildSubElementCodecMap(elementConfig);
-            codecAttributes.put(SUB_ELEMENT_CODECS_MAP, subElementCodecMap);
+            Map<String, Codec<Object>> subElementCodecMap = buildSubElementCodecMap(elementConfig, selectionPath);
+            if (selectionPath != null && codec instanceof CompositeCodec) {
+                applySelectiveDecoding((CompositeCodec) codec, selectionPath, subElementCodecMap);
+            }
+            if (MESSAGE_ELEMENTS.equals(name) && lazyDecoding && codec instanceof CompositeCodec) {
+                applyLazyDecoding((CompositeCodec) codec, subElementCodecMap);
+            }
+            codecAttributes.put(SUB_ELEMENT_CODECS_MAP, Collections.unmodifiableMap(subElementCodecMap));
         }
 
         // Codec attributes first
@@ -207,12 +319,83 @@ public class MessageCodecConfig {
 
         // Attributes are immutable
         baseCodec.attributes = Collections.unmodifiableMap(codecAttributes);
+        compile(codec);
         return codec;
     }
 
+    /**
+     * Compiles the codec after the codec it wraps (if it is a filter) which shares the same attributes.
+     *
+     * @param codec the codec to compile
+     */
+    private void compile(Codec<?> codec) {
+        if (codec instanceof CodecFilter) {
+            CodecFilter<?, ?> codecFilter = (CodecFilter<?, ?>) codec;
+            compile(codecFilter.chain);
+            codecFilter.attributes = codecFilter.chain.attributes;
+        }
+        codec.compile();
+    }
+
+    private void applyLazyDecoding(CompositeCodec compositeCodec, Map<String, Codec<Object>> subElementCodecMap) {
+        for (Map.Entry<String, Codec<Object>> subElementCodec : subElementCodecMap.entrySet()) {
+            String index = subElementCodec.getKey();
+            Codec<Object> codec = subElementCodec.getValue();
+            if (!(codec instanceof SkipCodecFilter) && compositeCodec.isLazilyDecodable(index, codec)) {
+                subElementCodec.setValue(new LazyCodecFilter(index, codec));
+            }
+        }
+    }
+
+    private void applySelectiveDecoding(CompositeCodec compositeCodec, String selectionPath, Map<String, Codec<Object>> subElementCodecMap) {
+        if (!selectionPath.isEmpty() && !hasSelectedSubElement(selectionPath, subElementCodecMap.keySet())) {
+            // the selected index paths don't match the configured sub-elements (e.g. the keys of a key-value composite)
+            return;
+        }
+        for (Map.Entry<String, Codec<Object>> subElementCodec : subElementCodecMap.entrySet()) {
+            String index = subElementCodec.getKey();
+            String indexPath = toIndexPath(selectionPath, index);
+            Codec<Object> codec = subElementCodec.getValue();
+            if (!selectedElements.contains(indexPath) && !isPartiallySelected(indexPath) && compositeCodec.isLazilyDecodable(index, codec)) {
+                subElementCodec.setValue(new SkipCodecFilter(codec));
+            }
+        }
+    }
+
+    private boolean hasSelectedSubElement(String selectionPath, Set<String> indexes) {
+        for (String index : indexes) {
+            String indexPath = toIndexPath(selectionPath, index);
+            if (selectedElements.contains(indexPath) || isPartiallySelected(indexPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String toIndexPath(String parentPath, String index) {
+        return parentPath.isEmpty() ? index : parentPath + "." + index;
+    }
+
+    /**
+     * @return {@code true} if an element within the element of the index path is selected but not the element itself
+     */
+    private boolean isPartiallySelected(String indexPath) {
+        if (selectedElements.contains(indexPath)) {
+            return false;
+        }
+        String prefix = indexPath + ".";
+        for (String selectedElement : selectedElements) {
+            if (selectedElement.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private Codec wrap(Codec codec, Class filter) {
         CodecFilter codecFilter = buildObject(filter);
         codecFilter.chain = codec;
+        codecFilter.sectionsEnabled = codec.sectionsEnabled;
         return codecFilter;
     }
 
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import static java.lang.String.format;
+
+/**
+ * Reads messages framed by a {@link FrameHeader} from a {@code ReadableByteChannel} (e.g. a {@code SocketChannel}).
+ * Bytes are read to a single buffer and each complete frame is decoded directly from that buffer, a read can end in the
+ * middle of a frame or contain several frames.  The bytes of an incomplete frame are kept for the next read.
+ * <p/>
+ * When the codec decodes lazily the bytes of each frame are copied since the buffer is reused by the next read.
+ * <p/>
+ * A {@code MessageFramer} holds the state of one stream and is not thread safe.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public final class MessageFramer {
+
+    private final MessageCodec messageCodec;
+    private final FrameHeader header;
+    private final ByteBuffer buffer;
+    private final boolean copyFrames;
+
+    /**
+     * @param messageCodec the codec of the messages
+     * @param header       the header of each frame
+     * @param bufferSize   the size of the read buffer which limits the size of a frame including the header
+     */
+    public MessageFramer(MessageCodec messageCodec, FrameHeader header, int bufferSize) {
+        this(messageCodec, header, ByteBuffer.allocate(bufferSize));
+    }
+
+    /**
+     * @param messageCodec the codec of the messages
+     * @param header       the header of each frame
+     * @param buffer       the read buffer (e.g. a direct buffer) which is owned by the framer from now on
+     */
+    public MessageFramer(MessageCodec messageCodec, FrameHeader header, ByteBuffer buffer) {
+        if (buffer.capacity() <= header.size()) {
+            throw new IllegalArgumentException(format("Buffer size %d cannot fit a frame", buffer.capacity()));
+        }
+        this.messageCodec = messageCodec;
+        this.header = header;
+        this.buffer = buffer;
+        this.copyFrames = messageCodec.getConfig().isLazyDecoding();
+        buffer.clear();
+    }
+
+    /**
+     * Reads from the channel once and decodes all the complete frames in the buffer.  A non-blocking channel may not
+     * have any bytes to read in which case no message is decoded.
+     * <p/>
+     * If decoding a frame fails the exception is thrown after the frame is consumed, so reading can continue with the
+     * next frame.
+     *
+     * @param channel the channel to read from
+     * @param handler the handler of the decoded messages
+     * @return the number of messages decoded, or -1 if the channel has reached end-of-stream and all the frames were
+     * decoded
+     * @throws EOFException if the channel reached end-of-stream in the middle of a frame
+     * @throws IOException  if reading from the channel fails
+     */
+    public int read(ReadableByteChannel channel, MessageHandler handler) throws IOException {
+        int read = channel.read(buffer);
+        buffer.flip();
+        int count;
+        try {
+            // frames left by a failed decode are decoded even if there is nothing more to read
+            count = decodeFrames(handler);
+        } finally {
+            buffer.compact();
+        }
+        if (read < 0 && count == 0) {
+            if (buffer.position() > 0) {
+                throw new EOFException(format("End of stream with %d bytes of an incomplete frame", buffer.position()));
+            }
+            return -1;
+        }
+        return count;
+    }
+
+    private int decodeFrames(MessageHandler handler) {
+        int count = messageCodec.decodeAll(buffer, header, handler, copyFrames);
+        if (buffer.remaining() == buffer.capacity()) {
+            // the stream cannot be resynchronized after a frame which can never be read
+            throw new RuntimeException(format("Frame exceeds the buffer size %d", buffer.capacity()));
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Changes elements of an already encoded message without decoding and encoding the whole message, e.g. to build a
+ * response from the bytes of the request by changing the MTI and setting the response code.
+ * <p/>
+ * The message is decoded lazily so only the changed elements are decoded.  If every changed message element is encoded
+ * to the same number of bytes as before, its bytes are overwritten in place.  Otherwise (e.g. an element is added or
+ * removed or a var length element changes length) the message is encoded again, in which case the elements which were
+ * not changed are copied as is while the bitmap and the length prefixes of the changed elements are encoded from the
+ * new values.  A change to a sub-element (e.g. {@code "48.1"}) re-encodes the whole message element it belongs to.
+ * <p/>
+ * A {@code MessagePatcher} has no state of its own and is thread safe.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public final class MessagePatcher {
+
+    private final MessageCodec messageCodec;
+    private final CompositeCodec rootCodec;
+
+    /**
+     * @param messageCodec the codec of the messages which should be configured with lazy decoding
+     * @throws IllegalArgumentException if the codec doesn't decode lazily, decodes selectively or if the message is not
+     *                                  a composite
+     */
+    public MessagePatcher(MessageCodec messageCodec) {
+        MessageCodecConfig config = messageCodec.getConfig();
+        if (!config.isLazyDecoding()) {
+            throw new IllegalArgumentException("Patching requires a codec with lazy decoding");
+        }
+        if (config.getSelectedElements() != null) {
+            throw new IllegalArgumentException("Patching requires a codec which decodes all the elements");
+        }
+        if (!(config.getRootCodec() instanceof CompositeCodec)) {
+            throw new IllegalArgumentException(format("Patching is not supported by %s", config.getRootCodec().getClass().getSimpleName()));
+        }
+        this.messageCodec = messageCodec;
+        this.rootCodec = (CompositeCodec) config.getRootCodec();
+    }
+
+    /**
+     * Changes the elements of the encoded message.
+     *
+     * @param encoded the encoded message which is modified if the changes can be made in place
+     * @param changes the new values by index path, a {@code null} value removes the element
+     * @return the encoded message itself if the changes were made in place, otherwise the newly encoded message
+     * @throws IllegalArgumentException if an index path is not valid or has no codec configured
+     */
+    public byte[] patch(byte[] encoded, Map<String, ?> changes) {
+        Message message = messageCodec.decode(encoded);
+        CompositeMap elements = message.getCompositeMap();
+
+        // the original placeholders of the changed message elements
+        Map<String, Object> originalElements = new HashMap<>();
+        for (String indexPath : changes.keySet()) {
+            String index = toElementIndex(indexPath);
+            if (!rootCodec.getSubElementsCodecs().containsKey(index)) {
+                throw new IllegalArgumentException(format("No codec defined for %s", indexPath));
+            }
+            originalElements.put(index, elements.getUndecoded(index));
+        }
+        for (Map.Entry<String, ?> change : changes.entrySet()) {
+            if (change.getValue() != null) {
+                message.setElement(change.getKey(), change.getValue());
+            } else {
+                message.removeElement(change.getKey());
+            }
+        }
+
+        for (Map.Entry<String, Object> originalElement : originalElements.entrySet()) {
+            // an element which is added or removed changes the bitmap
+            if (!(originalElement.getValue() instanceof LazyElement) || elements.getUndecoded(originalElement.getKey()) == null) {
+                return messageCodec.encode(message);
+            }
+        }
+        Map<Integer, byte[]> patches = new HashMap<>();
+        for (Map.Entry<String, Object> originalElement : originalElements.entrySet()) {
+            String index = originalElement.getKey();
+            byte[] patch = encodeInPlace(encoded, originalElement.getValue(), index, elements.getUndecoded(index));
+            if (patch == null) {
+                return messageCodec.encode(message);
+            }
+            patches.put(getOffset(originalElement.getValue()), patch);
+        }
+        for (Map.Entry<Integer, byte[]> patch : patches.entrySet()) {
+            System.arraycopy(patch.getValue(), 0, encoded, patch.getKey(), patch.getValue().length);
+        }
+        return encoded;
+    }
+
+    private static String toElementIndex(String indexPath) {
+        int separator = indexPath.indexOf('.');
+        return separator < 0 ? indexPath : indexPath.substring(0, separator);
+    }
+
+    /**
+     * Encodes the changed message element if it can replace the original bytes in place.
+     *
+     * @return the encoded bytes, or {@code null} if the message has to be encoded again
+     */
+    private byte[] encodeInPlace(byte[] encoded, Object originalElement, String index, Object element) {
+        ByteBuffer originalBytes = ((LazyElement) originalElement).getEncodedBytes();
+        if (!originalBytes.hasArray() || originalBytes.array() != encoded) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(originalBytes.remaining());
+        Codec<?> codec = rootCodec.getSubElementsCodecs().get(index);
+        try {
+            rootCodec.encodeSubElement(index, codec, buffer, element);
+        } catch (RuntimeException e) {
+            if (MessageCodec.isOverflow(e)) {
+                return null;
+            }
+            throw e;
+        }
+        return buffer.hasRemaining() ? null : buffer.array();
+    }
+
+    private static int getOffset(Object originalElement) {
+        ByteBuffer originalBytes = ((LazyElement) originalElement).getEncodedBytes();
+        return originalBytes.arrayOffset() + originalBytes.position();
+    }
+
+}
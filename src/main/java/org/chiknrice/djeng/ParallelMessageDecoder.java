@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Decodes the messages of a buffer framed by a {@link FrameHeader} in parallel using a {@code ForkJoinPool}.  The frames
+ * are first indexed then split into ranges which are decoded by the pool's threads using the same shared codec.
+ * <p/>
+ * Ordered decoding decodes a window of frames at a time (a number of frames per pool thread) and delivers the messages
+ * of the window to the handler in the order of the frames, from the calling thread, before decoding the next window.
+ * Unordered decoding delivers each message from the pool thread which decoded it as soon as it is decoded, in which case
+ * the handler has to be thread safe.
+ * <p/>
+ * A {@code ParallelMessageDecoder} has no state of its own and is thread safe.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public final class ParallelMessageDecoder {
+
+    private static final int TASKS_PER_THREAD = 8;
+    private static final int WINDOW_PER_THREAD = 256;
+
+    private final MessageCodec messageCodec;
+    private final FrameHeader header;
+    private final ForkJoinPool pool;
+    private final boolean ordered;
+
+    /**
+     * @param messageCodec the codec of the messages
+     * @param header       the header of each frame
+     * @param pool         the pool where the frames would be decoded
+     * @param ordered      delivers the messages in the order of the frames
+     */
+    public ParallelMessageDecoder(MessageCodec messageCodec, FrameHeader header, ForkJoinPool pool, boolean ordered) {
+        this.messageCodec = messageCodec;
+        this.header = header;
+        this.pool = pool;
+        this.ordered = ordered;
+    }
+
+    FrameHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * Decodes the messages from the buffer's current position up to its limit the same as {@link
+     * MessageCodec#decodeAll(ByteBuffer, FrameHeader, MessageHandler)}.  An incomplete message at the end of the buffer
+     * is left for the caller, in which case the position of the buffer is at its header.
+     * <p/>
+     * If a message fails to decode the exception is thrown once the running tasks finish and the buffer's position is not
+     * changed, although the messages of the previous windows or, when decoding unordered, some of the other messages may
+     * have already been delivered.
+     *
+     * @param buffer  the buffer where the messages would be decoded from
+     * @param handler the handler of the decoded messages
+     * @return the number of messages decoded
+     */
+    public int decodeAll(ByteBuffer buffer, MessageHandler handler) {
+        int[] frames = indexFrames(buffer);
+        int count = frames.length - 1;
+        if (ordered) {
+            int window = pool.getParallelism() * WINDOW_PER_THREAD;
+            Message[] messages = new Message[Math.min(count, window)];
+            for (int from = 0; from < count; from += window) {
+                int to = Math.min(count, from + window);
+                decode(buffer, frames, from, to, messages, handler);
+                for (int i = from; i < to; i++) {
+                    Message message = messages[i - from];
+                    messages[i - from] = null;
+                    handler.onMessage(message);
+                }
+            }
+        } else if (count > 0) {
+            decode(buffer, frames, 0, count, null, handler);
+        }
+        buffer.position(frames[count]);
+        return count;
+    }
+
+    private void decode(ByteBuffer buffer, int[] frames, int from, int to, Message[] messages, MessageHandler handler) {
+        int threshold = Math.max(1, (to - from) / (pool.getParallelism() * TASKS_PER_THREAD));
+        pool.invoke(new DecodeTask(messageCodec, header.size(), buffer, frames, from, to, threshold, messages, from,
+                handler));
+    }
+
+    /**
+     * @return the positions of the complete frames in the buffer followed by the position after the last one
+     */
+    private int[] indexFrames(ByteBuffer buffer) {
+        ByteBuffer frame = buffer.duplicate();
+        int[] frames = new int[64];
+        int count = 0;
+        while (true) {
+            int start = frame.position();
+            if (count == frames.length) {
+                frames = Arrays.copyOf(frames, count * 2);
+            }
+            frames[count] = start;
+            if (frame.remaining() < header.size()) {
+                break;
+            }
+            int length = header.getLength(frame);
+            if (frame.remaining() < length) {
+                break;
+            }
+            frame.position(frame.position() + length);
+            count++;
+        }
+        return Arrays.copyOf(frames, count + 1);
+    }
+
+    private static final class DecodeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MessageCodec messageCodec;
+        private final int headerSize;
+        private final ByteBuffer buffer;
+        private final int[] frames;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        // the messages of the window, or null if decoding unordered
+        private final Message[] messages;
+        private final int window;
+        private final MessageHandler handler;
+
+        private DecodeTask(MessageCodec messageCodec, int headerSize, ByteBuffer buffer, int[] frames, int from, int to,
+                           int threshold, Message[] messages, int window, MessageHandler handler) {
+            this.messageCodec = messageCodec;
+            this.headerSize = headerSize;
+            this.buffer = buffer;
+            this.frames = frames;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.messages = messages;
+            this.window = window;
+            this.handler = handler;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                // each task has its own position and limit on the shared bytes
+                ByteBuffer frame = buffer.duplicate();
+                for (int i = from; i < to; i++) {
+                    frame.limit(frames[i + 1]);
+                    frame.position(frames[i] + headerSize);
+                    Message message = messageCodec.decodeFrom(frame);
+                    if (messages != null) {
+                        messages[i - window] = message;
+                    } else {
+                        handler.onMessage(message);
+                    }
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new DecodeTask(messageCodec, headerSize, buffer, frames, from, mid, threshold, messages, window,
+                                handler),
+                        new DecodeTask(messageCodec, headerSize, buffer, frames, mid, to, threshold, messages, window,
+                                handler));
+            }
+        }
+
+    }
+
+}
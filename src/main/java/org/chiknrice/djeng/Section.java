@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+/**
+ * A {@code Section} is a record of the bytes encoded or decoded for a single message element.  Sections are only
+ * recorded when a {@link SectionListener} is configured and are ordered by their position in the message.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public final class Section implements Comparable<Section> {
+
+    private final int pos;
+    private final int len;
+    private final String indexPath;
+    private final Object value;
+    private final String hex;
+
+    Section(int pos, int len, String indexPath, Object value, String hex) {
+        this.pos = pos;
+        this.len = len;
+        this.indexPath = indexPath;
+        this.value = value;
+        this.hex = hex;
+    }
+
+    /**
+     * @return the position of the section relative to the start of the backing byte array
+     */
+    public int getPosition() {
+        return pos;
+    }
+
+    /**
+     * @return the number of bytes of the section
+     */
+    public int getLength() {
+        return len;
+    }
+
+    /**
+     * @return the index path of the element which the section represents
+     */
+    public String getIndexPath() {
+        return indexPath;
+    }
+
+    /**
+     * @return the value of the element which the section represents
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * @return the bytes of the section as hex characters
+     */
+    public String getHex() {
+        return hex;
+    }
+
+    @Override
+    public int compareTo(Section o) {
+        return pos < o.pos ? -1 : pos > o.pos ? 1 : 0;
+    }
+
+    @Override
+    public String toString() {
+        int leftPad = 5 - (indexPath.contains(".") ? indexPath.indexOf(".") : indexPath.length());
+        int rightPad = 20 - leftPad - indexPath.length();
+        return String.format("%5d[%5d]|%" + leftPad + "s%s%" + rightPad + "s%40s | 0x%-40s", pos, len, "", indexPath, "", value, hex);
+    }
+
+}
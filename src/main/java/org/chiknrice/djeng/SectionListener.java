@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.util.SortedSet;
+
+/**
+ * A {@code SectionListener} is the sink of the {@link Section}s recorded while a message is encoded or decoded.  It is
+ * configured via {@link MessageCodecConfig.MessageCodecConfigBuilder#withSectionListener(SectionListener)}.  When no
+ * listener is configured, sections are not recorded at all.  A listener is shared by all threads using the same
+ * {@link MessageCodec} and therefore needs to be thread safe.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public interface SectionListener {
+
+    /**
+     * Called after a message is encoded (even if encoding failed).
+     *
+     * @param sections the sections recorded, ordered by position
+     */
+    void onEncode(SortedSet<Section> sections);
+
+    /**
+     * Called after a message is decoded (even if decoding failed).
+     *
+     * @param sections the sections recorded, ordered by position
+     */
+    void onDecode(SortedSet<Section> sections);
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code SkipCodecFilter} is applied by the configuration to the elements which were not selected when selective
+ * decoding is enabled.  Decoding only skips the encoded bytes of the element and returns {@code null} so the element is
+ * left out of the decoded composite.  Encoding is passed to the codec.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+final class SkipCodecFilter extends CodecFilter<Object, Object> {
+
+    SkipCodecFilter(Codec<Object> codec) {
+        this.chain = codec;
+        this.attributes = codec.attributes;
+        this.sectionsEnabled = codec.sectionsEnabled;
+    }
+
+    @Override
+    protected void encode(ByteBuffer buffer, Object element, Codec<Object> chain) {
+        chain.encode(buffer, element);
+    }
+
+    @Override
+    protected Object decode(ByteBuffer buffer, Codec<Object> chain) {
+        chain.skip(buffer);
+        return null;
+    }
+
+    @Override
+    public void skip(ByteBuffer buffer) {
+        chain.skip(buffer);
+    }
+
+}
@@ -15,15 +15,19 @@
  */
 package org.chiknrice.djeng.fin;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.NoSuchElementException;
 
 /**
  * The {@code Bitmap} class represents a bitmap as defined by ISO8583/AS2805.  It provides methods to set and test a bit
  * and encapsulates primary and secondary bitmap sizes of different bitmap types.  It is also used to represent the
  * bitmap in a data set as specified in ISO8583 2003.  It is {@code Iterable} and will iterate through the bits in the
  * natural order of numbers.
+ * <p/>
+ * The bits are kept in 64-bit words where bit 1 is the most significant bit of the first word, which is the same order
+ * as the bits of a binary bitmap.  Bits from 1 to {@value #MAX_BIT} (primary, secondary and tertiary bitmaps) are
+ * supported.  Iterating using {@link #nextSetBit(int)} doesn't box the bits.
  *
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
@@ -48,33 +52,178 @@ public final class Bitmap implements Iterable<Integer> {
         }
     }
 
-    private final Set<Integer> setBits;
+    /**
+     * The highest bit which covers the primary, secondary and tertiary bitmaps.
+     */
+    public static final int MAX_BIT = 192;
+
+    static final int WORDS = MAX_BIT / 64;
+
+    private final long[] words;
 
     public Bitmap() {
-        setBits = new TreeSet<>();
+        words = new long[WORDS];
+    }
+
+    private static int wordIndex(int bit) {
+        return (bit - 1) >>> 6;
+    }
+
+    private static long bitMask(int bit) {
+        return 1L << (63 - ((bit - 1) & 63));
+    }
+
+    private static void checkBit(int bit) {
+        if (bit < 1 || bit > MAX_BIT) {
+            throw new IllegalArgumentException("Bit should be from 1 to " + MAX_BIT);
+        }
     }
 
     public boolean isSet(int bit) {
-        return setBits.contains(bit);
+        return bit >= 1 && bit <= MAX_BIT && (words[wordIndex(bit)] & bitMask(bit)) != 0;
     }
 
     public void set(int bit) {
-        setBits.add(bit);
+        checkBit(bit);
+        words[wordIndex(bit)] |= bitMask(bit);
+    }
+
+    public void clear(int bit) {
+        checkBit(bit);
+        words[wordIndex(bit)] &= ~bitMask(bit);
+    }
+
+    /**
+     * Gets the next set bit without boxing, e.g. {@code for (int bit = bitmap.nextSetBit(1); bit > 0; bit =
+     * bitmap.nextSetBit(bit + 1))}.
+     *
+     * @param fromBit the bit to start from (inclusive)
+     * @return the next set bit or -1 if there are no more set bits
+     */
+    public int nextSetBit(int fromBit) {
+        if (fromBit < 1) {
+            fromBit = 1;
+        }
+        if (fromBit > MAX_BIT) {
+            return -1;
+        }
+        int wordIndex = wordIndex(fromBit);
+        long word = words[wordIndex] & (-1L >>> ((fromBit - 1) & 63));
+        while (true) {
+            if (word != 0) {
+                return wordIndex * 64 + Long.numberOfLeadingZeros(word) + 1;
+            }
+            if (++wordIndex == WORDS) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    /**
+     * @return the number of set bits
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Keeps only the bits which are also set in the other bitmap.
+     *
+     * @param other the other bitmap
+     */
+    public void and(Bitmap other) {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] &= other.words[i];
+        }
+    }
+
+    /**
+     * Sets the bits which are set in the other bitmap.
+     *
+     * @param other the other bitmap
+     */
+    public void or(Bitmap other) {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    /**
+     * Clears the bits which are set in the other bitmap.
+     *
+     * @param other the other bitmap
+     */
+    public void andNot(Bitmap other) {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+
+    /**
+     * @param wordIndex the index of the word where word 0 has bits 1 to 64
+     * @return the bits of the word where the lowest bit is the most significant bit
+     */
+    long getWord(int wordIndex) {
+        return words[wordIndex];
+    }
+
+    void setWord(int wordIndex, long word) {
+        words[wordIndex] = word;
     }
 
     @Override
     public Iterator<Integer> iterator() {
-        return setBits.iterator();
+        return new Iterator<Integer>() {
+
+            private int next = nextSetBit(1);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next > 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextSetBit(next + 1);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                clear(last);
+                last = -1;
+            }
+        };
     }
 
     @Override
     public String toString() {
-        return setBits.toString();
+        StringBuilder sb = new StringBuilder("[");
+        for (int bit = nextSetBit(1); bit > 0; bit = nextSetBit(bit + 1)) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(bit);
+        }
+        return sb.append(']').toString();
     }
 
     @Override
     public int hashCode() {
-        return setBits.hashCode();
+        return Arrays.hashCode(words);
     }
 
     @Override
@@ -87,7 +236,7 @@ public final class Bitmap implements Iterable<Integer> {
             return false;
         } else {
             Bitmap other = (Bitmap) o;
-            return setBits.equals(other.setBits);
+            return Arrays.equals(words, other.words);
         }
     }
 
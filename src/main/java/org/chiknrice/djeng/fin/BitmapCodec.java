@@ -18,119 +18,193 @@ package org.chiknrice.djeng.fin;
 import org.chiknrice.djeng.ByteUtil;
 import org.chiknrice.djeng.ElementCodec;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
  * The {@code BitmapCodec} class decodes/encodes {@link Bitmap} elements based on a {@link Bitmap.Encoding}.
+ * <p/>
+ * A bitmap is made of a primary bitmap followed by secondary bitmaps where the first bit of each bitmap indicates if
+ * another bitmap follows, up to bit {@value Bitmap#MAX_BIT}.  The bits are moved between the buffer and the {@code Bitmap} a 64-bit word at a time, the
+ * extension bits are set/cleared on the words rather than testing each bit.
  *
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
 public class BitmapCodec extends ElementCodec<Bitmap> {
 
+    private static final int MAX_BYTES = Bitmap.MAX_BIT / 8;
+
+    private Bitmap.Encoding encoding;
+
+    @Override
+    protected void compile() {
+        super.compile();
+        encoding = getAttribute(FinancialAttribute.BITMAP_ENCODING);
+    }
+
     @Override
     protected byte[] encodeValue(Bitmap bitmap) {
-        Bitmap.Encoding encoding = getAttribute(FinancialAttribute.BITMAP_ENCODING);
-        int offset = 0;
-        byte[] bytes = new byte[encoding.primaryBitmapLength];
-        // TODO: Is the bitmap up to 32 bytes (for HEX) only? how about data set bitmap?
-        ByteBuffer buffer = ByteBuffer.allocate(32);
-        for (int i = 1; i < 129; i++) {
-            if (!bitmap.isSet(i)) {
-                continue;
+        long[] words = new long[Bitmap.WORDS];
+        int bytesCount = toEncodedWords(bitmap, words);
+        byte[] bytes = new byte[Bitmap.Encoding.HEX.equals(encoding) ? bytesCount * 2 : bytesCount];
+        putWords(ByteBuffer.wrap(bytes), words, bytesCount);
+        return bytes;
+    }
+
+    @Override
+    protected void encodeValue(ByteBuffer buffer, Bitmap bitmap) {
+        long[] words = new long[Bitmap.WORDS];
+        putWords(buffer, words, toEncodedWords(bitmap, words));
+    }
+
+    /**
+     * Copies the bits to the words and sets the extension bit of each bitmap which is followed by another bitmap.
+     *
+     * @param bitmap the bitmap to encode
+     * @param words  the words where the bits would be copied to
+     * @return the number of bytes of the encoded bitmap (before hex encoding)
+     */
+    private int toEncodedWords(Bitmap bitmap, long[] words) {
+        int highestBit = 0;
+        for (int i = 0; i < words.length; i++) {
+            words[i] = bitmap.getWord(i);
+            if (words[i] != 0) {
+                highestBit = i * 64 + 64 - Long.numberOfTrailingZeros(words[i]);
+            }
+        }
+        int bitmapStart = 1;
+        int bytesCount = encoding.primaryBitmapLength;
+        while (highestBit > bytesCount * 8) {
+            int wordIndex = (bitmapStart - 1) >>> 6;
+            long extensionBit = 1L << (63 - ((bitmapStart - 1) & 63));
+            if ((words[wordIndex] & extensionBit) != 0) {
+                throw new RuntimeException("Extension bit should not be set");
+            }
+            words[wordIndex] |= extensionBit;
+            bitmapStart = bytesCount * 8 + 1;
+            bytesCount += encoding.secondaryBitmapLength;
+        }
+        return bytesCount;
+    }
+
+    private void putWords(ByteBuffer buffer, long[] words, int bytesCount) {
+        boolean hex = Bitmap.Encoding.HEX.equals(encoding);
+        for (int i = 0; bytesCount > 0; i++) {
+            int wordBytes = Math.min(8, bytesCount);
+            long word = words[i];
+            if (hex) {
+                ByteUtil.putHexLong(buffer, word >>> (64 - wordBytes * 8), wordBytes);
+            } else if (wordBytes == 8) {
+                buffer.putLong(word);
             } else {
-                int byteIndex = (i - 1) / 8;
-                while (byteIndex >= (bytes.length + offset)) {
-                    if ((bytes[0] & 0x80) > 0) {
-                        throw new RuntimeException("Extension bit should not be set");
-                    }
-                    bytes[0] |= 0x80;
-                    buffer.put(Bitmap.Encoding.HEX.equals(encoding) ? ByteUtil.encodeHex(bytes).getBytes(StandardCharsets.ISO_8859_1) : bytes);
-                    offset += bytes.length;
-                    bytes = new byte[encoding.secondaryBitmapLength];
+                for (int shift = 56; shift > 56 - wordBytes * 8; shift -= 8) {
+                    buffer.put((byte) (word >>> shift));
                 }
-                bytes[byteIndex - offset] |= (128 >> ((i - 1) % 8));
             }
+            bytesCount -= wordBytes;
         }
-        buffer.put(Bitmap.Encoding.HEX.equals(encoding) ? ByteUtil.encodeHex(bytes).getBytes(StandardCharsets.ISO_8859_1) : bytes);
-        bytes = new byte[buffer.position()];
-        buffer.rewind();
-        buffer.get(bytes);
-        return bytes;
     }
 
     @Override
     protected Bitmap decodeValue(byte[] bytes) {
-        Bitmap.Encoding encoding = getAttribute(FinancialAttribute.BITMAP_ENCODING);
+        return decodeBitmap(ByteBuffer.wrap(bytes), 0, bytes.length, false);
+    }
+
+    @Override
+    protected Bitmap decodeValue(ByteBuffer buffer) {
+        int dataBytesCount = getDataBytesCount(buffer);
+        if (dataBytesCount > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        int start = buffer.position();
+        Bitmap bitmap = decodeBitmap(buffer, start, dataBytesCount, Bitmap.Encoding.HEX.equals(encoding));
+        buffer.position(start + dataBytesCount);
+        return bitmap;
+    }
+
+    /**
+     * Reads the bits from the bitmap bytes a word at a time and clears the extension bit of each bitmap which is
+     * followed by another bitmap.  The bytes are read with absolute gets so the buffer's position is not changed.
+     *
+     * @param buffer         the buffer of the bitmap bytes which are hex characters if {@code hex} is true
+     * @param start          the position of the bitmap bytes in the buffer
+     * @param dataBytesCount the number of bitmap bytes
+     * @param hex            if the bitmap bytes are hex characters representing the nibbles
+     * @return the bitmap
+     */
+    private Bitmap decodeBitmap(ByteBuffer buffer, int start, int dataBytesCount, boolean hex) {
+        int bytesCount = Math.min(hex ? dataBytesCount / 2 : dataBytesCount, MAX_BYTES);
         Bitmap bitmap = new Bitmap();
-        for (int bit = 1; bit < 129; bit++) {
-            int byteIndex = (bit - 1) / 8;
-            // if set
-            if (byteIndex < bytes.length && (bytes[byteIndex] & (128 >> ((bit - 1) % 8))) > 0) {
-                switch (encoding) {
-                    case HEX:
-                    case BINARY:
-                        if (bit != 1) {
-                            bitmap.set(bit);
-                        }
-                        break;
-                    case DATA_SET:
-                        if (bit != 1 && bit != 17 && bit != 25) {
-                            bitmap.set(bit);
-                        }
-                        break;
-                    default:
+        for (int i = 0, pos = start, remaining = bytesCount; remaining > 0; i++) {
+            int wordBytes = Math.min(8, remaining);
+            long word = 0;
+            for (int shift = 56; shift > 56 - wordBytes * 8; shift -= 8) {
+                int b;
+                if (hex) {
+                    b = ByteUtil.hexValue((char) (buffer.get(pos) & 0xFF)) << 4
+                            | ByteUtil.hexValue((char) (buffer.get(pos + 1) & 0xFF));
+                    pos += 2;
+                } else {
+                    b = buffer.get(pos++) & 0xFF;
                 }
+                word |= (long) b << shift;
             }
+            bitmap.setWord(i, word);
+            remaining -= wordBytes;
+        }
+        int bitmapStart = 1;
+        int bitmapEnd = encoding.primaryBitmapLength;
+        while (bitmapEnd < bytesCount) {
+            bitmap.clear(bitmapStart);
+            bitmapStart = bitmapEnd * 8 + 1;
+            bitmapEnd += encoding.secondaryBitmapLength;
         }
         return bitmap;
     }
 
     @Override
     protected byte[] getDataBytes(ByteBuffer buffer) {
-        Bitmap.Encoding encoding = getAttribute(FinancialAttribute.BITMAP_ENCODING);
-        byte[] bytes;
+        byte[] bytes = super.getDataBytes(buffer);
+        if (Bitmap.Encoding.HEX.equals(encoding)) {
+            bytes = ByteUtil.decodeHex(new String(bytes, StandardCharsets.ISO_8859_1));
+        }
+        return bytes;
+    }
+
+    @Override
+    protected int getDataBytesCount(ByteBuffer buffer) {
+        int start = buffer.position();
+        int dataBytesCount;
         switch (encoding) {
             case BINARY:
-                buffer.mark();
-                if ((buffer.get() & 0x80) == 0) {
-                    bytes = new byte[8];
-                } else {
-                    bytes = new byte[16];
+                // 8 byte bitmaps while the extension bit is set, up to the tertiary bitmap
+                dataBytesCount = 8;
+                while (dataBytesCount < MAX_BYTES && (buffer.get(start + dataBytesCount - 8) & 0x80) != 0) {
+                    dataBytesCount += 8;
                 }
-                buffer.reset();
-                buffer.get(bytes);
                 break;
             case HEX:
-                buffer.mark();
-                if ((ByteUtil.hexValue((char) buffer.get()) & 0x8) == 0) {
-                    bytes = new byte[16];
-                } else {
-                    bytes = new byte[32];
+                // same as binary with 2 hex characters per byte
+                dataBytesCount = 16;
+                while (dataBytesCount < MAX_BYTES * 2
+                        && (ByteUtil.hexValue((char) buffer.get(start + dataBytesCount - 16)) & 0x8) != 0) {
+                    dataBytesCount += 16;
                 }
-                buffer.reset();
-                buffer.get(bytes);
-                bytes = ByteUtil.decodeHex(new String(bytes, StandardCharsets.ISO_8859_1));
                 break;
             case DATA_SET:
-                buffer.mark();
-                int total = 0;
-                bytes = new byte[2];
-                boolean hasNext;
-                do {
-                    buffer.get(bytes);
-                    total += bytes.length;
-                    hasNext = (bytes[0] & 0x80) > 0;
-                    bytes = new byte[1];
-                } while (hasNext);
-                buffer.reset();
-                bytes = new byte[total];
-                buffer.get(bytes);
+                // the primary bitmap is 2 bytes followed by 1 byte bitmaps while the extension bit is set
+                dataBytesCount = 2;
+                boolean hasNext = (buffer.get(start) & 0x80) > 0;
+                while (hasNext && dataBytesCount < MAX_BYTES) {
+                    hasNext = (buffer.get(start + dataBytesCount) & 0x80) > 0;
+                    dataBytesCount++;
+                }
                 break;
             default:
                 throw new RuntimeException("Unsupported bitmap encoding " + encoding);
         }
-        return bytes;
+        return dataBytesCount;
     }
 
 }
@@ -18,6 +18,7 @@ package org.chiknrice.djeng.fin;
 import org.chiknrice.djeng.*;
 
 import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -26,63 +27,142 @@ import java.util.TreeSet;
  * The {@code BitmapCompositeCodec} class is a {@code CompositeCodec} which encodes a bitmap to indicate which elements
  * were included in the encoded composite element.  This codec also expects and decodes a bitmap which indicates which
  * elements are present as part of the composite element.
+ * <p/>
+ * The sub-elements up to and including the bitmap are always encoded/decoded in the order they are configured.  The
+ * sub-elements after the bitmap should have numeric indexes (the bit number) and their codecs are kept in an array
+ * indexed by the bit number so that only the sub-elements present are visited.
  *
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
 public final class BitmapCompositeCodec extends CompositeCodec {
 
+    private Map<String, Codec<?>> leadingCodecs;
+    private String bitmapIndex;
+    private Codec<?>[] bitCodecs;
+
+    @Override
+    protected void compile() {
+        super.compile();
+        leadingCodecs = new LinkedHashMap<>();
+        bitCodecs = new Codec<?>[Bitmap.MAX_BIT + 1];
+        for (Map.Entry<String, Codec> codecEntry : getSubElementsCodecs().entrySet()) {
+            String index = codecEntry.getKey();
+            Codec<?> codec = codecEntry.getValue();
+            if (bitmapIndex == null) {
+                leadingCodecs.put(index, codec);
+                if (isBitmap(codec)) {
+                    bitmapIndex = index;
+                }
+            } else {
+                bitCodecs[toBit(index)] = codec;
+            }
+        }
+        if (bitmapIndex == null) {
+            throw new RuntimeException("No bitmap configured for " + BitmapCompositeCodec.class.getSimpleName());
+        }
+    }
+
+    /**
+     * Parses the bit number of a sub-element after the bitmap which is from 2 up to the highest bit {@link BitmapCodec}
+     * encodes and decodes.
+     */
+    private int toBit(String index) {
+        int bit;
+        try {
+            bit = Integer.parseInt(index);
+        } catch (NumberFormatException e) {
+            bit = -1;
+        }
+        if (bit < 2 || bit > Bitmap.MAX_BIT || !CompositeMap.toIndex(bit).equals(index)) {
+            throw new RuntimeException("Invalid bit number " + index + " of element after the bitmap");
+        }
+        return bit;
+    }
+
     @Override
     protected void encodeSubElements(ByteBuffer buffer, CompositeMap compositeMap, Map<String, Codec> subElementsCodecs) {
-        Set<String> elementsToEncode = new TreeSet<>(compositeMap.keySet());
-        for (Map.Entry<String, Codec> codecEntry : subElementsCodecs.entrySet()) {
+        int encodedCount = 0;
+        Bitmap bitmap = null;
+        for (Map.Entry<String, Codec<?>> codecEntry : leadingCodecs.entrySet()) {
             String index = codecEntry.getKey();
             Codec codec = codecEntry.getValue();
-            if (BitmapCodec.class.equals(codec.getAttribute(CoreAttribute.CLASS))) {
-                Bitmap bitmap = buildBitmap(compositeMap);
+            if (index.equals(bitmapIndex)) {
+                bitmap = buildBitmap(compositeMap);
                 compositeMap.put(index, bitmap);
             }
-            Object messageElement = compositeMap.get(index);
+            Object messageElement = getSubElement(compositeMap, index, codec);
             if (messageElement != null) {
                 encodeSubElement(index, codec, buffer, messageElement);
-                elementsToEncode.remove(index);
+                encodedCount++;
             }
         }
-        if (elementsToEncode.size() > 0) {
-            throw new RuntimeException("Unexpected sub elements " + elementsToEncode);
+        for (int bit = bitmap.nextSetBit(2); bit > 0; bit = bitmap.nextSetBit(bit + 1)) {
+            String index = CompositeMap.toIndex(bit);
+            Codec<?> codec = bitCodecs[bit];
+            encodeSubElement(index, codec, buffer, getSubElement(compositeMap, index, codec));
+            encodedCount++;
+        }
+        if (encodedCount < compositeMap.size()) {
+            Set<String> unexpectedElements = new TreeSet<>(compositeMap.keySet());
+            unexpectedElements.removeAll(leadingCodecs.keySet());
+            for (int bit = bitmap.nextSetBit(2); bit > 0; bit = bitmap.nextSetBit(bit + 1)) {
+                unexpectedElements.remove(CompositeMap.toIndex(bit));
+            }
+            throw new RuntimeException("Unexpected sub elements " + unexpectedElements);
         }
     }
 
+    /**
+     * Sets the bits of the elements which are present and have a codec configured after the bitmap.
+     *
+     * @param compositeMap the composite element being encoded
+     * @return the bitmap of the elements to encode
+     */
     private Bitmap buildBitmap(CompositeMap compositeMap) {
         Bitmap bitmap = new Bitmap();
-        for (int i = 2; i < 129; i++) {
-            if (compositeMap.containsKey(Integer.toString(i))) {
+        for (int i = compositeMap.nextIndex(2); i > 0 && i <= Bitmap.MAX_BIT; i = compositeMap.nextIndex(i + 1)) {
+            if (bitCodecs[i] != null) {
                 bitmap.set(i);
             }
         }
         return bitmap;
     }
 
+    /**
+     * The bitmap is always decoded as it determines the rest of the sub-elements.
+     */
+    @Override
+    protected boolean isLazilyDecodable(String index, Codec<?> codec) {
+        return !isBitmap(codec);
+    }
+
+    private boolean isBitmap(Codec<?> codec) {
+        return BitmapCodec.class.equals(codec.getAttribute(CoreAttribute.CLASS));
+    }
+
     @Override
     protected CompositeMap decodeSubElements(ByteBuffer buffer, Map<String, Codec> subElementsCodecs) {
         Bitmap bitmap = null;
         CompositeMap compositeMap = new CompositeMap();
-        for (Map.Entry<String, Codec> codecEntry : subElementsCodecs.entrySet()) {
+        for (Map.Entry<String, Codec<?>> codecEntry : leadingCodecs.entrySet()) {
             String index = codecEntry.getKey();
-            Codec codec = codecEntry.getValue();
-            Object subElement = decodeSubElement(index, codec, buffer);
-            compositeMap.put(index, subElement);
-            if (BitmapCodec.class.equals(codec.getAttribute(CoreAttribute.CLASS))) {
+            Object subElement = decodeSubElement(index, codecEntry.getValue(), buffer);
+            if (subElement != null) {
+                compositeMap.put(index, subElement);
+            }
+            if (index.equals(bitmapIndex)) {
                 bitmap = (Bitmap) subElement;
-                break;
             }
         }
 
-        for (Integer bit : bitmap) {
-            String index = bit.toString();
-            Codec codec = subElementsCodecs.get(index);
+        for (int bit = bitmap.nextSetBit(1); bit > 0; bit = bitmap.nextSetBit(bit + 1)) {
+            String index = CompositeMap.toIndex(bit);
+            Codec<?> codec = bitCodecs[bit];
             if (codec != null) {
                 Object subElement = decodeSubElement(index, codec, buffer);
-                compositeMap.put(index, subElement);
+                if (subElement != null) {
+                    compositeMap.put(bit, subElement);
+                }
             } else {
                 throw new CodecException("No codec defined", index);
             }
@@ -91,4 +171,30 @@ public final class BitmapCompositeCodec extends CompositeCodec {
         return compositeMap;
     }
 
+    /**
+     * The bitmap is decoded to know which elements to skip.
+     */
+    @Override
+    protected void skipSubElements(ByteBuffer buffer, Map<String, Codec> subElementsCodecs) {
+        Bitmap bitmap = null;
+        for (Map.Entry<String, Codec<?>> codecEntry : leadingCodecs.entrySet()) {
+            String index = codecEntry.getKey();
+            if (index.equals(bitmapIndex)) {
+                bitmap = (Bitmap) decodeSubElement(index, codecEntry.getValue(), buffer);
+            } else {
+                skipSubElement(index, codecEntry.getValue(), buffer);
+            }
+        }
+
+        for (int bit = bitmap.nextSetBit(1); bit > 0; bit = bitmap.nextSetBit(bit + 1)) {
+            String index = CompositeMap.toIndex(bit);
+            Codec<?> codec = bitCodecs[bit];
+            if (codec != null) {
+                skipSubElement(index, codec, buffer);
+            } else {
+                throw new CodecException("No codec defined", index);
+            }
+        }
+    }
+
 }
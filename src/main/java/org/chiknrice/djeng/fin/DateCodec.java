@@ -23,80 +23,179 @@ import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.TimeZone;
 
 /**
  * The {@code DateCodec} class encodes/decodes {@code Date} elements.  This codec can encode/decode a {@code Date} as
  * {@code Encoding.CHAR} or {@code Encoding.BCD}.  The date is parsed/formatted using the pattern specified in the
- * configuration which conforms to {@code SimpleDateFormat}.
+ * configuration which conforms to {@code SimpleDateFormat}, in the configured timezone or the default timezone if none.
+ * <p/>
+ * Patterns made only of fixed width digit fields (e.g. MMddHHmmss, yyMMdd or HHmmss) are compiled once to a {@link
+ * DigitsDateFormat} which reads and writes the digits directly.  Other patterns use a {@code SimpleDateFormat} cached
+ * per thread.
  *
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
 public class DateCodec extends ElementCodec<Date> {
 
+    private String pattern;
+    private Encoding encoding;
+    private int dataBytesCount;
+    private TimeZone timeZone;
+    private DigitsDateFormat digitsFormat;
+    private ThreadLocal<SimpleDateFormat> simpleFormat;
+
     @Override
-    protected byte[] encodeValue(Date value) {
-        String pattern = getAttribute(FinancialAttribute.PATTERN);
-        SimpleDateFormat format = new SimpleDateFormat(pattern);
-        format.setLenient(false);
-        String dateString = format.format(value);
-        Encoding encoding = getAttribute(FinancialAttribute.DATE_ENCODING);
-        byte[] bytes;
+    protected void compile() {
+        super.compile();
+        pattern = getAttribute(FinancialAttribute.PATTERN);
+        encoding = getAttribute(FinancialAttribute.DATE_ENCODING);
+        String timeZoneId = getAttribute(FinancialAttribute.TIMEZONE);
+        if (timeZoneId != null) {
+            timeZone = TimeZone.getTimeZone(timeZoneId);
+            // unknown IDs silently fall back to GMT
+            if ("GMT".equals(timeZone.getID()) && !"GMT".equals(timeZoneId)) {
+                throw new RuntimeException("Unsupported timezone " + timeZoneId);
+            }
+        } else {
+            timeZone = TimeZone.getDefault();
+        }
+        int length = pattern.length();
         switch (encoding) {
             case CHAR:
-                bytes = dateString.getBytes(StandardCharsets.ISO_8859_1);
+                dataBytesCount = length;
                 break;
             case BCD:
-                bytes = ByteUtil.encodeBcd(dateString);
+                dataBytesCount = length / 2 + length % 2;
                 break;
             default:
                 throw new RuntimeException("Unsupported date encoding " + encoding);
         }
+        // odd BCD patterns are left to SimpleDateFormat which ignores the extra digit
+        digitsFormat = Encoding.BCD.equals(encoding) && length % 2 != 0 ? null :
+                DigitsDateFormat.compile(pattern, timeZone);
+        simpleFormat = new ThreadLocal<SimpleDateFormat>() {
+            @Override
+            protected SimpleDateFormat initialValue() {
+                SimpleDateFormat format = new SimpleDateFormat(pattern);
+                format.setLenient(false);
+                format.setTimeZone(timeZone);
+                return format;
+            }
+        };
+    }
+
+    @Override
+    protected byte[] encodeValue(Date value) {
+        byte[] bytes = new byte[dataBytesCount];
+        putDate(ByteBuffer.wrap(bytes), value);
         return bytes;
     }
 
     @Override
-    protected byte[] getDataBytes(ByteBuffer buffer) {
-        String pattern = getAttribute(FinancialAttribute.PATTERN);
-        Encoding encoding = getAttribute(FinancialAttribute.DATE_ENCODING);
-        int length = pattern.length();
+    protected void encodeValue(ByteBuffer buffer, Date value) {
+        putDate(buffer, value);
+    }
+
+    private void putDate(ByteBuffer buffer, Date value) {
+        long digits = digitsFormat != null ? digitsFormat.format(value.getTime()) : -1;
+        if (digits >= 0) {
+            switch (encoding) {
+                case CHAR:
+                    ByteUtil.putChars(buffer, digits, pattern.length());
+                    break;
+                case BCD:
+                    ByteUtil.putBcd(buffer, digits, pattern.length());
+                    break;
+                default:
+                    throw new RuntimeException("Unsupported date encoding " + encoding);
+            }
+            return;
+        }
+        String dateString = simpleFormat.get().format(value);
         switch (encoding) {
             case CHAR:
-                // already set to pattern length
+                ByteUtil.putChars(buffer, dateString);
                 break;
             case BCD:
-                length = length / 2 + length % 2;
+                ByteUtil.putBcd(buffer, dateString);
                 break;
             default:
                 throw new RuntimeException("Unsupported date encoding " + encoding);
-
         }
-        byte[] bytes = new byte[length];
-        buffer.get(bytes);
-        return bytes;
+    }
+
+    @Override
+    protected int getDataBytesCount(ByteBuffer buffer) {
+        return dataBytesCount;
     }
 
     @Override
     protected Date decodeValue(byte[] bytes) {
-        String pattern = getAttribute(FinancialAttribute.PATTERN);
-        Encoding encoding = getAttribute(FinancialAttribute.DATE_ENCODING);
-        String dateString;
+        return decodeValue(ByteBuffer.wrap(bytes), bytes.length);
+    }
+
+    @Override
+    protected Date decodeValue(ByteBuffer buffer) {
+        return decodeValue(buffer, getDataBytesCount(buffer));
+    }
+
+    private Date decodeValue(ByteBuffer buffer, int dataBytesCount) {
+        if (digitsFormat != null) {
+            int start = buffer.position();
+            long digits = getDigits(buffer, dataBytesCount);
+            if (digits >= 0) {
+                long time;
+                try {
+                    time = digitsFormat.parse(digits);
+                } catch (IllegalArgumentException e) {
+                    buffer.position(start);
+                    throw new RuntimeException(String.format("Unparseable date: \"%s\"",
+                            getDateString(buffer, dataBytesCount)), e);
+                }
+                if (time != Long.MIN_VALUE) {
+                    return new Date(time);
+                }
+            }
+            buffer.position(start);
+        }
+        try {
+            return simpleFormat.get().parse(getDateString(buffer, dataBytesCount));
+        } catch (ParseException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the digits of the date as a number.
+     *
+     * @return the digits, or -1 if the CHAR encoded date is not all digits
+     */
+    private long getDigits(ByteBuffer buffer, int dataBytesCount) {
         switch (encoding) {
             case CHAR:
-                dateString = new String(bytes, StandardCharsets.ISO_8859_1);
-                break;
+                for (int i = buffer.position(), end = i + dataBytesCount; i < end; i++) {
+                    byte b = buffer.get(i);
+                    if (b < '0' || b > '9') {
+                        return -1;
+                    }
+                }
+                return ByteUtil.getCharsLong(buffer, dataBytesCount);
             case BCD:
-                dateString = ByteUtil.decodeBcd(bytes);
-                break;
+                return ByteUtil.getBcdLong(buffer, dataBytesCount);
             default:
                 throw new RuntimeException("Unsupported date encoding " + encoding);
-
         }
-        SimpleDateFormat format = new SimpleDateFormat(pattern);
-        format.setLenient(false);
-        try {
-            return format.parse(dateString);
-        } catch (ParseException e) {
-            throw new RuntimeException(e.getMessage(), e);
+    }
+
+    private String getDateString(ByteBuffer buffer, int dataBytesCount) {
+        switch (encoding) {
+            case CHAR:
+                return ByteUtil.getChars(buffer, dataBytesCount);
+            case BCD:
+                return ByteUtil.getBcd(buffer, dataBytesCount);
+            default:
+                throw new RuntimeException("Unsupported date encoding " + encoding);
         }
     }
 
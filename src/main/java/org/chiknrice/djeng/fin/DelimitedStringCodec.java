@@ -11,41 +11,32 @@ import java.nio.ByteBuffer;
  */
 public class DelimitedStringCodec extends StringCodec {
 
-    private Byte delimiter;
+    private byte delimiter;
 
-    private byte getDelimiter() {
-        if (delimiter == null) {
-            String delimiterHex = getAttribute(FinancialAttribute.DELIMITER);
-            delimiter = new Byte((byte) Integer.parseInt(delimiterHex, 16));
-        }
-        return delimiter.byteValue();
+    @Override
+    protected void compile() {
+        super.compile();
+        String delimiterHex = getAttribute(FinancialAttribute.DELIMITER);
+        delimiter = (byte) Integer.parseInt(delimiterHex, 16);
     }
 
     /**
-     * TODO
+     * The data bytes are up to and including the delimiter, or the remaining bytes if there's no delimiter.
      *
      * @param buffer TODO
      * @return TODO
      */
     @Override
-    protected byte[] getDataBytes(ByteBuffer buffer) {
-        int limit = -1;
-        buffer.mark();
-        while (buffer.hasRemaining()) {
-            byte currentByte = buffer.get();
-            if (currentByte == getDelimiter()) {
-                limit = buffer.position();
-                break;
+    protected int getDataBytesCount(ByteBuffer buffer) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        for (int i = start; i < limit; i++) {
+            if (buffer.get(i) == delimiter) {
+                return i - start + 1;
             }
         }
         // The last delimiter is optional
-        if (!buffer.hasRemaining()) {
-            limit = buffer.position();
-        }
-        buffer.reset();
-        byte[] segment = new byte[limit - buffer.position()];
-        buffer.get(segment);
-        return segment;
+        return limit - start;
     }
 
     /**
@@ -57,13 +48,24 @@ public class DelimitedStringCodec extends StringCodec {
     @Override
     protected String decodeValue(byte[] bytes) {
         String value = super.decodeValue(bytes);
-        if (bytes.length > 0 && bytes[bytes.length - 1] == getDelimiter()) {
+        if (bytes.length > 0 && bytes[bytes.length - 1] == delimiter) {
             return value.substring(0, value.length() - 1);
         } else {
             return value;
         }
     }
 
+    @Override
+    protected String decodeValue(ByteBuffer buffer) {
+        int dataBytesCount = getDataBytesCount(buffer);
+        boolean delimited = dataBytesCount > 0 && buffer.get(buffer.position() + dataBytesCount - 1) == delimiter;
+        String value = decodeString(buffer, delimited ? dataBytesCount - 1 : dataBytesCount);
+        if (delimited) {
+            buffer.get();
+        }
+        return value;
+    }
+
     /**
      * TODO
      *
@@ -73,7 +75,13 @@ public class DelimitedStringCodec extends StringCodec {
     @Override
     protected void putDataBytes(ByteBuffer buffer, byte[] bytes) {
         super.putDataBytes(buffer, bytes);
-        buffer.put(getDelimiter());
+        buffer.put(delimiter);
+    }
+
+    @Override
+    protected void encodeValue(ByteBuffer buffer, String value) {
+        super.encodeValue(buffer, value);
+        buffer.put(delimiter);
     }
 
 }
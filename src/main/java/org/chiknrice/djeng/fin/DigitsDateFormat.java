@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * A date format for patterns made only of fixed width digit fields (yy, yyyy, MM, dd, HH, mm, ss and SSS) such as
+ * MMddHHmmss or yyMMdd.  The formatted date is handled as a single number which is computed from the epoch millis
+ * without a {@code Calendar} so the format can be shared by threads.  It follows the non lenient {@code
+ * SimpleDateFormat} rules: fields are validated, a missing year is 1970 and a 2 digit year falls within 80 years before
+ * and 20 years after the current time.  Unlike {@code SimpleDateFormat}, which fixes the 100 year window when it is
+ * created, the window is moved with the current time once a day so a long running codec doesn't drift.
+ * <p/>
+ * Dates before 1600 or after 9999 are not handled (see {@link #format(long)} and {@link #parse(long)}) so the Julian
+ * calendar and years wider than the field are left to {@code SimpleDateFormat}.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+final class DigitsDateFormat {
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final int MIN_YEAR = 1600;
+    private static final int MAX_YEAR = 9999;
+    private static final int DEFAULT_YEAR = 1970;
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000};
+
+    private final char[] fields;
+    private final int[] widths;
+    private final TimeZone timeZone;
+    // replaced by any thread which finds it expired, the windows computed by racing threads are the same
+    private volatile Century century;
+
+    private DigitsDateFormat(char[] fields, int[] widths, TimeZone timeZone) {
+        this.fields = fields;
+        this.widths = widths;
+        this.timeZone = timeZone;
+    }
+
+    /**
+     * The window of 2 digit years which starts 80 years before the time it was computed.  Like {@code
+     * SimpleDateFormat}, the years are subtracted in the default time zone rather than the time zone of the format.
+     */
+    private static final class Century {
+
+        private final long start;
+        private final int startYear;
+        private final long expiry;
+
+        private Century(long now) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(now);
+            calendar.add(Calendar.YEAR, -80);
+            start = calendar.getTimeInMillis();
+            startYear = calendar.get(Calendar.YEAR);
+            expiry = now + MILLIS_PER_DAY;
+        }
+
+    }
+
+    private Century getCentury() {
+        Century century = this.century;
+        long now = System.currentTimeMillis();
+        if (century == null || now >= century.expiry) {
+            century = new Century(now);
+            this.century = century;
+        }
+        return century;
+    }
+
+    /**
+     * Compiles the pattern if it is only made of supported fields.
+     *
+     * @param pattern  the {@code SimpleDateFormat} pattern
+     * @param timeZone the time zone of the formatted dates
+     * @return the compiled format, or {@code null} if the pattern is not supported
+     */
+    static DigitsDateFormat compile(String pattern, TimeZone timeZone) {
+        // the formatted date should fit in a long
+        if (pattern.length() > 18) {
+            return null;
+        }
+        char[] fields = new char[pattern.length()];
+        int[] widths = new int[pattern.length()];
+        int count = 0;
+        for (int i = 0; i < pattern.length(); ) {
+            char field = pattern.charAt(i);
+            int width = 1;
+            while (i + width < pattern.length() && pattern.charAt(i + width) == field) {
+                width++;
+            }
+            switch (field) {
+                case 'y':
+                    if (width != 2 && width != 4) {
+                        return null;
+                    }
+                    break;
+                case 'M':
+                case 'd':
+                case 'H':
+                case 'm':
+                case 's':
+                    if (width != 2) {
+                        return null;
+                    }
+                    break;
+                case 'S':
+                    if (width != 3) {
+                        return null;
+                    }
+                    break;
+                default:
+                    return null;
+            }
+            for (int j = 0; j < count; j++) {
+                if (fields[j] == field) {
+                    return null;
+                }
+            }
+            fields[count] = field;
+            widths[count++] = width;
+            i += width;
+        }
+        char[] compiledFields = new char[count];
+        int[] compiledWidths = new int[count];
+        System.arraycopy(fields, 0, compiledFields, 0, count);
+        System.arraycopy(widths, 0, compiledWidths, 0, count);
+        return new DigitsDateFormat(compiledFields, compiledWidths, timeZone);
+    }
+
+    /**
+     * Formats the date to the digits of the pattern.
+     *
+     * @param millis the date in epoch millis
+     * @return the digits as a number, or -1 if the year is not handled
+     */
+    long format(long millis) {
+        long local = millis + timeZone.getOffset(millis);
+        long days = floorDiv(local, MILLIS_PER_DAY);
+        int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+        // civil from days, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            return -1;
+        }
+
+        long digits = 0;
+        for (int i = 0; i < fields.length; i++) {
+            int value;
+            switch (fields[i]) {
+                case 'y':
+                    value = widths[i] == 2 ? (int) (year % 100) : (int) year;
+                    break;
+                case 'M':
+                    value = month;
+                    break;
+                case 'd':
+                    value = day;
+                    break;
+                case 'H':
+                    value = millisOfDay / 3600000;
+                    break;
+                case 'm':
+                    value = millisOfDay / 60000 % 60;
+                    break;
+                case 's':
+                    value = millisOfDay / 1000 % 60;
+                    break;
+                default:
+                    value = millisOfDay % 1000;
+            }
+            digits = digits * POWERS_OF_TEN[widths[i]] + value;
+        }
+        return digits;
+    }
+
+    /**
+     * Parses the digits of the pattern.
+     *
+     * @param digits the digits as a number
+     * @return the date in epoch millis, or {@code Long.MIN_VALUE} if the year is not handled
+     * @throws IllegalArgumentException if any of the fields is not valid
+     */
+    long parse(long digits) {
+        int year = DEFAULT_YEAR;
+        int month = 1;
+        int day = 1;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int millis = 0;
+        Century century = null;
+        boolean ambiguousYear = false;
+        for (int i = fields.length - 1; i >= 0; i--) {
+            int power = POWERS_OF_TEN[widths[i]];
+            int value = (int) (digits % power);
+            digits /= power;
+            switch (fields[i]) {
+                case 'y':
+                    if (widths[i] == 2) {
+                        century = getCentury();
+                        int ambiguousTwoDigitYear = century.startYear % 100;
+                        ambiguousYear = value == ambiguousTwoDigitYear;
+                        year = century.startYear / 100 * 100 + value + (value < ambiguousTwoDigitYear ? 100 : 0);
+                    } else {
+                        year = value;
+                    }
+                    break;
+                case 'M':
+                    month = value;
+                    break;
+                case 'd':
+                    day = value;
+                    break;
+                case 'H':
+                    hour = value;
+                    break;
+                case 'm':
+                    minute = value;
+                    break;
+                case 's':
+                    second = value;
+                    break;
+                default:
+                    millis = value;
+            }
+        }
+        if (year < MIN_YEAR) {
+            return Long.MIN_VALUE;
+        }
+        if (month < 1 || month > 12 || hour > 23 || minute > 59 || second > 59) {
+            throw new IllegalArgumentException("Invalid date fields");
+        }
+        long time = toEpochMillis(year, month, day, hour, minute, second, millis);
+        if (ambiguousYear && time < century.start) {
+            time = toEpochMillis(year + 100, month, day, hour, minute, second, millis);
+        }
+        return time;
+    }
+
+    private long toEpochMillis(int year, int month, int day, int hour, int minute, int second, int millis) {
+        if (day < 1 || day > daysInMonth(year, month)) {
+            throw new IllegalArgumentException("Invalid day of month");
+        }
+        // days from civil, see http://howardhinnant.github.io/date_algorithms.html
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = era * 146097L + dayOfEra - 719468;
+        long local = days * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L + second * 1000L + millis;
+
+        // the offset is taken at the time the local time would be in standard time, which is how an ambiguous local
+        // time is resolved, while a local time skipped by a daylight saving transition doesn't exist
+        int offset = timeZone.getOffset(local - timeZone.getRawOffset());
+        long time = local - offset;
+        int actualOffset = timeZone.getOffset(time);
+        if (actualOffset != offset) {
+            time = local - actualOffset;
+            if (timeZone.getOffset(time) != actualOffset) {
+                throw new IllegalArgumentException("Local time does not exist in " + timeZone.getID());
+            }
+        }
+        return time;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+    }
+
+}
@@ -10,6 +10,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import static org.chiknrice.djeng.fin.FinancialAttribute.LENGTH;
+import static org.chiknrice.djeng.fin.FinancialAttribute.PATTERN;
 
 /**
  * The {@code HexCompositeCodec} class expects the data in bytes and coverts it to hex prior to delegating to sub
@@ -21,34 +22,44 @@ import static org.chiknrice.djeng.fin.FinancialAttribute.LENGTH;
  */
 public class HexCompositeCodec extends CompositeCodec {
 
-    private Integer length = null;
+    private int length;
 
     @Override
     protected void encodeSubElements(ByteBuffer buffer, CompositeMap compositeMap, Map<String, Codec> subElementsCodecs) {
-        ByteBuffer tempBuffer = ByteBuffer.allocate(getLength(subElementsCodecs) * 2);
-        try {
-            suspendRecordingSections();
+        ByteBuffer tempBuffer = ByteBuffer.allocate(length * 2);
+        boolean recordingSections = isRecordingSections();
+        if (recordingSections) {
+            try {
+                suspendRecordingSections();
+                super.encodeSubElements(tempBuffer, compositeMap, subElementsCodecs);
+            } finally {
+                resumeRecordingSections();
+            }
+        } else {
             super.encodeSubElements(tempBuffer, compositeMap, subElementsCodecs);
-        } finally {
-            resumeRecordingSections();
         }
         byte[] hexBytes = new byte[tempBuffer.position()];
         tempBuffer.flip();
         tempBuffer.get(hexBytes);
         String hex = new String(hexBytes, StandardCharsets.ISO_8859_1);
-        int pos = buffer.arrayOffset() + buffer.position();
+        int pos = sectionPosition(buffer);
         byte[] bytes = ByteUtil.decodeHex(hex);
         buffer.put(bytes);
-        recordSection(pos, bytes.length, "<composite>", ByteUtil.recallToBuffer(buffer, bytes.length));
+        if (recordingSections) {
+            recordSection(pos, bytes.length, "<composite>", ByteUtil.recallToBuffer(buffer, bytes.length));
+        }
     }
 
     @Override
     protected CompositeMap decodeSubElements(ByteBuffer buffer, Map<String, Codec> subElementsCodecs) {
-        int pos = buffer.arrayOffset() + buffer.position();
-        byte[] bytes = new byte[getLength(subElementsCodecs)];
+        int pos = sectionPosition(buffer);
+        byte[] bytes = new byte[length];
         buffer.get(bytes);
         String hex = ByteUtil.encodeHex(bytes);
         ByteBuffer tempBuffer = ByteBuffer.wrap(hex.getBytes(StandardCharsets.ISO_8859_1));
+        if (!isRecordingSections()) {
+            return super.decodeSubElements(tempBuffer, subElementsCodecs);
+        }
         try {
             suspendRecordingSections();
             return super.decodeSubElements(tempBuffer, subElementsCodecs);
@@ -58,25 +69,32 @@ public class HexCompositeCodec extends CompositeCodec {
         }
     }
 
-    private Integer getLength(Map<String, Codec> subElementsCodecs) {
-        if (length == null) {
-            Integer tempLength = 0;
-            for (Codec<?> codec : subElementsCodecs.values()) {
-                Integer lengthAttribute = codec.getAttribute(LENGTH);
-                if (lengthAttribute == null) {
-                    String pattern = codec.getAttribute(LENGTH);
-                    if (pattern != null) {
-                        lengthAttribute = pattern.length();
-                    }
-                }
-                if (lengthAttribute == null) {
-                    throw new RuntimeException("Sub-elements are required to be fixed");
+    @Override
+    public void skip(ByteBuffer buffer) {
+        buffer.position(buffer.position() + length);
+    }
+
+    /**
+     * Determines the length of the hex encoded composite from the fixed length sub-elements.
+     */
+    @Override
+    protected void compile() {
+        super.compile();
+        int tempLength = 0;
+        for (Codec<?> codec : getSubElementsCodecs().values()) {
+            Integer lengthAttribute = codec.getAttribute(LENGTH);
+            if (lengthAttribute == null) {
+                String pattern = codec.getAttribute(PATTERN);
+                if (pattern != null) {
+                    lengthAttribute = pattern.length();
                 }
-                tempLength += lengthAttribute;
             }
-            length = tempLength / 2 + tempLength % 2;
+            if (lengthAttribute == null) {
+                throw new RuntimeException("Sub-elements are required to be fixed");
+            }
+            tempLength += lengthAttribute;
         }
-        return length;
+        length = tempLength / 2 + tempLength % 2;
     }
 
 }
@@ -16,7 +16,6 @@
 package org.chiknrice.djeng.fin;
 
 import org.chiknrice.djeng.Codec;
-import org.chiknrice.djeng.CodecException;
 import org.chiknrice.djeng.CompositeCodec;
 import org.chiknrice.djeng.CompositeMap;
 
@@ -42,9 +41,9 @@ public class KeyValueCodec extends CompositeCodec {
      */
     @Override
     protected void encodeSubElements(ByteBuffer buffer, CompositeMap compositeMap, Map<String, Codec> subElementsCodecs) {
-        Codec keyCodec = subElementsCodecs.get("key");
+        Codec keyCodec = subElementsCodecs.get(getKeyIndex());
         Codec valueCodec = subElementsCodecs.get("value");
-        if (subElementsCodecs.size() != 2 && keyCodec == null || valueCodec == null) {
+        if (subElementsCodecs.size() != 2 || keyCodec == null || valueCodec == null) {
             throw new RuntimeException("Invalid " + KeyValueCodec.class.getSimpleName() + " configuration");
         }
         for (Map.Entry<String, Object> entry : compositeMap.entrySet()) {
@@ -55,7 +54,7 @@ public class KeyValueCodec extends CompositeCodec {
                 pushIndex(getKeyIndex());
                 keyCodec.encode(buffer, key);
             } catch (Exception e) {
-                throw new CodecException(e, getCurrentIndexPath());
+                throw subElementException(e, getKeyIndex());
             } finally {
                 popIndex();
             }
@@ -63,13 +62,21 @@ public class KeyValueCodec extends CompositeCodec {
                 pushIndex(key);
                 valueCodec.encode(buffer, value);
             } catch (Exception e) {
-                throw new CodecException(e, getCurrentIndexPath());
+                throw subElementException(e, key);
             } finally {
                 popIndex();
             }
         }
     }
 
+    /**
+     * The key is always decoded as it is the index of the value.
+     */
+    @Override
+    protected boolean isLazilyDecodable(String index, Codec<?> codec) {
+        return !getKeyIndex().equals(index);
+    }
+
     protected String getKeyIndex() {
         return "key";
     }
@@ -84,9 +91,9 @@ public class KeyValueCodec extends CompositeCodec {
      */
     @Override
     protected CompositeMap decodeSubElements(ByteBuffer buffer, Map<String, Codec> subElementsCodecs) {
-        Codec keyCodec = subElementsCodecs.get("key");
+        Codec keyCodec = subElementsCodecs.get(getKeyIndex());
         Codec valueCodec = subElementsCodecs.get("value");
-        if (subElementsCodecs.size() != 2 && keyCodec == null || valueCodec == null) {
+        if (subElementsCodecs.size() != 2 || keyCodec == null || valueCodec == null) {
             throw new RuntimeException("Invalid " + KeyValueCodec.class.getSimpleName() + " configuration");
         }
         CompositeMap compositeMap = new CompositeMap();
@@ -96,7 +103,7 @@ public class KeyValueCodec extends CompositeCodec {
                 pushIndex(getKeyIndex());
                 key = (String) keyCodec.decode(buffer);
             } catch (Exception e) {
-                throw new CodecException(e, getCurrentIndexPath());
+                throw subElementException(e, getKeyIndex());
             } finally {
                 popIndex();
             }
@@ -105,14 +112,32 @@ public class KeyValueCodec extends CompositeCodec {
                 pushIndex(key);
                 value = valueCodec.decode(buffer);
             } catch (Exception e) {
-                throw new CodecException(e, getCurrentIndexPath());
+                throw subElementException(e, key);
             } finally {
                 popIndex();
             }
-            compositeMap.put(key, value);
+            if (value != null) {
+                compositeMap.put(key, value);
+            }
         }
 
         return compositeMap;
     }
 
+    /**
+     * Skips the key and value sub-elements up to the limit of the {@code ByteBuffer}.
+     */
+    @Override
+    protected void skipSubElements(ByteBuffer buffer, Map<String, Codec> subElementsCodecs) {
+        Codec<?> keyCodec = subElementsCodecs.get(getKeyIndex());
+        Codec<?> valueCodec = subElementsCodecs.get("value");
+        if (subElementsCodecs.size() != 2 || keyCodec == null || valueCodec == null) {
+            throw new RuntimeException("Invalid " + KeyValueCodec.class.getSimpleName() + " configuration");
+        }
+        while (buffer.hasRemaining()) {
+            skipSubElement(getKeyIndex(), keyCodec, buffer);
+            skipSubElement("value", valueCodec, buffer);
+        }
+    }
+
 }
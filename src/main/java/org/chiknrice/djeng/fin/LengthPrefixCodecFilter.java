@@ -18,137 +18,176 @@ package org.chiknrice.djeng.fin;
 import org.chiknrice.djeng.ByteUtil;
 import org.chiknrice.djeng.Codec;
 import org.chiknrice.djeng.CodecFilter;
-import org.chiknrice.djeng.ElementCodec;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 
 import static org.chiknrice.djeng.fin.FinancialAttribute.LVAR_ENCODING;
 import static org.chiknrice.djeng.fin.FinancialAttribute.LVAR_LENGTH;
 
 /**
+ * Prefixes the encoded value with its length.  The length prefix is {@code lvar-length} digits encoded as {@code
+ * lvar-encoding} (CHAR, BCD or BINARY where the digits are the number of bytes).  If the wrapped codec is a {@link
+ * LengthPrefixDelegate} it determines the value of the prefix and the number of data bytes from the prefix.
+ * <p/>
+ * The value is encoded after the space for the prefix and the prefix is written back once the length is known, the
+ * prefix is read and written in place without creating any objects.
+ *
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
 public final class LengthPrefixCodecFilter<T> extends CodecFilter<T, T> {
 
-    private final LengthPrefixCodec lengthPrefixCodec;
+    private LengthPrefixDelegate delegate;
+    private int lengthDigits;
+    private Encoding encoding;
+    private int lengthPrefixBytesCount;
 
-    public LengthPrefixCodecFilter() {
-        lengthPrefixCodec = new LengthPrefixCodec();
+    @Override
+    protected void compile() {
+        super.compile();
+        delegate = getDelegate(LengthPrefixDelegate.class);
+        lengthDigits = getAttribute(LVAR_LENGTH);
+        encoding = getAttribute(LVAR_ENCODING);
+        switch (encoding) {
+            case BCD:
+                lengthPrefixBytesCount = lengthDigits / 2 + lengthDigits % 2;
+                break;
+            case CHAR:
+            case BINARY:
+                lengthPrefixBytesCount = lengthDigits;
+                break;
+            default:
+                throw new RuntimeException(String.format("Unsupported length prefix encoding: %s", encoding));
+        }
     }
 
     @Override
     public void encode(ByteBuffer buffer, T element, Codec<T> chain) {
-        int lengthPrefixBytesCount = lengthPrefixCodec.getLengthPrefixBytesCount();
-        buffer.mark();
-        buffer.position(buffer.position() + lengthPrefixBytesCount);
-        ByteBuffer dataBuffer = buffer.slice();
-        chain.encode(dataBuffer, element);
-        buffer.reset();
-        int pos = buffer.arrayOffset() + buffer.position();
-        int valueLength = dataBuffer.position();
-        LengthPrefixDelegate delegate = getDelegate(LengthPrefixDelegate.class);
+        int start = buffer.position();
+        if (lengthPrefixBytesCount > buffer.remaining()) {
+            throw new BufferOverflowException();
+        }
+        buffer.position(start + lengthPrefixBytesCount);
+        chain.encode(buffer, element);
+        int end = buffer.position();
+        int valueLength = end - start - lengthPrefixBytesCount;
         if (delegate != null) {
             valueLength = delegate.determineLengthPrefixValue(element);
         }
+        buffer.position(start);
+        putLengthPrefix(buffer, valueLength);
+        if (isRecordingSections()) {
+            buffer.position(start);
+            recordLengthPrefix(buffer, start, valueLength);
+        }
+        buffer.position(end);
+    }
+
+    private void putLengthPrefix(ByteBuffer buffer, int valueLength) {
+        switch (encoding) {
+            case BCD:
+                ByteUtil.putBcd(buffer, valueLength, lengthDigits);
+                break;
+            case CHAR:
+                ByteUtil.putChars(buffer, valueLength, lengthDigits);
+                break;
+            case BINARY:
+                ByteUtil.putBinary(buffer, valueLength, lengthDigits);
+                break;
+            default:
+                throw new RuntimeException(String.format("Unsupported length prefix encoding: %s", encoding));
+        }
+    }
+
+    @Override
+    public T decode(ByteBuffer buffer, Codec<T> chain) {
+        int dataBytesCount = decodeDataBytesCount(buffer);
+        int limit = buffer.limit();
+        int end = buffer.position() + dataBytesCount;
+        // the limit bounds the data bytes for the chain instead of slicing the buffer
+        buffer.limit(end);
         try {
-            pushIndex("len");
-            lengthPrefixCodec.encode(buffer, valueLength);
+            T element = chain.decode(buffer);
+            buffer.position(end);
+            return element;
         } finally {
-            popIndex();
+            buffer.limit(limit);
         }
-        buffer.position(buffer.position() + dataBuffer.position());
     }
 
     @Override
-    public T decode(ByteBuffer buffer, Codec<T> chain) {
-        int dataLength;
+    protected long decodeLong(ByteBuffer buffer, Codec<T> chain) {
+        int dataBytesCount = decodeDataBytesCount(buffer);
+        int limit = buffer.limit();
+        int end = buffer.position() + dataBytesCount;
+        buffer.limit(end);
         try {
-            pushIndex("len");
-            dataLength = lengthPrefixCodec.decode(buffer);
+            long value = chain.decodeLong(buffer);
+            buffer.position(end);
+            return value;
         } finally {
-            popIndex();
+            buffer.limit(limit);
+        }
+    }
+
+    /**
+     * Skips the length prefix and the data bytes without decoding the data.
+     *
+     * @param buffer the source of the bytes to skip
+     */
+    @Override
+    public void skip(ByteBuffer buffer) {
+        int dataByteCount = decodeDataBytesCount(buffer);
+        buffer.position(buffer.position() + dataByteCount);
+    }
+
+    private int decodeDataBytesCount(ByteBuffer buffer) {
+        int start = buffer.position();
+        long prefix;
+        switch (encoding) {
+            case BCD:
+                prefix = ByteUtil.getBcdLong(buffer, lengthPrefixBytesCount);
+                break;
+            case CHAR:
+                prefix = ByteUtil.getCharsLong(buffer, lengthPrefixBytesCount);
+                break;
+            case BINARY:
+                prefix = ByteUtil.getBinaryLong(buffer, lengthPrefixBytesCount);
+                break;
+            default:
+                throw new RuntimeException(String.format("Unsupported length prefix encoding %s", encoding));
+        }
+        if (prefix < 0 || prefix > Integer.MAX_VALUE) {
+            throw new RuntimeException(String.format("Invalid length prefix %d", prefix));
+        }
+        int dataLength = (int) prefix;
+        if (isRecordingSections()) {
+            int end = buffer.position();
+            buffer.position(start);
+            recordLengthPrefix(buffer, start, dataLength);
+            buffer.position(end);
         }
         int dataByteCount = dataLength;
-        LengthPrefixDelegate delegate = getDelegate(LengthPrefixDelegate.class);
         if (delegate != null) {
             dataByteCount = delegate.determineDataBytesCount(dataLength);
         }
         if (dataByteCount > buffer.remaining()) {
             throw new RuntimeException(String.format("Not enough bytes in buffer for var length %d", dataByteCount));
         }
-        ByteBuffer dataBuffer = ByteUtil.consumeToBuffer(buffer, dataByteCount);
-        T element = chain.decode(dataBuffer);
-        return element;
+        return dataByteCount;
     }
 
-    private class LengthPrefixCodec extends ElementCodec<Integer> {
-
-        @Override
-        protected byte[] encodeValue(Integer value) {
-            Integer lengthDigits = LengthPrefixCodecFilter.this.getAttribute(LVAR_LENGTH);
-            Encoding encoding = LengthPrefixCodecFilter.this.getAttribute(LVAR_ENCODING);
-            String numericString = String.format("%0" + lengthDigits + "d", value);
-            byte[] bytes;
-            switch (encoding) {
-                case BCD:
-                    bytes = ByteUtil.encodeBcd(numericString);
-                    break;
-                case CHAR:
-                    bytes = numericString.getBytes(StandardCharsets.ISO_8859_1);
-                    break;
-                case BINARY:
-                    bytes = ByteUtil.encodeBinary(value, lengthDigits);
-                    break;
-                default:
-                    throw new RuntimeException(String.format("Unsupported length prefix encoding: %s", encoding));
-            }
-            return bytes;
-        }
-
-        @Override
-        protected Integer decodeValue(byte[] bytes) {
-            Encoding encoding = LengthPrefixCodecFilter.this.getAttribute(LVAR_ENCODING);
-            int dataLength;
-            switch (encoding) {
-                case BCD:
-                    dataLength = Integer.parseInt(ByteUtil.decodeBcd(bytes));
-                    break;
-                case CHAR:
-                    dataLength = Integer.parseInt(new String(bytes, StandardCharsets.ISO_8859_1));
-                    break;
-                case BINARY:
-                    dataLength = ByteUtil.decodeBinaryInt(bytes);
-                    break;
-                default:
-                    throw new RuntimeException(String.format("Unsupported length prefix encoding %s", encoding));
-            }
-            return dataLength;
-        }
-
-        @Override
-        protected byte[] getDataBytes(ByteBuffer buffer) {
-            byte[] lengthPrefixBytes = new byte[getLengthPrefixBytesCount()];
-            buffer.get(lengthPrefixBytes);
-            return lengthPrefixBytes;
-        }
-
-        private int getLengthPrefixBytesCount() {
-            int lengthPrefixBytes;
-            Integer lengthDigits = LengthPrefixCodecFilter.this.getAttribute(LVAR_LENGTH);
-            Encoding encoding = LengthPrefixCodecFilter.this.getAttribute(LVAR_ENCODING);
-            switch (encoding) {
-                case BCD:
-                    lengthPrefixBytes = lengthDigits / 2 + lengthDigits % 2;
-                    break;
-                case CHAR:
-                case BINARY:
-                    lengthPrefixBytes = lengthDigits;
-                    break;
-                default:
-                    throw new RuntimeException(String.format("Unsupported length prefix encoding: %s", encoding));
-            }
-            return lengthPrefixBytes;
+    /**
+     * Records the section of the length prefix which starts at the position of the buffer.
+     */
+    private void recordLengthPrefix(ByteBuffer buffer, int start, int valueLength) {
+        ByteBuffer prefixBytes = buffer.duplicate();
+        prefixBytes.limit(start + lengthPrefixBytesCount);
+        try {
+            pushIndex("len");
+            recordSection(sectionPosition(buffer), lengthPrefixBytesCount, valueLength, prefixBytes);
+        } finally {
+            popIndex();
         }
     }
 
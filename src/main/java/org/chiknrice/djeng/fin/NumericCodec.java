@@ -36,61 +36,152 @@ public class NumericCodec extends ElementCodec<Object> implements LengthPrefixDe
         STRING
     }
 
+    private Integer length;
+    private Encoding fixedEncoding;
+    private Encoding varEncoding;
+    private NumericType numericType;
+    private boolean stripPadding;
+    private int fixedDataBytesCount;
+
+    @Override
+    protected void compile() {
+        super.compile();
+        length = getAttribute(FinancialAttribute.LENGTH);
+        fixedEncoding = getAttribute(FinancialAttribute.FIXED_NUMERIC_ENCODING);
+        varEncoding = getAttribute(FinancialAttribute.VAR_NUMERIC_ENCODING);
+        numericType = getAttribute(FinancialAttribute.NUMERIC_TYPE);
+        Boolean stripPaddingAttr = getAttribute(FinancialAttribute.STRIP_PADDING);
+        stripPadding = stripPaddingAttr != null && stripPaddingAttr;
+        if (length != null) {
+            switch (fixedEncoding) {
+                case CHAR:
+                    fixedDataBytesCount = length;
+                    break;
+                case BCD:
+                case C_BCD:
+                    fixedDataBytesCount = length / 2 + length % 2;
+                    break;
+                case CC_BCD:
+                    fixedDataBytesCount = (length / 2 + length % 2) + 1;
+                    break;
+                default:
+                    throw new RuntimeException("Unsupported fixed length numeric encoding " + fixedEncoding);
+            }
+        }
+    }
+
     @Override
     protected byte[] encodeValue(Object value) {
-        Integer length = getAttribute(FinancialAttribute.LENGTH);
         if (length != null) {
-            return encodeFixedLength(length, value);
+            if (isLongValue(value)) {
+                byte[] bytes = new byte[fixedDataBytesCount];
+                encodeFixedLength(ByteBuffer.wrap(bytes), ((Number) value).longValue());
+                return bytes;
+            }
+            return encodeFixedLength(value);
         } else {
             return encodeVarLength(value);
         }
     }
 
+    @Override
+    protected void encodeValue(ByteBuffer buffer, Object value) {
+        if (length != null) {
+            if (isLongValue(value)) {
+                encodeFixedLength(buffer, ((Number) value).longValue());
+                return;
+            }
+            String stringValue = toFixedLengthString(value);
+            switch (fixedEncoding) {
+                case CHAR:
+                    ByteUtil.putChars(buffer, stringValue);
+                    break;
+                case BCD:
+                    ByteUtil.putBcd(buffer, stringValue);
+                    break;
+                case C_BCD:
+                    ByteUtil.putCBcd(buffer, stringValue);
+                    break;
+                case CC_BCD:
+                    ByteUtil.putCcBcd(buffer, stringValue);
+                    break;
+                default:
+                    throw new RuntimeException("Unsupported fixed length numeric encoding " + fixedEncoding);
+            }
+        } else {
+            String stringValue = value.toString();
+            switch (varEncoding) {
+                case CHAR:
+                    ByteUtil.putChars(buffer, stringValue);
+                    break;
+                case BCD:
+                    ByteUtil.putBcd(buffer, stringValue);
+                    break;
+                case BCD_F:
+                    ByteUtil.putBcdF(buffer, stringValue);
+                    break;
+                default:
+                    throw new RuntimeException("Unsupported var length numeric encoding " + varEncoding);
+            }
+        }
+    }
+
     /**
-     * Fixed length values are always padded and padding is always zero '0'.  If a value is negative the hyphen is part
-     * of the length.
+     * Checks if the value is encoded as a long.  Integer and long values, and big integers which fit in a long are
+     * written as padded digits of any whole number type without formatting them to a string first, while {@code
+     * STRING} values are written as is.
      *
-     * @param length
-     * @param value
-     * @return
+     * @param value the value to be encoded
+     * @return {@code true} if the value can be encoded as a long
      */
-    private byte[] encodeFixedLength(int length, Object value) {
-        Encoding encoding = getAttribute(FinancialAttribute.FIXED_NUMERIC_ENCODING);
-        if (Encoding.CC_BCD.equals(encoding)) {
-            // additional 2 characters needs to be allotted for hex of C/D
-            length += 2;
-        }
-        NumericType numericType = getAttribute(FinancialAttribute.NUMERIC_TYPE);
-        String stringValue;
+    private boolean isLongValue(Object value) {
         switch (numericType) {
             case INTEGER:
-                if (value instanceof Integer) {
-                    stringValue = String.format("%0" + length + "d", ((Integer) value).intValue());
-                    break;
-                }
             case LONG:
-                if (value instanceof Long) {
-                    stringValue = String.format("%0" + length + "d", ((Long) value).longValue());
-                    break;
-                }
             case BIG_INTEGER:
-                if (value instanceof BigInteger) {
-                    BigInteger bigInteger = (BigInteger) value;
-                    stringValue = bigInteger.toString();
-                    if (stringValue.length() < length) {
-                        stringValue = String.format("%0" + (length - stringValue.length()) + "d", 0).concat(stringValue);
-                    }
-                    break;
-                }
-            case STRING:
-                stringValue = value.toString();
+                return value instanceof Integer || value instanceof Long
+                        || (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Fixed length values are always padded and padding is always zero '0'.  If a value is negative the hyphen is part
+     * of the length.  The digits are written straight to the buffer.
+     *
+     * @param buffer the buffer where the encoded value would be put
+     * @param value  the value to be encoded
+     */
+    private void encodeFixedLength(ByteBuffer buffer, long value) {
+        switch (fixedEncoding) {
+            case CHAR:
+                ByteUtil.putChars(buffer, value, length);
+                break;
+            case BCD:
+                ByteUtil.putBcd(buffer, value, length);
+                break;
+            case C_BCD:
+                ByteUtil.putCBcd(buffer, value, length);
+                break;
+            case CC_BCD:
+                ByteUtil.putCcBcd(buffer, value, length);
                 break;
             default:
-                throw new RuntimeException("Unexpected numeric type " + value.getClass().getName());
+                throw new RuntimeException("Unsupported fixed length numeric encoding " + fixedEncoding);
         }
+    }
 
+    /**
+     * Encodes values which are not encoded as a long (see {@link #isLongValue(Object)}).
+     *
+     * @param value the value to be encoded
+     * @return the encoded value
+     */
+    private byte[] encodeFixedLength(Object value) {
+        String stringValue = toFixedLengthString(value);
         byte[] bytes;
-        switch (encoding) {
+        switch (fixedEncoding) {
             case CHAR:
                 bytes = stringValue.getBytes(StandardCharsets.ISO_8859_1);
                 break;
@@ -104,16 +195,33 @@ public class NumericCodec extends ElementCodec<Object> implements LengthPrefixDe
                 bytes = ByteUtil.encodeCcBcd(stringValue);
                 break;
             default:
-                throw new RuntimeException("Unsupported fixed length numeric encoding " + encoding);
+                throw new RuntimeException("Unsupported fixed length numeric encoding " + fixedEncoding);
         }
         return bytes;
     }
 
+    private String toFixedLengthString(Object value) {
+        String stringValue = value.toString();
+        if (value instanceof BigInteger && !NumericType.STRING.equals(numericType)) {
+            // additional 2 characters needs to be allotted for hex of C/D
+            int paddedLength = Encoding.CC_BCD.equals(fixedEncoding) ? length + 2 : length;
+            if (stringValue.length() < paddedLength) {
+                // the same as long values, negative values are padded after the hyphen
+                int digitsStart = stringValue.startsWith("-") ? 1 : 0;
+                StringBuilder padded = new StringBuilder(paddedLength).append(stringValue, 0, digitsStart);
+                for (int i = stringValue.length(); i < paddedLength; i++) {
+                    padded.append('0');
+                }
+                stringValue = padded.append(stringValue, digitsStart, stringValue.length()).toString();
+            }
+        }
+        return stringValue;
+    }
+
     private byte[] encodeVarLength(Object value) {
-        Encoding encoding = getAttribute(FinancialAttribute.VAR_NUMERIC_ENCODING);
         byte[] bytes;
         String stringValue = value.toString();
-        switch (encoding) {
+        switch (varEncoding) {
             case CHAR:
                 bytes = stringValue.getBytes(StandardCharsets.ISO_8859_1);
                 break;
@@ -124,54 +232,121 @@ public class NumericCodec extends ElementCodec<Object> implements LengthPrefixDe
                 bytes = ByteUtil.encodeBcdF(stringValue);
                 break;
             default:
-                throw new RuntimeException("Unsupported var length numeric encoding " + encoding);
+                throw new RuntimeException("Unsupported var length numeric encoding " + varEncoding);
         }
         return bytes;
     }
 
     @Override
     protected Object decodeValue(byte[] bytes) {
-        Encoding encoding = getAttribute(FinancialAttribute.FIXED_NUMERIC_ENCODING);
-        String stringValue;
-        if (encoding != null) {
-            stringValue = decodeFixedLength(encoding, bytes);
-        } else {
-            stringValue = decodeVarLength(bytes);
-        }
-        Boolean stripPadding = getAttribute(FinancialAttribute.STRIP_PADDING);
-        if (stripPadding != null && stripPadding) {
-            // TODO probably not needed here as doing Integer.valueOf("-000001") results in -1
-            throw new UnsupportedOperationException("Strip padding not yet supported");
-        }
-        NumericType numericType = getAttribute(FinancialAttribute.NUMERIC_TYPE);
+        return decodeValue(ByteBuffer.wrap(bytes), bytes.length);
+    }
+
+    @Override
+    protected Object decodeValue(ByteBuffer buffer) {
+        return decodeValue(buffer, getDataBytesCount(buffer));
+    }
+
+    private Object decodeValue(ByteBuffer buffer, int dataBytesCount) {
         switch (numericType) {
             case INTEGER:
-                return Integer.valueOf(stringValue);
+                long value = decodeLong(buffer, dataBytesCount);
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Value out of int range: " + value);
+                }
+                return (int) value;
             case LONG:
-                return Long.valueOf(stringValue);
+                return decodeLong(buffer, dataBytesCount);
             case STRING:
-                return stringValue;
+                return decodeString(buffer, dataBytesCount);
             case BIG_INTEGER:
-                return new BigInteger(stringValue);
+                return new BigInteger(decodeString(buffer, dataBytesCount));
             default:
                 throw new UnsupportedOperationException(numericType + " not yet supported");
         }
     }
 
-    private String decodeFixedLength(Encoding encoding, byte[] bytes) {
+    /**
+     * Decodes the digits straight to a primitive long regardless of the numeric type, the sign of C_BCD and CC_BCD
+     * values is applied.  Sections are not recorded as no value is created.  Subclasses which are decoded through the
+     * {@code byte[]} methods (see {@link #isBytesDecoding()}) decode the value first.
+     *
+     * @param buffer the ByteBuffer from which the value would be decoded
+     * @return the decoded number
+     */
+    @Override
+    public long decodeLong(ByteBuffer buffer) {
+        if (isBytesDecoding()) {
+            Object value = decodeValue(getDataBytes(buffer));
+            return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+        }
+        return decodeLong(buffer, getDataBytesCount(buffer));
+    }
+
+    private long decodeLong(ByteBuffer buffer, int dataBytesCount) {
+        checkStripPadding();
+        if (dataBytesCount == 0) {
+            throw new NumberFormatException("Empty numeric value");
+        }
+        if (fixedEncoding != null) {
+            switch (fixedEncoding) {
+                case CHAR:
+                    return ByteUtil.getCharsLong(buffer, dataBytesCount);
+                case BCD:
+                    return ByteUtil.getBcdLong(buffer, dataBytesCount);
+                case C_BCD:
+                    return ByteUtil.getCBcdLong(buffer, dataBytesCount);
+                case CC_BCD:
+                    return ByteUtil.getCcBcdLong(buffer, dataBytesCount);
+                default:
+                    throw new RuntimeException("Unsupported fixed length numeric encoding " + fixedEncoding);
+            }
+        } else {
+            switch (varEncoding) {
+                case CHAR:
+                    return ByteUtil.getCharsLong(buffer, dataBytesCount);
+                case BCD:
+                    return ByteUtil.getBcdLong(buffer, dataBytesCount);
+                case BCD_F:
+                    return ByteUtil.getBcdFLong(buffer, dataBytesCount);
+                default:
+                    throw new RuntimeException("Unsupported var length numeric encoding " + varEncoding);
+            }
+        }
+    }
+
+    private String decodeString(ByteBuffer buffer, int dataBytesCount) {
+        String stringValue;
+        if (fixedEncoding != null) {
+            stringValue = decodeFixedLength(fixedEncoding, buffer, dataBytesCount);
+        } else {
+            stringValue = decodeVarLength(buffer, dataBytesCount);
+        }
+        checkStripPadding();
+        return stringValue;
+    }
+
+    private void checkStripPadding() {
+        if (stripPadding) {
+            // TODO probably not needed here as doing Integer.valueOf("-000001") results in -1
+            throw new UnsupportedOperationException("Strip padding not yet supported");
+        }
+    }
+
+    private String decodeFixedLength(Encoding encoding, ByteBuffer buffer, int dataBytesCount) {
         String stringValue;
         switch (encoding) {
             case CHAR:
-                stringValue = new String(bytes, StandardCharsets.ISO_8859_1);
+                stringValue = ByteUtil.getChars(buffer, dataBytesCount);
                 break;
             case BCD:
-                stringValue = ByteUtil.decodeBcd(bytes);
+                stringValue = ByteUtil.getBcd(buffer, dataBytesCount);
                 break;
             case C_BCD:
-                stringValue = ByteUtil.decodeCBcd(bytes);
+                stringValue = ByteUtil.getCBcd(buffer, dataBytesCount);
                 break;
             case CC_BCD:
-                stringValue = ByteUtil.decodeCcBcd(bytes);
+                stringValue = ByteUtil.getCcBcd(buffer, dataBytesCount);
                 break;
             default:
                 throw new RuntimeException("Unsupported fixed length numeric encoding " + encoding);
@@ -179,53 +354,27 @@ public class NumericCodec extends ElementCodec<Object> implements LengthPrefixDe
         return stringValue;
     }
 
-    private String decodeVarLength(byte[] bytes) {
-        Encoding encoding = getAttribute(FinancialAttribute.VAR_NUMERIC_ENCODING);
+    private String decodeVarLength(ByteBuffer buffer, int dataBytesCount) {
         String stringValue;
-        switch (encoding) {
+        switch (varEncoding) {
             case CHAR:
-                stringValue = new String(bytes, StandardCharsets.ISO_8859_1);
+                stringValue = ByteUtil.getChars(buffer, dataBytesCount);
                 break;
             case BCD:
-                stringValue = ByteUtil.decodeBcd(bytes);
+                stringValue = ByteUtil.getBcd(buffer, dataBytesCount);
                 break;
             case BCD_F:
-                stringValue = ByteUtil.decodeBcdF(bytes);
+                stringValue = ByteUtil.getBcdF(buffer, dataBytesCount);
                 break;
             default:
-                throw new RuntimeException("Unsupported var length numeric encoding " + encoding);
+                throw new RuntimeException("Unsupported var length numeric encoding " + varEncoding);
         }
         return stringValue;
     }
 
-
     @Override
-    protected byte[] getDataBytes(ByteBuffer buffer) {
-        Integer length = getAttribute(FinancialAttribute.LENGTH);
-        byte[] bytes;
-        if (length != null) {
-            Encoding encoding = getAttribute(FinancialAttribute.FIXED_NUMERIC_ENCODING);
-            int dataBytesCount;
-            switch (encoding) {
-                case CHAR:
-                    dataBytesCount = length;
-                    break;
-                case BCD:
-                case C_BCD:
-                    dataBytesCount = length / 2 + length % 2;
-                    break;
-                case CC_BCD:
-                    dataBytesCount = (length / 2 + length % 2) + 1;
-                    break;
-                default:
-                    throw new RuntimeException("Unsupported fixed length numeric encoding " + encoding);
-            }
-            bytes = new byte[dataBytesCount];
-        } else {
-            bytes = new byte[buffer.remaining()];
-        }
-        buffer.get(bytes);
-        return bytes;
+    protected int getDataBytesCount(ByteBuffer buffer) {
+        return length != null ? fixedDataBytesCount : buffer.remaining();
     }
 
     @Override
@@ -236,8 +385,7 @@ public class NumericCodec extends ElementCodec<Object> implements LengthPrefixDe
     @Override
     public int determineDataBytesCount(int dataLength) {
         int dataByteCount;
-        Encoding encoding = getAttribute(FinancialAttribute.VAR_NUMERIC_ENCODING);
-        switch (encoding) {
+        switch (varEncoding) {
             case CHAR:
                 dataByteCount = dataLength;
                 break;
@@ -246,7 +394,7 @@ public class NumericCodec extends ElementCodec<Object> implements LengthPrefixDe
                 dataByteCount = dataLength / 2 + dataLength % 2;
                 break;
             default:
-                throw new RuntimeException("Unsupported var length numeric encoding " + encoding);
+                throw new RuntimeException("Unsupported var length numeric encoding " + varEncoding);
         }
         return dataByteCount;
     }
@@ -15,35 +15,135 @@
  */
 package org.chiknrice.djeng.fin;
 
+import org.chiknrice.djeng.ByteUtil;
 import org.chiknrice.djeng.ElementCodec;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
- * TODO: describe usage and document what properties are required/optional to be set
+ * The {@code StringCodec} class encodes/decodes ISO-8859-1 strings.  Fixed length strings are right justified unless
+ * {@code left-justified} is set, and padded with the {@code padding} byte or with spaces if it is not set.  Decoding
+ * with {@code strip-padding} removes the padding byte from the padded side, or trims the string if the padding byte is
+ * not set.
  *
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
 public class StringCodec extends ElementCodec<String> {
 
+    private Integer length;
+    private boolean leftJustified;
+    private boolean stripPadding;
+    private byte padding;
+    private boolean trim;
+
+    @Override
+    protected void compile() {
+        super.compile();
+        length = getAttribute(FinancialAttribute.LENGTH);
+        Boolean leftJustifiedAttr = getAttribute(FinancialAttribute.LEFT_JUSTIFIED);
+        leftJustified = leftJustifiedAttr != null && leftJustifiedAttr;
+        Boolean stripPaddingAttr = getAttribute(FinancialAttribute.STRIP_PADDING);
+        stripPadding = stripPaddingAttr != null && stripPaddingAttr;
+        String paddingHex = getAttribute(FinancialAttribute.PADDING);
+        padding = paddingHex != null ? (byte) Integer.parseInt(paddingHex, 16) : (byte) ' ';
+        trim = paddingHex == null;
+    }
+
     @Override
     protected byte[] encodeValue(String value) {
-        Integer length = getAttribute(FinancialAttribute.LENGTH);
-        if (length != null) {
-            Boolean leftJustifiedAttr = getAttribute(FinancialAttribute.LEFT_JUSTIFIED);
-            boolean leftJustified = leftJustifiedAttr != null && leftJustifiedAttr;
-            value = String.format("%" + (leftJustified ? "-" : "") + length + "s", value);
+        return encodeString(value);
+    }
+
+    @Override
+    protected void encodeValue(ByteBuffer buffer, String value) {
+        putString(buffer, value);
+    }
+
+    /**
+     * Encodes the string to bytes padded to the configured length.  Subclasses which build their own encoding around
+     * the string's bytes can use this instead of {@link #encodeValue(String)} which may be overridden.
+     *
+     * @param value the string to be encoded
+     * @return the encoded string
+     */
+    protected byte[] encodeString(String value) {
+        if (length == null) {
+            return value.getBytes(StandardCharsets.ISO_8859_1);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(length, value.length()));
+        putString(buffer, value);
+        return buffer.hasRemaining() ? Arrays.copyOf(buffer.array(), buffer.position()) : buffer.array();
+    }
+
+    private void putString(ByteBuffer buffer, String value) {
+        int count = length != null ? length - value.length() : 0;
+        if (!leftJustified) {
+            putPadding(buffer, count);
+        }
+        ByteUtil.putChars(buffer, value);
+        if (leftJustified) {
+            putPadding(buffer, count);
+        }
+    }
+
+    private void putPadding(ByteBuffer buffer, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.put(padding);
         }
-        return value.getBytes(StandardCharsets.ISO_8859_1);
     }
 
     @Override
     protected String decodeValue(byte[] bytes) {
-        String decoded = new String(bytes, StandardCharsets.ISO_8859_1);
-        Boolean stripPadding = getAttribute(FinancialAttribute.STRIP_PADDING);
-        if (stripPadding != null && stripPadding) {
-            decoded = decoded.trim();
+        return decodeString(ByteBuffer.wrap(bytes), bytes.length);
+    }
+
+    @Override
+    protected String decodeValue(ByteBuffer buffer) {
+        return decodeString(buffer, getDataBytesCount(buffer));
+    }
+
+    /**
+     * Decodes the string from the next {@code dataBytesCount} bytes of the buffer.  The padding is stripped from the
+     * bytes before they are decoded.
+     *
+     * @param buffer         the ByteBuffer from which the value would be decoded
+     * @param dataBytesCount the number of bytes of the string
+     * @return the decoded string
+     */
+    protected String decodeString(ByteBuffer buffer, int dataBytesCount) {
+        if (!stripPadding) {
+            return ByteUtil.getChars(buffer, dataBytesCount);
+        }
+        if (dataBytesCount > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        int start = buffer.position();
+        int end = start + dataBytesCount;
+        int from = start;
+        int to = end;
+        if (trim) {
+            // same as String.trim()
+            while (from < to && (buffer.get(from) & 0xFF) <= ' ') {
+                from++;
+            }
+            while (to > from && (buffer.get(to - 1) & 0xFF) <= ' ') {
+                to--;
+            }
+        } else if (leftJustified) {
+            while (to > from && buffer.get(to - 1) == padding) {
+                to--;
+            }
+        } else {
+            while (from < to && buffer.get(from) == padding) {
+                from++;
+            }
         }
+        buffer.position(from);
+        String decoded = ByteUtil.getChars(buffer, to - from);
+        buffer.position(end);
         return decoded;
     }
 
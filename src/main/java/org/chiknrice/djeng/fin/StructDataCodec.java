@@ -15,6 +15,8 @@
  */
 package org.chiknrice.djeng.fin;
 
+import org.chiknrice.djeng.ByteUtil;
+
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
@@ -22,6 +24,15 @@ import java.nio.charset.StandardCharsets;
  * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
  */
 public class StructDataCodec extends StringCodec {
+
+    /**
+     * The length header depends on the encoded bytes so the value is not encoded in place.
+     */
+    @Override
+    protected void encodeValue(ByteBuffer buffer, String value) {
+        putDataBytes(buffer, encodeString(value));
+    }
+
     @Override
     protected void putDataBytes(ByteBuffer buffer, byte[] bytes) {
         StringBuilder sb = new StringBuilder();
@@ -34,13 +45,28 @@ public class StructDataCodec extends StringCodec {
 
     @Override
     protected byte[] getDataBytes(ByteBuffer buffer) {
-        int lengthByteCount = Integer.parseInt(new String(new byte[]{buffer.get()}, StandardCharsets.ISO_8859_1));
-        byte[] lengthBytes = new byte[lengthByteCount];
-        buffer.get(lengthBytes);
-        int dataBytesCount = Integer.parseInt(new String(lengthBytes, StandardCharsets.ISO_8859_1));
-        byte[] dataBytes = new byte[dataBytesCount];
+        byte[] dataBytes = new byte[getStructDataLength(buffer)];
         buffer.get(dataBytes);
         return dataBytes;
     }
 
+    @Override
+    protected String decodeValue(ByteBuffer buffer) {
+        return decodeString(buffer, getStructDataLength(buffer));
+    }
+
+    @Override
+    public void skip(ByteBuffer buffer) {
+        int dataBytesCount = getStructDataLength(buffer);
+        buffer.position(buffer.position() + dataBytesCount);
+    }
+
+    /**
+     * Consumes the length header which is a digit for the number of length digits followed by the length digits.
+     */
+    private int getStructDataLength(ByteBuffer buffer) {
+        int lengthByteCount = Integer.parseInt(ByteUtil.getChars(buffer, 1));
+        return Integer.parseInt(ByteUtil.getChars(buffer, lengthByteCount));
+    }
+
 }
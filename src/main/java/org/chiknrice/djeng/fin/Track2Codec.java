@@ -2,6 +2,8 @@ package org.chiknrice.djeng.fin;
 
 import org.chiknrice.djeng.ByteUtil;
 
+import java.nio.ByteBuffer;
+
 import static org.chiknrice.djeng.fin.FinancialAttribute.PACKED;
 
 /**
@@ -9,9 +11,16 @@ import static org.chiknrice.djeng.fin.FinancialAttribute.PACKED;
  */
 public class Track2Codec extends StringCodec implements LengthPrefixDelegate {
 
+    private boolean packed;
+
+    @Override
+    protected void compile() {
+        super.compile();
+        packed = Boolean.TRUE.equals(getAttribute(PACKED));
+    }
+
     @Override
     protected byte[] encodeValue(String value) {
-        Boolean packed = getAttribute(PACKED);
         if (packed) {
             value = value.replace('=', 'D');
             if (value.length() % 2 > 0) {
@@ -24,19 +33,48 @@ public class Track2Codec extends StringCodec implements LengthPrefixDelegate {
     }
 
     @Override
-    protected String decodeValue(byte[] bytes) {
-        Boolean packed = getAttribute(PACKED);
+    protected void encodeValue(ByteBuffer buffer, String value) {
         if (packed) {
-            String packedTrack2 = ByteUtil.encodeHex(bytes);
-            if (packedTrack2.endsWith("F")) {
-                packedTrack2 = packedTrack2.substring(0, packedTrack2.length() - 1);
+            int length = value.length();
+            for (int i = 0; i < length; i += 2) {
+                int hi = packedNibble(value.charAt(i));
+                int lo = i + 1 < length ? packedNibble(value.charAt(i + 1)) : 0x0F;
+                buffer.put((byte) ((hi << 4) | lo));
             }
-            return packedTrack2.replace('D', '=');
+        } else {
+            super.encodeValue(buffer, value);
+        }
+    }
+
+    private int packedNibble(char c) {
+        return ByteUtil.hexValue(c == '=' ? 'D' : c);
+    }
+
+    @Override
+    protected String decodeValue(byte[] bytes) {
+        if (packed) {
+            return unpack(ByteUtil.encodeHex(bytes));
         } else {
             return super.decodeValue(bytes);
         }
     }
 
+    @Override
+    protected String decodeValue(ByteBuffer buffer) {
+        if (packed) {
+            return unpack(ByteUtil.getHex(buffer, getDataBytesCount(buffer)));
+        } else {
+            return super.decodeValue(buffer);
+        }
+    }
+
+    private String unpack(String packedTrack2) {
+        if (packedTrack2.endsWith("F")) {
+            packedTrack2 = packedTrack2.substring(0, packedTrack2.length() - 1);
+        }
+        return packedTrack2.replace('D', '=');
+    }
+
     @Override
     public int determineLengthPrefixValue(Object value) {
         return value.toString().length();
@@ -44,7 +82,6 @@ public class Track2Codec extends StringCodec implements LengthPrefixDelegate {
 
     @Override
     public int determineDataBytesCount(int lengthPrefix) {
-        Boolean packed = getAttribute(PACKED);
         if (packed) {
             return lengthPrefix / 2 + lengthPrefix % 2;
         } else {
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class BatchCodingTest {
+
+    private static final class Handler implements MessageHandler {
+
+        private final List<Integer> stans = new ArrayList<>();
+
+        @Override
+        public void onMessage(Message message) {
+            stans.add(message.getIntElement("11"));
+        }
+
+    }
+
+    private final MessageCodec codec = Samples.codec(Samples.ISO87);
+    private final FrameHeader header = FrameHeader.chars(4);
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> range = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            range.add(i);
+        }
+        return range;
+    }
+
+    private static int frameLength(MessageCodec codec) {
+        return codec.encode(Samples.iso87Message()).length + 4;
+    }
+
+    @Test
+    public void decodesTheEncodedFrames() {
+        ByteBuffer buffer = Samples.framedMessages(codec, header, 50);
+        Handler handler = new Handler();
+        assertEquals(50, codec.decodeAll(buffer, header, handler));
+        assertEquals(range(0, 50), handler.stans);
+        assertEquals(buffer.limit(), buffer.position());
+        assertEquals(String.format("%04d", frameLength(codec) - 4),
+                new String(buffer.array(), 0, 4, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void leavesAnIncompleteTrailingFrame() {
+        ByteBuffer buffer = Samples.framedMessages(codec, header, 3);
+        int last = Samples.framePosition(buffer, header, 2);
+        Handler handler = new Handler();
+        for (int limit : new int[]{last + 2, last + 4, buffer.limit() - 1}) {
+            ByteBuffer partial = buffer.duplicate();
+            partial.limit(limit);
+            handler.stans.clear();
+            assertEquals(2, codec.decodeAll(partial, header, handler));
+            assertEquals(range(0, 2), handler.stans);
+            assertEquals(last, partial.position());
+        }
+    }
+
+    @Test
+    public void stopsAfterAFrameWhichFailsToDecode() {
+        ByteBuffer buffer = Samples.framedMessages(codec, header, 5);
+        Samples.corruptFrame(buffer, header, 2);
+        Handler handler = new Handler();
+        try {
+            codec.decodeAll(buffer, header, handler);
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[5]"));
+        }
+        assertEquals(range(0, 2), handler.stans);
+        assertEquals(Samples.framePosition(buffer, header, 3), buffer.position());
+        assertEquals(2, codec.decodeAll(buffer, header, handler));
+        assertEquals(range(3, 5), handler.stans.subList(2, 4));
+    }
+
+    @Test
+    public void stopsBeforeAMessageWhichFailsToEncode() {
+        List<Message> messages = Samples.numberedMessages(5);
+        messages.get(3).removeElement("48.1");
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        try {
+            codec.encodeAll(messages, header, buffer);
+            fail();
+        } catch (CodecException e) {
+            assertEquals("element[48.1] Missing required element", e.getMessage());
+        }
+        assertEquals(frameLength(codec) * 3, buffer.position());
+
+        buffer.flip();
+        Handler handler = new Handler();
+        assertEquals(3, codec.decodeAll(buffer, header, handler));
+        assertEquals(range(0, 3), handler.stans);
+    }
+
+    @Test
+    public void stopsBeforeAMessageWhichDoesntFitTheBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(frameLength(codec) * 2 + 10);
+        try {
+            codec.encodeAll(Samples.numberedMessages(3), header, buffer);
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(String.valueOf(e), MessageCodec.isOverflow(e));
+        }
+        assertEquals(frameLength(codec) * 2, buffer.position());
+
+        ByteBuffer noHeader = ByteBuffer.allocate(3);
+        try {
+            codec.encodeAll(Samples.numberedMessages(1), header, noHeader);
+            fail();
+        } catch (BufferOverflowException e) {
+            assertEquals(0, noHeader.position());
+        }
+    }
+
+    @Test
+    public void writesTheFramesToAChannel() throws IOException {
+        // buffers of 2 frames so that the buffer is written several times
+        int bufferSize = frameLength(codec) * 2 + 10;
+        for (MessageCodec channelCodec : new MessageCodec[]{
+                new MessageCodec(Samples.config(Samples.ISO87).withEncodeBufferSize(bufferSize).build()),
+                new MessageCodec(Samples.config(Samples.ISO87).withEncodeBufferSize(bufferSize)
+                        .withEncodeBufferPool(1).build())}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(7, channelCodec.encodeAll(Samples.numberedMessages(7), header, Channels.newChannel(out)));
+            assertEquals(frameLength(codec) * 7, out.size());
+
+            Handler handler = new Handler();
+            assertEquals(7, codec.decodeAll(ByteBuffer.wrap(out.toByteArray()), header, handler));
+            assertEquals(range(0, 7), handler.stans);
+        }
+    }
+
+    @Test
+    public void writesOnlyWholeFramesToAChannelWhenEncodingFails() throws IOException {
+        int bufferSize = frameLength(codec) * 2 + 10;
+        MessageCodec channelCodec = new MessageCodec(Samples.config(Samples.ISO87).withEncodeBufferSize(bufferSize)
+                .build());
+        List<Message> messages = Samples.numberedMessages(5);
+        messages.get(3).removeElement("48.1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            channelCodec.encodeAll(messages, header, Channels.newChannel(out));
+            fail();
+        } catch (CodecException e) {
+            assertEquals("element[48.1] Missing required element", e.getMessage());
+        }
+        // only the first buffer of 2 frames was written
+        assertEquals(frameLength(codec) * 2, out.size());
+
+        MessageCodec smallBufferCodec = new MessageCodec(Samples.config(Samples.ISO87)
+                .withEncodeBufferSize(frameLength(codec) - 1).build());
+        try {
+            smallBufferCodec.encodeAll(Samples.numberedMessages(1), header, Channels.newChannel(out));
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(String.valueOf(e), MessageCodec.isOverflow(e));
+        }
+    }
+
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.chiknrice.djeng.ByteUtil.decodeBcd;
+import static org.chiknrice.djeng.ByteUtil.decodeBcdF;
+import static org.chiknrice.djeng.ByteUtil.decodeCBcd;
+import static org.chiknrice.djeng.ByteUtil.decodeCcBcd;
+import static org.chiknrice.djeng.ByteUtil.decodeHex;
+import static org.chiknrice.djeng.ByteUtil.encodeBcd;
+import static org.chiknrice.djeng.ByteUtil.encodeBcdF;
+import static org.chiknrice.djeng.ByteUtil.encodeCBcd;
+import static org.chiknrice.djeng.ByteUtil.encodeCcBcd;
+import static org.chiknrice.djeng.ByteUtil.encodeHex;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class ByteUtilTest {
+
+    private static ByteBuffer buffer(String hex) {
+        return ByteBuffer.wrap(decodeHex(hex));
+    }
+
+    private static String encoded(ByteBuffer buffer) {
+        buffer.flip();
+        return ByteUtil.getHex(buffer, buffer.remaining());
+    }
+
+    private static void assertInvalid(String message, Runnable conversion) {
+        try {
+            conversion.run();
+            fail(message);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void convertsHex() {
+        assertEquals("00017F80FF", encodeHex(new byte[]{0, 1, 0x7f, (byte) 0x80, (byte) 0xff}));
+        assertArrayEquals(new byte[]{(byte) 0xab, (byte) 0xcd}, decodeHex("abCD"));
+        assertEquals(0xa, ByteUtil.hexValue('a'));
+        assertInvalid("Invalid hex char G", new Runnable() {
+            @Override
+            public void run() {
+                decodeHex("0G");
+            }
+        });
+        assertInvalid("Invalid hex char \u00e9", new Runnable() {
+            @Override
+            public void run() {
+                ByteUtil.hexValue('\u00e9');
+            }
+        });
+        assertInvalid("Odd character hex chars", new Runnable() {
+            @Override
+            public void run() {
+                decodeHex("ABC");
+            }
+        });
+
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        ByteUtil.putHexLong(buffer, 0x1234abcdL, 2);
+        assertEquals("ABCD", new String(buffer.array(), 0, 4, StandardCharsets.ISO_8859_1));
+        buffer.flip();
+        assertEquals(0xabcdL, ByteUtil.getHexLong(buffer, 2));
+    }
+
+    @Test
+    public void convertsBcd() {
+        assertEquals("0123", encodedBcd("123"));
+        assertEquals("1234", encodedBcd("1234"));
+        assertEquals("", encodedBcd(""));
+        assertEquals("0123", decodeBcd(decodeHex("0123")));
+        assertEquals("999999", decodeBcd(decodeHex("999999")));
+        assertInvalid("Invalid BCD: 12a", new Runnable() {
+            @Override
+            public void run() {
+                encodeBcd("12a");
+            }
+        });
+        // only ASCII digits are numeric
+        assertInvalid("Invalid BCD: 1\u0663", new Runnable() {
+            @Override
+            public void run() {
+                encodeBcd("1\u0663");
+            }
+        });
+        assertInvalid("Invalid BCD: 120A", new Runnable() {
+            @Override
+            public void run() {
+                decodeBcd(decodeHex("120A"));
+            }
+        });
+    }
+
+    private static String encodedBcd(String value) {
+        return encodeHex(encodeBcd(value));
+    }
+
+    @Test
+    public void convertsBcdToAndFromLong() {
+        ByteBuffer buffer = ByteBuffer.allocate(3);
+        ByteUtil.putBcd(buffer, 1234L, 5);
+        assertEquals("001234", encoded(buffer));
+        assertEquals(1234L, ByteUtil.getBcdLong(buffer("001234"), 3));
+        assertEquals(999999999999999999L, ByteUtil.getBcdLong(buffer("00999999999999999999"), 10));
+        assertInvalid("BCD value exceeds long: 99999999999999999999", new Runnable() {
+            @Override
+            public void run() {
+                ByteUtil.getBcdLong(buffer("99999999999999999999"), 10);
+            }
+        });
+        assertInvalid("Invalid BCD: 00F1", new Runnable() {
+            @Override
+            public void run() {
+                ByteUtil.getBcdLong(buffer("00F1"), 2);
+            }
+        });
+        assertInvalid("123456 exceeds 5 digits", new Runnable() {
+            @Override
+            public void run() {
+                ByteUtil.putBcd(ByteBuffer.allocate(3), 123456L, 5);
+            }
+        });
+        assertInvalid("Invalid BCD: -1", new Runnable() {
+            @Override
+            public void run() {
+                ByteUtil.putBcd(ByteBuffer.allocate(3), -1L, 5);
+            }
+        });
+    }
+
+    @Test
+    public void convertsBcdF() {
+        assertEquals("123F", encodeHex(encodeBcdF("123")));
+        assertEquals("1234", encodeHex(encodeBcdF("1234")));
+        assertEquals("1F", encodeHex(encodeBcdF("1")));
+        assertEquals("", encodeHex(encodeBcdF("")));
+        assertEquals("123", decodeBcdF(decodeHex("123F")));
+        assertEquals("1234", decodeBcdF(decodeHex("1234")));
+        assertEquals(123L, ByteUtil.getBcdFLong(buffer("123F"), 2));
+        assertInvalid("Invalid BCD_F: 0123", new Runnable() {
+            @Override
+            public void run() {
+                encodeBcdF("0123");
+            }
+        });
+        assertInvalid("Invalid BCD_F: 0123", new Runnable() {
+            @Override
+            public void run() {
+                decodeBcdF(decodeHex("0123"));
+            }
+        });
+        assertInvalid("Invalid BCD_F: 12E", new Runnable() {
+            @Override
+            public void run() {
+                decodeBcdF(decodeHex("12EF"));
+            }
+        });
+    }
+
+    @Test
+    public void convertsCBcd() {
+        assertEquals("C123", encodeHex(encodeCBcd("0123")));
+        assertEquals("D123", encodeHex(encodeCBcd("-123")));
+        assertEquals("0123", decodeCBcd(decodeHex("C123")));
+        assertEquals("0123", decodeCBcd(decodeHex("0123")));
+        assertEquals("-123", decodeCBcd(decodeHex("D123")));
+        assertEquals("", decodeCBcd(new byte[0]));
+        assertEquals(-123L, ByteUtil.getCBcdLong(buffer("D123"), 2));
+
+        ByteBuffer buffer = ByteBuffer.allocate(2);
+        ByteUtil.putCBcd(buffer, -45L, 4);
+        assertEquals("D045", encoded(buffer));
+        assertInvalid("Invalid C_BCD: 1123", new Runnable() {
+            @Override
+            public void run() {
+                encodeCBcd("1123");
+            }
+        });
+        assertInvalid("Odd character hex chars", new Runnable() {
+            @Override
+            public void run() {
+                encodeCBcd("-12");
+            }
+        });
+        assertInvalid("Invalid C_BCD: A123", new Runnable() {
+            @Override
+            public void run() {
+                decodeCBcd(decodeHex("A123"));
+            }
+        });
+        assertInvalid("Invalid C_BCD: -12A", new Runnable() {
+            @Override
+            public void run() {
+                decodeCBcd(decodeHex("D12A"));
+            }
+        });
+    }
+
+    @Test
+    public void convertsCcBcd() {
+        assertEquals("430123", encodeHex(encodeCcBcd("000123")));
+        assertEquals("440123", encodeHex(encodeCcBcd("-00123")));
+        assertEquals("000123", decodeCcBcd(decodeHex("430123")));
+        assertEquals("-00123", decodeCcBcd(decodeHex("440123")));
+        assertEquals(-123L, ByteUtil.getCcBcdLong(buffer("440123"), 3));
+
+        ByteBuffer buffer = ByteBuffer.allocate(3);
+        ByteUtil.putCcBcd(buffer, 123L, 4);
+        assertEquals("430123", encoded(buffer));
+        assertInvalid("Invalid CC_BCD: 010123", new Runnable() {
+            @Override
+            public void run() {
+                encodeCcBcd("010123");
+            }
+        });
+        assertInvalid("Invalid CC_BCD: 450123", new Runnable() {
+            @Override
+            public void run() {
+                decodeCcBcd(decodeHex("450123"));
+            }
+        });
+    }
+
+    @Test
+    public void convertsCharsToAndFromLong() {
+        ByteBuffer buffer = ByteBuffer.allocate(6);
+        ByteUtil.putChars(buffer, -42L, 6);
+        assertEquals("-00042", new String(buffer.array(), StandardCharsets.ISO_8859_1));
+        buffer.flip();
+        assertEquals(-42L, ByteUtil.getCharsLong(buffer, 6));
+
+        ByteBuffer min = ByteBuffer.allocate(20);
+        ByteUtil.putChars(min, Long.MIN_VALUE, 20);
+        min.flip();
+        assertEquals(Long.MIN_VALUE, ByteUtil.getCharsLong(min, 20));
+
+        assertInvalid("12345 exceeds 4 characters", new Runnable() {
+            @Override
+            public void run() {
+                ByteUtil.putChars(ByteBuffer.allocate(4), 12345L, 4);
+            }
+        });
+        for (final String notANumber : new String[]{"-", "12a", "9223372036854775808"}) {
+            assertInvalid("For input string: \"" + notANumber + "\"", new Runnable() {
+                @Override
+                public void run() {
+                    ByteUtil.getCharsLong(ByteBuffer.wrap(notANumber.getBytes(StandardCharsets.ISO_8859_1)),
+                            notANumber.length());
+                }
+            });
+        }
+    }
+
+    @Test
+    public void checksTheBufferBounds() {
+        try {
+            ByteUtil.getBcd(buffer("12"), 2);
+            fail();
+        } catch (BufferUnderflowException e) {
+            // only 1 byte
+        }
+        try {
+            ByteUtil.putBcd(ByteBuffer.allocate(1), 123L, 3);
+            fail();
+        } catch (BufferOverflowException e) {
+            // needs 2 bytes
+        }
+        ByteBuffer buffer = buffer("0123");
+        try {
+            ByteUtil.getCBcd(buffer, 3);
+            fail();
+        } catch (BufferUnderflowException e) {
+            assertEquals(0, buffer.position());
+        }
+    }
+
+}
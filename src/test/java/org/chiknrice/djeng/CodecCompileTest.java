@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.chiknrice.djeng.fin.FinancialAttribute;
+import org.chiknrice.djeng.fin.StringCodec;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class CodecCompileTest {
+
+    // the codecs are only built by the test thread
+    private static final List<String> COMPILED = new ArrayList<>();
+
+    public static class RecordingStringCodec extends StringCodec {
+
+        @Override
+        protected void compile() {
+            super.compile();
+            COMPILED.add("element " + getAttribute(CoreAttribute.INDEX));
+        }
+
+    }
+
+    public static class RecordingCodecFilter extends CodecFilter<Object, Object> {
+
+        @Override
+        protected void encode(ByteBuffer buffer, Object element, Codec<Object> chain) {
+            chain.encode(buffer, element);
+        }
+
+        @Override
+        protected Object decode(ByteBuffer buffer, Codec<Object> chain) {
+            return chain.decode(buffer);
+        }
+
+        @Override
+        protected void compile() {
+            super.compile();
+            COMPILED.add("filter " + getAttribute(CoreAttribute.INDEX) + " "
+                    + getAttribute(FinancialAttribute.LVAR_LENGTH));
+        }
+
+    }
+
+    public static class RecordingCompositeCodec extends CompositeCodec {
+
+        @Override
+        protected void compile() {
+            super.compile();
+            COMPILED.add("composite " + getAttribute(CoreAttribute.INDEX) + " " + getSubElementsCodecs().keySet());
+        }
+
+    }
+
+    @Test
+    public void compilesEachCodecOnceAfterTheCodecsItDependsOn() {
+        COMPILED.clear();
+        MessageCodec codec = Samples.codec("compile-order.xml");
+        assertEquals(Arrays.asList(
+                "element 1",
+                "element 1",
+                "element 2",
+                "filter 2 2",
+                "composite 2 [1, 2]",
+                "filter 2 3",
+                "composite null [1, 2]"), COMPILED);
+
+        Message message = new Message();
+        message.setElement("1", "AB");
+        message.setElement("2.1", "C");
+        message.setElement("2.2", "DEF");
+        byte[] encoded = codec.encode(message);
+        assertEquals("AB006C03DEF", new String(encoded, StandardCharsets.ISO_8859_1));
+        assertEquals(Samples.elements(message), Samples.elements(codec.decode(encoded)));
+        assertEquals(7, COMPILED.size());
+    }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class CompositeMapTest {
+
+    @Test
+    public void iteratesNumericIndexesInAscendingOrderBeforeTheOtherIndexes() {
+        CompositeMap map = new CompositeMap();
+        map.put("192", "c");
+        map.put("a", "x");
+        map.put("65", "b");
+        map.put("01", "y");
+        map.put("1", "a");
+        map.put("193", "z");
+        map.put(64, "d");
+
+        List<String> keys = new ArrayList<>(map.keySet());
+        assertEquals(Arrays.asList("1", "64", "65", "192"), keys.subList(0, 4));
+        assertEquals(7, map.size());
+        assertTrue(keys.containsAll(Arrays.asList("a", "01", "193")));
+
+        List<String> entryKeys = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            entryKeys.add(entry.getKey());
+        }
+        assertEquals(keys, entryKeys);
+    }
+
+    @Test
+    public void keepsZeroPaddedIndexesApartFromCanonicalOnes() {
+        CompositeMap map = new CompositeMap();
+        map.put("1", "a");
+        map.put("01", "b");
+        assertEquals("a", map.get("1"));
+        assertEquals("a", map.get(1));
+        assertEquals("b", map.get("01"));
+        assertTrue(map.containsKey("01"));
+        assertEquals("b", map.remove("01"));
+        assertFalse(map.containsKey("01"));
+        assertTrue(map.containsKey(1));
+    }
+
+    @Test
+    public void putsGetsAndRemovesByStringOrIntIndex() {
+        CompositeMap map = new CompositeMap();
+        assertNull(map.get(2));
+        assertNull(map.put("2", "a"));
+        assertEquals("a", map.put(2, "b"));
+        assertEquals("b", map.get("2"));
+        assertTrue(map.containsKey(2));
+        assertFalse(map.containsKey(3));
+        assertFalse(map.containsKey(Integer.valueOf(2)));
+        assertNull(map.remove("3"));
+        assertEquals("b", map.remove("2"));
+        assertNull(map.remove("2"));
+        assertFalse(map.containsKey("2"));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void findsTheNextPresentIndexAcrossWords() {
+        CompositeMap map = new CompositeMap();
+        assertEquals(-1, map.nextIndex(1));
+        for (int index : new int[]{1, 63, 64, 65, 128, 129, 192}) {
+            map.put(index, "x");
+        }
+        List<Integer> indexes = new ArrayList<>();
+        for (int index = map.nextIndex(1); index > 0; index = map.nextIndex(index + 1)) {
+            indexes.add(index);
+        }
+        assertEquals(Arrays.asList(1, 63, 64, 65, 128, 129, 192), indexes);
+        assertEquals(1, map.nextIndex(0));
+        assertEquals(128, map.nextIndex(66));
+        assertEquals(-1, map.nextIndex(193));
+    }
+
+    @Test
+    public void rejectsNullsAndNumericIndexesOutOfRange() {
+        CompositeMap map = new CompositeMap();
+        for (int index : new int[]{0, 193}) {
+            try {
+                map.put(index, "x");
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("Numeric index should be from 1 to 192", e.getMessage());
+            }
+        }
+        try {
+            map.put("1", null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Composite map cannot have null keys or values", e.getMessage());
+        }
+        try {
+            map.put(null, "x");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Composite map cannot have null keys or values", e.getMessage());
+        }
+        assertSame(CompositeMap.toIndex(48), CompositeMap.toIndex(48));
+        assertEquals("48", CompositeMap.toIndex(48));
+    }
+
+    @Test
+    public void removesAndWritesThroughTheIterators() {
+        CompositeMap map = new CompositeMap();
+        map.put("1", "a");
+        map.put("2", "b");
+        map.put("x", "c");
+
+        Iterator<String> keys = map.keySet().iterator();
+        assertEquals("1", keys.next());
+        keys.remove();
+        try {
+            keys.remove();
+            fail();
+        } catch (IllegalStateException e) {
+            // removing twice
+        }
+        Iterator<Map.Entry<String, Object>> entries = map.entrySet().iterator();
+        entries.next().setValue("B");
+        entries.next();
+        entries.remove();
+        assertFalse(entries.hasNext());
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("2", "B");
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.nextIndex(1));
+    }
+
+    @Test
+    public void comparesByteArrayValuesByContent() {
+        CompositeMap map = new CompositeMap();
+        map.put("52", new byte[]{1, 2});
+        map.put("key", new byte[]{3});
+        CompositeMap other = new CompositeMap();
+        other.put("52", new byte[]{1, 2});
+        other.put("key", new byte[]{3});
+        assertEquals(map, other);
+        assertEquals(map.hashCode(), other.hashCode());
+
+        other.put("52", new byte[]{1, 3});
+        assertFalse(map.equals(other));
+    }
+
+    @Test
+    public void growsTheNumericElementsOnDemand() {
+        CompositeMap map = new CompositeMap();
+        map.put(3, "c");
+        assertNull(map.get(192));
+        assertNull(map.get("100"));
+        assertFalse(map.containsKey(192));
+        assertNull(map.remove("192"));
+
+        map.put(192, "z");
+        map.put(1, "a");
+        assertEquals("c", map.get(3));
+        assertEquals("z", map.get("192"));
+        assertEquals("a", map.get(1));
+        assertNull(map.get(100));
+        assertEquals(Arrays.asList("1", "3", "192"), new ArrayList<>(map.keySet()));
+    }
+
+    @Test
+    public void clonesTheElementsIndependently() {
+        CompositeMap map = new CompositeMap();
+        map.put("2", "a");
+        map.put("key", "b");
+        CompositeMap clone = map.clone();
+        assertEquals(map, clone);
+
+        clone.put("2", "changed");
+        clone.put(128, "added");
+        clone.remove("key");
+        assertEquals("a", map.get("2"));
+        assertEquals("b", map.get("key"));
+        assertFalse(map.containsKey(128));
+        assertEquals(Arrays.asList("2", "128"), new ArrayList<>(clone.keySet()));
+    }
+
+    @Test
+    public void serializesTheElements() throws Exception {
+        CompositeMap map = new CompositeMap();
+        map.put("2", "4111111111111111");
+        map.put(128, new byte[]{1, 2});
+        map.put("key", 42L);
+        CompositeMap composite = new CompositeMap();
+        composite.put("1", "sub");
+        map.put("48", composite);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(map);
+        }
+        CompositeMap copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (CompositeMap) in.readObject();
+        }
+        assertEquals(map, copy);
+        assertEquals(Arrays.asList("2", "48", "128", "key"), new ArrayList<>(copy.keySet()));
+        assertEquals(48, copy.nextIndex(3));
+    }
+
+    @Test
+    public void serializesLazilyDecodedElementsDecoded() throws Exception {
+        MessageCodec codec = Samples.codec(Samples.ISO87);
+        MessageCodec lazyCodec = new MessageCodec(Samples.config(Samples.ISO87).withLazyDecoding().build());
+        byte[] encoded = codec.encode(Samples.iso87Message());
+        CompositeMap map = lazyCodec.decode(encoded).getCompositeMap();
+        // the bitmap isn't serializable
+        map.remove("1");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(map);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            CompositeMap expected = codec.decode(encoded).getCompositeMap();
+            expected.remove("1");
+            assertEquals(expected, in.readObject());
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class ErrorIndexPathTest {
+
+    private static class RecordingSectionListener implements SectionListener {
+
+        private SortedSet<Section> encoded;
+        private SortedSet<Section> decoded;
+
+        @Override
+        public void onEncode(SortedSet<Section> sections) {
+            encoded = sections;
+        }
+
+        @Override
+        public void onDecode(SortedSet<Section> sections) {
+            decoded = sections;
+        }
+
+    }
+
+    private final MessageCodec codec = Samples.codec(Samples.ISO87);
+
+    private static List<String> indexPaths(SortedSet<Section> sections) {
+        List<String> indexPaths = new ArrayList<>();
+        for (Section section : sections) {
+            indexPaths.add(section.getIndexPath());
+        }
+        return indexPaths;
+    }
+
+    private static Section section(SortedSet<Section> sections, String indexPath) {
+        for (Section section : sections) {
+            if (section.getIndexPath().equals(indexPath)) {
+                return section;
+            }
+        }
+        throw new AssertionError("No section " + indexPath);
+    }
+
+    private void assertNotEncodable(MessageCodec codec, Message message, String error) {
+        try {
+            codec.encode(message);
+            fail();
+        } catch (CodecException e) {
+            assertEquals(error, e.getMessage());
+        }
+    }
+
+    @Test
+    public void reportsThePathOfMissingSubElements() {
+        Message message = Samples.iso87Message();
+        message.removeElement("48.1");
+        assertNotEncodable(codec, message, "element[48.1] Missing required element");
+    }
+
+    @Test
+    public void reportsThePathOfSubElementsWhichFailToEncode() {
+        Message message = Samples.iso87Message();
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'x');
+        message.setElement("48.2", new String(chars));
+        assertNotEncodable(codec, message, "element[48.2] java.lang.IllegalArgumentException: 1000 exceeds 3 characters");
+    }
+
+    @Test
+    public void reportsThePathOfSubElementsWhichFailToDecode() {
+        RecordingSectionListener listener = new RecordingSectionListener();
+        MessageCodec recordingCodec = new MessageCodec(Samples.config(Samples.ISO87).withSectionListener(listener)
+                .build());
+        byte[] encoded = recordingCodec.encode(Samples.iso87Message());
+        encoded[section(listener.encoded, "48.2.len").getPosition()] = 'x';
+        try {
+            recordingCodec.decode(encoded);
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("element[48.2] java.lang.NumberFormatException"));
+        }
+        try {
+            codec.decode(encoded);
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("element[48.2] java.lang.NumberFormatException"));
+        }
+    }
+
+    @Test
+    public void labelsTheSectionsAfterAnError() {
+        RecordingSectionListener listener = new RecordingSectionListener();
+        MessageCodec recordingCodec = new MessageCodec(Samples.config(Samples.ISO87).withSectionListener(listener)
+                .build());
+        byte[] encoded = recordingCodec.encode(Samples.iso87Message());
+        List<String> encodedPaths = indexPaths(listener.encoded);
+        assertTrue(encodedPaths.toString(), encodedPaths.containsAll(Arrays.asList("48.len", "48.1", "48.2.len",
+                "48.2")));
+
+        Message invalid = Samples.iso87Message();
+        invalid.removeElement("48.1");
+        assertNotEncodable(recordingCodec, invalid, "element[48.1] Missing required element");
+
+        recordingCodec.encode(Samples.iso87Message());
+        assertEquals(encodedPaths, indexPaths(listener.encoded));
+        recordingCodec.decode(encoded);
+        assertEquals(encodedPaths, indexPaths(listener.decoded));
+    }
+
+}
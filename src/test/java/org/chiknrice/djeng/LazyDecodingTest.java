@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class LazyDecodingTest {
+
+    private final MessageCodec codec = Samples.codec(Samples.ISO87);
+    private final MessageCodec lazyCodec = new MessageCodec(Samples.config(Samples.ISO87).withLazyDecoding().build());
+    private final byte[] encoded = codec.encode(Samples.iso87Message());
+
+    @Test
+    public void decodesTheSameElementsAsEagerDecoding() {
+        assertEquals(Samples.elements(codec.decode(encoded)), Samples.elements(lazyCodec.decode(encoded)));
+
+        MessageCodec as2805 = Samples.codec(Samples.AS2805);
+        MessageCodec lazyAs2805 = new MessageCodec(Samples.config(Samples.AS2805).withLazyDecoding().build());
+        byte[] as2805Encoded = as2805.encode(Samples.as2805Message());
+        assertEquals(Samples.elements(as2805.decode(as2805Encoded)),
+                Samples.elements(lazyAs2805.decode(as2805Encoded)));
+    }
+
+    @Test
+    public void decodesElementsWhenAccessed() {
+        Message message = lazyCodec.decode(encoded);
+        CompositeMap elements = message.getCompositeMap();
+        assertTrue(elements.getUndecoded("2") instanceof LazyElement);
+        assertTrue(elements.getUndecoded("48") instanceof LazyElement);
+        // the bitmap determines the rest of the elements
+        assertTrue(elements.getUndecoded("1") != null && !(elements.getUndecoded("1") instanceof LazyElement));
+
+        assertEquals("4111111111111111", message.getElement("2"));
+        assertEquals("4111111111111111", elements.getUndecoded("2"));
+        assertEquals("ABC", message.getElement("48.1"));
+        assertTrue(elements.getUndecoded("48") instanceof CompositeMap);
+        assertTrue(elements.getUndecoded("3") instanceof LazyElement);
+    }
+
+    @Test
+    public void decodesWholeNumbersWithoutReplacingThePlaceholder() {
+        Message message = lazyCodec.decode(encoded);
+        assertEquals(42, message.getIntElement("11"));
+        assertEquals(1234L, message.getLongElement("4"));
+        assertTrue(message.getCompositeMap().getUndecoded("11") instanceof LazyElement);
+    }
+
+    @Test
+    public void skipsElementsDecodedThroughTheDataBytes() {
+        MessageCodec dataBytesCodec = new MessageCodec(Samples.config("data-bytes.xml").withLazyDecoding().build());
+        Message message = dataBytesCodec.decode("****1111  1234abc;xy".getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals("xy", message.getElement("4"));
+        assertEquals(1234L, message.getLongElement("2"));
+        assertEquals("abc", message.getElement("3"));
+    }
+
+    @Test
+    public void encodesUntouchedElementsFromTheOriginalBytes() {
+        Message message = lazyCodec.decode(encoded);
+        assertArrayEquals(encoded, lazyCodec.encode(message));
+        assertTrue(message.getCompositeMap().getUndecoded("43") instanceof LazyElement);
+    }
+
+    @Test
+    public void encodesChangedElements() {
+        Message message = lazyCodec.decode(encoded);
+        message.setElement("39", "05");
+        message.setElement("48.2", "changed");
+        message.removeElement("52");
+
+        Message expected = Samples.iso87Message();
+        expected.setElement("39", "05");
+        expected.setElement("48.2", "changed");
+        expected.removeElement("52");
+        assertArrayEquals(codec.encode(expected), lazyCodec.encode(message));
+    }
+
+    @Test
+    public void reportsDecodeErrorsWhenTheElementIsAccessed() {
+        String chars = new String(encoded, StandardCharsets.ISO_8859_1);
+        int date = chars.indexOf("1017235959");
+        byte[] invalid = encoded.clone();
+        invalid[date] = '1';
+        invalid[date + 1] = '3';
+        try {
+            codec.decode(invalid);
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[7]"));
+        }
+
+        Message message = lazyCodec.decode(invalid);
+        assertEquals("003000", message.getElement("3"));
+        try {
+            message.getElement("7");
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[7]"));
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class MappedMessageReaderTest {
+
+    private static final int COUNT = 20;
+
+    private static final class Handler implements MessageHandler {
+
+        private final List<Message> messages = new ArrayList<>();
+        private final List<Integer> stans = new ArrayList<>();
+
+        @Override
+        public void onMessage(Message message) {
+            messages.add(message);
+            stans.add(message.getIntElement("11"));
+        }
+
+    }
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final MessageCodec codec = Samples.codec(Samples.ISO87);
+    private final FrameHeader header = FrameHeader.binary(2);
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> range = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            range.add(i);
+        }
+        return range;
+    }
+
+    private Path write(ByteBuffer frames, int length) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, Arrays.copyOf(frames.array(), length));
+        return file;
+    }
+
+    private int frameLength() {
+        return Samples.framePosition(Samples.framedMessages(codec, header, 1), header, 1);
+    }
+
+    @Test
+    public void readsAllTheMessagesOfTheFile() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, COUNT);
+        Handler handler = new Handler();
+        assertEquals(COUNT, new MappedMessageReader(codec, header).read(write(frames, frames.limit()), handler));
+        assertEquals(range(0, COUNT), handler.stans);
+    }
+
+    @Test
+    public void remapsFromTheFrameWhichCrossesTheRegion() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, COUNT);
+        Path file = write(frames, frames.limit());
+        for (int regionSize : new int[]{frameLength(), frameLength() + 1, frameLength() * 3 - 1, frameLength() * 3 + 7}) {
+            Handler handler = new Handler();
+            assertEquals(COUNT, new MappedMessageReader(codec, header, regionSize).read(file, handler));
+            assertEquals(range(0, COUNT), handler.stans);
+        }
+    }
+
+    @Test
+    public void rejectsAFrameLargerThanTheRegion() throws IOException {
+        List<Message> messages = Samples.numberedMessages(4);
+        messages.get(2).setElement("48.2", "larger additional data");
+        ByteBuffer frames = ByteBuffer.allocate(4 * 512);
+        codec.encodeAll(messages, header, frames);
+        Path file = write(frames, frames.position());
+        Handler handler = new Handler();
+        try {
+            new MappedMessageReader(codec, header, frameLength()).read(file, handler);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(String.format("Frame at %d exceeds the region size %d", frameLength() * 2, frameLength()),
+                    e.getMessage());
+        }
+        assertEquals(range(0, 2), handler.stans);
+
+        try {
+            new MappedMessageReader(codec, header, header.size());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Region size 2 cannot fit a frame", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsAnIncompleteTrailingFrame() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, COUNT);
+        Path file = write(frames, frames.limit() - 5);
+        for (int regionSize : new int[]{frameLength() * 3 + 7, 1 << 20}) {
+            Handler handler = new Handler();
+            try {
+                new MappedMessageReader(codec, header, regionSize).read(file, handler);
+                fail();
+            } catch (EOFException e) {
+                assertEquals(String.format("End of file with %d bytes of an incomplete frame", frameLength() - 5),
+                        e.getMessage());
+            }
+            assertEquals(range(0, COUNT - 1), handler.stans);
+        }
+    }
+
+    @Test
+    public void readsFromThePositionOfTheChannel() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, COUNT);
+        Path file = write(frames, frames.limit());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int position = Samples.framePosition(frames, header, 5);
+            channel.position(position);
+            Handler handler = new Handler();
+            assertEquals(COUNT - 5, new MappedMessageReader(codec, header, frameLength() * 2).read(channel, handler));
+            assertEquals(range(5, COUNT), handler.stans);
+            assertEquals(position, channel.position());
+        }
+    }
+
+    @Test
+    public void decodesTheRegionsInParallel() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, COUNT);
+        Path file = write(frames, frames.limit());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Handler handler = new Handler();
+            ParallelMessageDecoder decoder = new ParallelMessageDecoder(codec, header, pool, true);
+            assertEquals(COUNT, new MappedMessageReader(decoder, frameLength() * 3 + 7).read(file, handler));
+            assertEquals(range(0, COUNT), handler.stans);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void keepsLazilyDecodedElementsReadable() throws IOException {
+        MessageCodec lazyCodec = new MessageCodec(Samples.config(Samples.ISO87).withLazyDecoding().build());
+        ByteBuffer frames = Samples.framedMessages(codec, header, COUNT);
+        Path file = write(frames, frames.limit());
+        Handler handler = new Handler();
+        new MappedMessageReader(lazyCodec, header, frameLength() * 3 + 7).read(file, handler);
+        List<Message> expected = Samples.numberedMessages(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(Samples.elements(expected.get(i)), Samples.elements(handler.messages.get(i)));
+        }
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class MessageFramerTest {
+
+    private static final class Handler implements MessageHandler {
+
+        private final List<Message> messages = new ArrayList<>();
+        private final List<Integer> stans = new ArrayList<>();
+
+        @Override
+        public void onMessage(Message message) {
+            messages.add(message);
+            stans.add(message.getIntElement("11"));
+        }
+
+    }
+
+    private final MessageCodec codec = Samples.codec(Samples.ISO87);
+    private final FrameHeader header = FrameHeader.binary(2);
+    private Pipe pipe;
+
+    @Before
+    public void openPipe() throws IOException {
+        pipe = Pipe.open();
+        pipe.source().configureBlocking(false);
+    }
+
+    @After
+    public void closePipe() throws IOException {
+        pipe.sink().close();
+        pipe.source().close();
+    }
+
+    private void write(ByteBuffer frames, int from, int to) throws IOException {
+        ByteBuffer bytes = frames.duplicate();
+        bytes.limit(to).position(from);
+        while (bytes.hasRemaining()) {
+            pipe.sink().write(bytes);
+        }
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> range = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            range.add(i);
+        }
+        return range;
+    }
+
+    @Test
+    public void decodesSeveralFramesPerRead() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, 5);
+        write(frames, 0, frames.limit());
+        Handler handler = new Handler();
+        assertEquals(5, new MessageFramer(codec, header, 4096).read(pipe.source(), handler));
+        assertEquals(range(0, 5), handler.stans);
+    }
+
+    @Test
+    public void keepsAnIncompleteFrameForTheNextRead() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, 4);
+        int third = Samples.framePosition(frames, header, 3);
+        MessageFramer framer = new MessageFramer(codec, header, 4096);
+        Handler handler = new Handler();
+
+        write(frames, 0, third + 1);
+        assertEquals(3, framer.read(pipe.source(), handler));
+        write(frames, third + 1, frames.limit() - 1);
+        assertEquals(0, framer.read(pipe.source(), handler));
+        // nothing to read from the non-blocking channel
+        assertEquals(0, framer.read(pipe.source(), handler));
+        write(frames, frames.limit() - 1, frames.limit());
+        assertEquals(1, framer.read(pipe.source(), handler));
+        assertEquals(range(0, 4), handler.stans);
+    }
+
+    @Test
+    public void consumesAFrameWhichFailsToDecode() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, 5);
+        Samples.corruptFrame(frames, header, 2);
+        write(frames, 0, frames.limit());
+        MessageFramer framer = new MessageFramer(codec, header, 4096);
+        Handler handler = new Handler();
+        try {
+            framer.read(pipe.source(), handler);
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[5]"));
+        }
+        assertEquals(range(0, 2), handler.stans);
+        // the frames after the failed one are decoded by the next read
+        assertEquals(2, framer.read(pipe.source(), handler));
+        assertEquals(range(0, 2), handler.stans.subList(0, 2));
+        assertEquals(range(3, 5), handler.stans.subList(2, 4));
+    }
+
+    @Test
+    public void rejectsAFrameLargerThanTheBuffer() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, 1);
+        int bufferSize = frames.limit() - 1;
+        write(frames, 0, frames.limit());
+        MessageFramer framer = new MessageFramer(codec, header, ByteBuffer.allocateDirect(bufferSize));
+        try {
+            // a read may not fill the buffer
+            for (int i = 0; i < bufferSize; i++) {
+                framer.read(pipe.source(), new Handler());
+            }
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("Frame exceeds the buffer size " + bufferSize, e.getMessage());
+        }
+
+        try {
+            new MessageFramer(codec, header, header.size());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Buffer size 2 cannot fit a frame", e.getMessage());
+        }
+    }
+
+    @Test
+    public void endsTheStreamAfterTheLastFrame() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, 2);
+        write(frames, 0, frames.limit());
+        pipe.sink().close();
+        MessageFramer framer = new MessageFramer(codec, header, 4096);
+        Handler handler = new Handler();
+        int count = 0;
+        int read;
+        while ((read = framer.read(pipe.source(), handler)) >= 0) {
+            count += read;
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void rejectsTheEndOfStreamInTheMiddleOfAFrame() throws IOException {
+        ByteBuffer frames = Samples.framedMessages(codec, header, 2);
+        write(frames, 0, frames.limit() - 10);
+        pipe.sink().close();
+        MessageFramer framer = new MessageFramer(codec, header, 4096);
+        Handler handler = new Handler();
+        int incomplete = frames.limit() - 10 - Samples.framePosition(frames, header, 1);
+        try {
+            while (framer.read(pipe.source(), handler) >= 0) {
+                assertTrue(handler.stans.size() <= 1);
+            }
+            fail();
+        } catch (EOFException e) {
+            assertEquals("End of stream with " + incomplete + " bytes of an incomplete frame", e.getMessage());
+        }
+        assertEquals(range(0, 1), handler.stans);
+    }
+
+    @Test
+    public void copiesTheFramesWhenDecodingLazily() throws IOException {
+        MessageCodec lazyCodec = new MessageCodec(Samples.config(Samples.ISO87).withLazyDecoding().build());
+        ByteBuffer frames = Samples.framedMessages(codec, header, 20);
+        MessageFramer framer = new MessageFramer(lazyCodec, header, ByteBuffer.allocateDirect(1024));
+        Handler handler = new Handler();
+        // small writes so that the buffer is compacted and reused by each read
+        for (int from = 0; from < frames.limit(); from += 100) {
+            write(frames, from, Math.min(frames.limit(), from + 100));
+            framer.read(pipe.source(), handler);
+        }
+        List<Message> expected = Samples.numberedMessages(20);
+        assertEquals(20, handler.messages.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Samples.elements(expected.get(i)), Samples.elements(handler.messages.get(i)));
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class MessagePatcherTest {
+
+    private final MessageCodec codec = Samples.codec(Samples.ISO87);
+    private final MessagePatcher patcher = new MessagePatcher(
+            new MessageCodec(Samples.config(Samples.ISO87).withLazyDecoding().build()));
+
+    private static Map<String, Object> changes(Object... entries) {
+        Map<String, Object> changes = new HashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            changes.put((String) entries[i], entries[i + 1]);
+        }
+        return changes;
+    }
+
+    /**
+     * @return the sample message with the changes applied
+     */
+    private static Message changed(Message message, Map<String, Object> changes) {
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            if (change.getValue() != null) {
+                message.setElement(change.getKey(), change.getValue());
+            } else {
+                message.removeElement(change.getKey());
+            }
+        }
+        return message;
+    }
+
+    @Test
+    public void patchesElementsOfTheSameLengthInPlace() {
+        byte[] encoded = codec.encode(Samples.iso87Message());
+        Map<String, Object> changes = changes("mti", "0210", "11", 999, "39", "05", "48.1", "XYZ");
+        byte[] patched = patcher.patch(encoded, changes);
+        assertSame(encoded, patched);
+        assertArrayEquals(codec.encode(changed(Samples.iso87Message(), changes)), patched);
+    }
+
+    @Test
+    public void encodesAgainWhenTheLengthChanges() {
+        byte[] encoded = codec.encode(Samples.iso87Message());
+        byte[] original = encoded.clone();
+        for (Map<String, Object> changes : Arrays.asList(
+                changes("48.2", "shorter"),
+                changes("102", "A LONGER ACCOUNT ID"),
+                changes("mti", "0210", "35", "4111111111111111=2812"))) {
+            byte[] patched = patcher.patch(encoded, changes);
+            assertNotSame(encoded, patched);
+            assertArrayEquals(original, encoded);
+            assertArrayEquals(codec.encode(changed(Samples.iso87Message(), changes)), patched);
+        }
+    }
+
+    @Test
+    public void encodesAgainWhenElementsAreAddedOrRemoved() {
+        byte[] encoded = codec.encode(Samples.iso87Message());
+        for (Map<String, Object> changes : Arrays.asList(
+                changes("38", "AUTH01"),
+                changes("52", null),
+                changes("38", "AUTH01", "52", null, "11", 7))) {
+            byte[] patched = patcher.patch(encoded, changes);
+            assertNotSame(encoded, patched);
+            assertArrayEquals(codec.encode(changed(Samples.iso87Message(), changes)), patched);
+        }
+    }
+
+    @Test
+    public void patchesBinaryBitmapsAndBcdLengthPrefixes() {
+        MessageCodec as2805 = Samples.codec(Samples.AS2805);
+        MessagePatcher as2805Patcher = new MessagePatcher(
+                new MessageCodec(Samples.config(Samples.AS2805).withLazyDecoding().build()));
+        for (Map<String, Object> changes : Arrays.asList(
+                changes("48.2", "CD", "11", 43),
+                changes("48.3", "longer structured"),
+                changes("100", "1234567"),
+                changes("57.3", "third"))) {
+            byte[] encoded = as2805.encode(Samples.as2805Message());
+            byte[] patched = as2805Patcher.patch(encoded, changes);
+            assertArrayEquals(as2805.encode(changed(Samples.as2805Message(), changes)), patched);
+        }
+    }
+
+    @Test
+    public void leavesTheMessageUnchangedIfAChangeFailsToEncode() {
+        byte[] encoded = codec.encode(Samples.iso87Message());
+        byte[] original = encoded.clone();
+        try {
+            patcher.patch(encoded, changes("mti", "0210", "11", 1234567));
+            fail();
+        } catch (CodecException e) {
+            assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+        }
+        assertArrayEquals(original, encoded);
+
+        try {
+            patcher.patch(encoded, changes("mti", "0210", "99", "x"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("No codec defined for 99", e.getMessage());
+        }
+        assertArrayEquals(original, encoded);
+    }
+
+    @Test
+    public void requiresACodecWhichDecodesAllTheElementsLazily() {
+        try {
+            new MessagePatcher(codec);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Patching requires a codec with lazy decoding", e.getMessage());
+        }
+        try {
+            new MessagePatcher(new MessageCodec(Samples.config(Samples.ISO87).withLazyDecoding()
+                    .withSelectiveDecoding("11").build()));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Patching requires a codec which decodes all the elements", e.getMessage());
+        }
+    }
+
+}
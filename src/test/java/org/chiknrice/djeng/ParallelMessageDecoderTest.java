@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class ParallelMessageDecoderTest {
+
+    private static final int PARALLELISM = 4;
+    // more than one window of frames when decoding ordered
+    private static final int COUNT = PARALLELISM * 256 * 3 + 100;
+
+    private final MessageCodec codec = Samples.codec(Samples.ISO87);
+    private final FrameHeader header = FrameHeader.binary(2);
+    private final ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+
+    @After
+    public void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    private static final class OrderedHandler implements MessageHandler {
+
+        private final List<Integer> stans = new ArrayList<>();
+
+        @Override
+        public void onMessage(Message message) {
+            stans.add(message.getIntElement("11"));
+        }
+
+    }
+
+    private static final class UnorderedHandler implements MessageHandler {
+
+        private final AtomicIntegerArray deliveries = new AtomicIntegerArray(COUNT);
+
+        @Override
+        public void onMessage(Message message) {
+            deliveries.incrementAndGet(message.getIntElement("11"));
+        }
+
+    }
+
+    @Test
+    public void deliversTheMessagesInTheOrderOfTheFrames() {
+        ByteBuffer buffer = Samples.framedMessages(codec, header, COUNT);
+        OrderedHandler handler = new OrderedHandler();
+        assertEquals(COUNT, new ParallelMessageDecoder(codec, header, pool, true).decodeAll(buffer, handler));
+        assertEquals(COUNT, handler.stans.size());
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(i, handler.stans.get(i).intValue());
+        }
+        assertEquals(buffer.limit(), buffer.position());
+    }
+
+    @Test
+    public void deliversEachMessageOnceWhenUnordered() {
+        ByteBuffer buffer = Samples.framedMessages(codec, header, COUNT);
+        UnorderedHandler handler = new UnorderedHandler();
+        assertEquals(COUNT, new ParallelMessageDecoder(codec, header, pool, false).decodeAll(buffer, handler));
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(1, handler.deliveries.get(i));
+        }
+        assertEquals(buffer.limit(), buffer.position());
+    }
+
+    @Test
+    public void leavesAnIncompleteFrameInTheBuffer() {
+        ByteBuffer buffer = Samples.framedMessages(codec, header, 10);
+        int end = buffer.limit();
+        // the next frame without its last byte
+        ByteBuffer next = Samples.framedMessages(codec, header, 1);
+        ByteBuffer partial = ByteBuffer.allocate(end + next.remaining() - 1);
+        partial.put(buffer).put(next.array(), 0, next.remaining() - 1).flip();
+        for (boolean ordered : new boolean[]{true, false}) {
+            partial.position(0);
+            UnorderedHandler handler = new UnorderedHandler();
+            assertEquals(10, new ParallelMessageDecoder(codec, header, pool, ordered).decodeAll(partial, handler));
+            assertEquals(end, partial.position());
+        }
+    }
+
+    @Test
+    public void stopsAtTheWindowOfAMessageWhichFailsToDecode() {
+        ByteBuffer buffer = Samples.framedMessages(codec, header, COUNT);
+        int failing = PARALLELISM * 256 * 2 + 10;
+        Samples.corruptFrame(buffer, header, failing);
+
+        OrderedHandler handler = new OrderedHandler();
+        try {
+            new ParallelMessageDecoder(codec, header, pool, true).decodeAll(buffer, handler);
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[5]"));
+        }
+        // the messages of the windows before the failing one were delivered
+        assertEquals(PARALLELISM * 256 * 2, handler.stans.size());
+        assertEquals(0, buffer.position());
+
+        UnorderedHandler unordered = new UnorderedHandler();
+        try {
+            new ParallelMessageDecoder(codec, header, pool, false).decodeAll(buffer, unordered);
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[5]"));
+        }
+        assertEquals(0, unordered.deliveries.get(failing));
+        assertEquals(0, buffer.position());
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.chiknrice.djeng.fin.Bitmap;
+import org.chiknrice.djeng.fin.FinancialAttribute;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The sample configurations and messages of the tests.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public final class Samples {
+
+    public static final String ISO87 = "iso8583-1987-ascii.xml";
+    public static final String AS2805 = "as2805-bcd.xml";
+
+    private Samples() {
+    }
+
+    public static MessageCodecConfig.MessageCodecConfigBuilder config(String name) {
+        return MessageCodecConfig.fromXml("org/chiknrice/djeng/samples/" + name).withSchemas("djeng-financial.xsd")
+                .withCustomAttributes(FinancialAttribute.values());
+    }
+
+    public static MessageCodec codec(String name) {
+        return new MessageCodec(config(name).build());
+    }
+
+    public static Message iso87Message() {
+        Message m = new Message();
+        m.setElement("mti", "0200");
+        m.setElement("2", "4111111111111111");
+        m.setElement("3", "003000");
+        m.setElement("4", 1234L);
+        m.setElement("7", date("MMddHHmmss", "1017235959"));
+        m.setElement("11", 42);
+        m.setElement("12", date("HHmmss", "235959"));
+        m.setElement("13", date("MMdd", "1017"));
+        m.setElement("14", date("yyMM", "2812"));
+        m.setElement("18", "5999");
+        m.setElement("25", "00");
+        m.setElement("32", "123456");
+        m.setElement("35", "4111111111111111=28121011234567890");
+        m.setElement("37", "000000000001");
+        m.setElement("39", "00");
+        m.setElement("41", "TERM01");
+        m.setElement("42", "MERCHANT0001");
+        m.setElement("43", "ACME STORE             WELLINGTON    NZ");
+        m.setElement("48.1", "ABC");
+        m.setElement("48.2", "some additional data");
+        m.setElement("49", "554");
+        m.setElement("52", new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        m.setElement("70", 301);
+        m.setElement("102", "ACCOUNT-1");
+        return m;
+    }
+
+    public static Message as2805Message() {
+        Message m = new Message();
+        m.setElement("mti", "0200");
+        m.setElement("2", "4111111111111111111");
+        m.setElement("3", "003000");
+        m.setElement("4", new BigInteger("1234"));
+        m.setElement("7", date("MMddHHmmss", "1017235959"));
+        m.setElement("11", 42);
+        m.setElement("12", date("HHmmss", "235959"));
+        m.setElement("13", date("MMdd", "1017"));
+        m.setElement("15", date("yyMMdd", "261018"));
+        m.setElement("28", -1500L);
+        m.setElement("30", 2500L);
+        m.setElement("32", 123456L);
+        m.setElement("35", "4111111111111111=2812101123456789");
+        m.setElement("37", "000000000001");
+        m.setElement("41", "TERM01");
+        m.setElement("47.K1", "V1");
+        m.setElement("48.2", "AB");
+        m.setElement("48.3", "structured");
+        m.setElement("48.70", "Z");
+        m.setElement("55.2", "A");
+        m.setElement("55.20", "BC");
+        m.setElement("55.30", "DEF");
+        m.setElement("57.1", "first");
+        m.setElement("57.2", "second");
+        m.setElement("64", new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        m.setElement("90.1", "0200");
+        m.setElement("90.2", "000042");
+        m.setElement("90.3", "1017235959");
+        m.setElement("90.4", "00000123456");
+        m.setElement("90.5", "00000000000");
+        m.setElement("100", "12345");
+        return m;
+    }
+
+    /**
+     * @return the iso87 sample messages with the STAN set to the position of the message
+     */
+    public static List<Message> numberedMessages(int count) {
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Message message = iso87Message();
+            message.setElement("11", i);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * @return the framed numbered messages from position 0 to the limit of the buffer
+     */
+    public static ByteBuffer framedMessages(MessageCodec codec, FrameHeader header, int count) {
+        ByteBuffer buffer = ByteBuffer.allocate(count * 512);
+        codec.encodeAll(numberedMessages(count), header, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @return the position of the frame in the framed messages
+     */
+    public static int framePosition(ByteBuffer buffer, FrameHeader header, int frame) {
+        ByteBuffer frames = buffer.duplicate();
+        frames.position(0);
+        for (int i = 0; i < frame; i++) {
+            int length = header.getLength(frames);
+            frames.position(frames.position() + length);
+        }
+        return frames.position();
+    }
+
+    /**
+     * Sets bit 5 of the bitmap after the mti of a framed iso87 message, which has no codec.
+     */
+    public static void corruptFrame(ByteBuffer buffer, FrameHeader header, int frame) {
+        int bitmap = framePosition(buffer, header, frame) + header.size() + 4;
+        buffer.put(bitmap, (byte) (buffer.get(bitmap) | 0x08));
+    }
+
+    public static Date date(String pattern, String value) {
+        try {
+            return new SimpleDateFormat(pattern).parse(value);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @return the elements of the message by index path without the bitmaps, with byte arrays as hex
+     */
+    public static Map<String, Object> elements(Message message) {
+        Map<String, Object> elements = new TreeMap<>();
+        for (Map.Entry<String, Object> element : message.getElements().entrySet()) {
+            Object value = element.getValue();
+            if (value instanceof Bitmap) {
+                continue;
+            }
+            elements.put(element.getKey(), value instanceof byte[] ? ByteUtil.encodeHex((byte[]) value) : value);
+        }
+        return elements;
+    }
+
+}
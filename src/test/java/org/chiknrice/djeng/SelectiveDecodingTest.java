@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class SelectiveDecodingTest {
+
+    private final byte[] encoded = Samples.codec(Samples.AS2805).encode(Samples.as2805Message());
+
+    private Map<String, Object> decodeSelected(String... indexPaths) {
+        MessageCodec codec = new MessageCodec(Samples.config(Samples.AS2805).withSelectiveDecoding(indexPaths).build());
+        return Samples.elements(codec.decode(encoded));
+    }
+
+    private static Map<String, Object> expected(String... indexPaths) {
+        Map<String, Object> all = Samples.elements(Samples.as2805Message());
+        Map<String, Object> expected = new TreeMap<>();
+        for (String indexPath : indexPaths) {
+            for (Map.Entry<String, Object> element : all.entrySet()) {
+                if (element.getKey().equals(indexPath) || element.getKey().startsWith(indexPath + ".")) {
+                    expected.put(element.getKey(), element.getValue());
+                }
+            }
+        }
+        return expected;
+    }
+
+    @Test
+    public void decodesOnlyTheSelectedElements() {
+        assertEquals(expected("mti", "3", "41", "100"), decodeSelected("mti", "3", "41", "100"));
+    }
+
+    @Test
+    public void decodesSelectedCompositesWhole() {
+        assertEquals(expected("47", "57", "90"), decodeSelected("47", "57", "90"));
+    }
+
+    @Test
+    public void decodesTheSelectedSubElements() {
+        assertEquals(expected("48.3", "55.30", "90.2"), decodeSelected("48.3", "55.30", "90.2"));
+    }
+
+    @Test
+    public void decodesKeyValueCompositesWhole() {
+        assertEquals(expected("47"), decodeSelected("47.K1"));
+    }
+
+    @Test
+    public void decodesNothingElseWhenNothingIsSelected() {
+        assertEquals(expected(), decodeSelected());
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Round trips a different message in each thread with a {@code MessageCodec} shared by the threads and compares the
+ * results with a codec private to the thread.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class SharedMessageCodecTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUND_TRIPS = 2000;
+
+    private static MessageCodec codec(String name, boolean lazyDecoding, int encodeBufferPool) {
+        MessageCodecConfig.MessageCodecConfigBuilder config = Samples.config(name);
+        if (lazyDecoding) {
+            config.withLazyDecoding();
+        }
+        if (encodeBufferPool > 0) {
+            config.withEncodeBufferPool(encodeBufferPool);
+        }
+        return new MessageCodec(config.build());
+    }
+
+    private void assertRoundTrips(final String name, boolean lazyDecoding, int encodeBufferPool) throws Exception {
+        final boolean as2805 = name.equals(Samples.AS2805);
+        final MessageCodec sharedCodec = codec(name, lazyDecoding, encodeBufferPool);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                final int thread = i + 1;
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        // the elements differ per thread so that a value decoded for another thread would be noticed
+                        Message message = as2805 ? Samples.as2805Message() : Samples.iso87Message();
+                        message.setElement("11", thread);
+                        message.setElement("37", String.format("%012d", thread));
+                        message.setElement(as2805 ? "48.3" : "48.2", "thread " + thread);
+                        byte[] expected = codec(name, false, 0).encode(message);
+                        Map<String, Object> expectedElements = Samples.elements(message);
+                        start.await();
+                        for (int j = 0; j < ROUND_TRIPS; j++) {
+                            byte[] encoded = sharedCodec.encode(message);
+                            assertArrayEquals(expected, encoded);
+                            Message decoded = sharedCodec.decode(encoded);
+                            assertEquals(expectedElements, Samples.elements(decoded));
+                            assertArrayEquals(expected, sharedCodec.encode(decoded));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void roundTripsConcurrently() throws Exception {
+        assertRoundTrips(Samples.ISO87, false, 0);
+        assertRoundTrips(Samples.AS2805, false, 0);
+    }
+
+    @Test
+    public void roundTripsLazilyDecodedMessagesConcurrently() throws Exception {
+        assertRoundTrips(Samples.ISO87, true, 0);
+        assertRoundTrips(Samples.AS2805, true, 0);
+    }
+
+    @Test
+    public void roundTripsWithAnEncodeBufferPoolConcurrently() throws Exception {
+        assertRoundTrips(Samples.AS2805, false, THREADS / 2);
+    }
+
+}
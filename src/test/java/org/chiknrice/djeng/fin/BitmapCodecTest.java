@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.ByteUtil;
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.Samples;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class BitmapCodecTest {
+
+    private final MessageCodec codec = Samples.codec("bitmaps.xml");
+
+    private static Message message(int... bits) {
+        Message message = new Message();
+        for (String composite : new String[]{"b", "h", "d"}) {
+            for (int bit : bits) {
+                message.setElement(composite + "." + bit, "x");
+            }
+        }
+        return message;
+    }
+
+    private static Bitmap bitmap(int... bits) {
+        Bitmap bitmap = new Bitmap();
+        for (int bit : bits) {
+            bitmap.set(bit);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Encodes the message and checks the bitmaps of the decoded message, which would be misaligned if any of the
+     * bitmaps are decoded with the wrong number of bytes.
+     */
+    private byte[] assertRoundTrip(int... bits) {
+        byte[] encoded = codec.encode(message(bits));
+        Message decoded = codec.decode(encoded);
+        for (String composite : new String[]{"b", "h", "d"}) {
+            assertEquals(composite, bitmap(bits), decoded.getElement(composite + ".1"));
+        }
+        assertEquals(Samples.elements(message(bits)), Samples.elements(decoded));
+        return encoded;
+    }
+
+    @Test
+    public void roundTripsPrimaryBitmaps() {
+        byte[] encoded = assertRoundTrip(2);
+        assertEquals("400000000000000078", ByteUtil.encodeHex(Arrays.copyOf(encoded, 9)));
+        assertEquals("4000000000000000x", new String(encoded, 9, 17, StandardCharsets.ISO_8859_1));
+        assertEquals("400078", ByteUtil.encodeHex(Arrays.copyOfRange(encoded, 26, 29)));
+    }
+
+    @Test
+    public void roundTripsSecondaryBitmaps() {
+        byte[] encoded = assertRoundTrip(2, 70);
+        assertEquals(16 + 2 + 32 + 2 + 9 + 2, encoded.length);
+    }
+
+    @Test
+    public void roundTripsTertiaryBitmaps() {
+        byte[] encoded = assertRoundTrip(2, 130);
+        assertEquals("C000000000000000800000000000000040000000000000007878",
+                ByteUtil.encodeHex(Arrays.copyOf(encoded, 26)));
+        assertEquals("C00000000000000080000000000000004000000000000000",
+                new String(encoded, 26, 48, StandardCharsets.ISO_8859_1));
+        assertEquals(24 + 2 + 48 + 2 + 17 + 2, encoded.length);
+    }
+
+    @Test
+    public void roundTripsTheHighestBit() {
+        byte[] encoded = assertRoundTrip(2, 70, 130, 192);
+        assertEquals(24 + 4 + 48 + 4 + 24 + 4, encoded.length);
+    }
+
+    @Test
+    public void decodesTertiaryBitmaps() {
+        ByteBuffer buffer = ByteBuffer.allocate(24 + 2 + 48 + 2 + 17 + 2);
+        buffer.put(ByteUtil.decodeHex("C000000000000000800000000000000040000000000000007878"));
+        buffer.put("C00000000000000080000000000000004000000000000000xx".getBytes(StandardCharsets.ISO_8859_1));
+        buffer.put(ByteUtil.decodeHex("C0008080808080808080808080808080407878"));
+        Message decoded = codec.decode(buffer.array());
+        for (String composite : new String[]{"b", "h", "d"}) {
+            assertEquals(composite, bitmap(2, 130), decoded.getElement(composite + ".1"));
+        }
+        assertEquals(Samples.elements(message(2, 130)), Samples.elements(decoded));
+    }
+
+    @Test
+    public void decodesFromTheMiddleOfABuffer() {
+        byte[] encoded = codec.encode(message(2, 70, 130));
+        ByteBuffer buffer = ByteBuffer.allocate(3 + encoded.length + 7);
+        buffer.position(3);
+        buffer.put(encoded);
+        buffer.position(3);
+        Message decoded = codec.decodeFrom(buffer);
+        assertEquals(Samples.elements(message(2, 70, 130)), Samples.elements(decoded));
+        assertEquals(3 + encoded.length, buffer.position());
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.CodecException;
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.MessageCodecConfig;
+import org.chiknrice.djeng.Samples;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class BitmapCompositeCodecTest {
+
+    private final MessageCodec codec = Samples.codec("bitmaps.xml");
+
+    @Test
+    public void encodesOnlyThePresentElements() {
+        Message message = new Message();
+        message.setElement("b.130", "y");
+        message.setElement("b.2", "x");
+        message.setElement("h.70", "z");
+        message.setElement("d.192", "w");
+        byte[] encoded = codec.encode(message);
+        Message decoded = codec.decode(encoded);
+        assertEquals(Samples.elements(message), Samples.elements(decoded));
+        assertEquals("xy", new String(encoded, 24, 2, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void roundTripsElementsAboveTheSecondaryBitmap() {
+        Message message = new Message();
+        for (String composite : new String[]{"b", "h", "d"}) {
+            message.setElement(composite + ".130", "y");
+            message.setElement(composite + ".192", "z");
+        }
+        Message decoded = codec.decode(codec.encode(message));
+        assertEquals(Samples.elements(message), Samples.elements(decoded));
+        Bitmap bitmap = decoded.getElement("b.1");
+        assertEquals(2, bitmap.cardinality());
+    }
+
+    @Test
+    public void rejectsElementsWithoutACodec() {
+        Message message = new Message();
+        message.setElement("b.2", "x");
+        message.setElement("b.3", "x");
+        try {
+            codec.encode(message);
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[3]"));
+        }
+    }
+
+    @Test
+    public void rejectsBitsAboveTheHighestBit() {
+        String config = "<config xmlns=\"http://www.chiknrice.org/djeng\" xmlns:fin=\"http://www.chiknrice.org/djeng/financial\">" +
+                "<codecs>" +
+                "<element-codec id=\"an\" class=\"org.chiknrice.djeng.fin.StringCodec\"/>" +
+                "<element-codec id=\"bitmap\" class=\"org.chiknrice.djeng.fin.BitmapCodec\" fin:bitmap-encoding=\"BINARY\"/>" +
+                "<composite-codec id=\"iso\" class=\"org.chiknrice.djeng.fin.BitmapCompositeCodec\"/>" +
+                "</codecs>" +
+                "<message-elements codec=\"iso\">" +
+                "<element index=\"1\" codec=\"bitmap\"/>" +
+                "<element index=\"193\" codec=\"an\" fin:length=\"1\"/>" +
+                "</message-elements>" +
+                "</config>";
+        try {
+            MessageCodecConfig.fromXml(new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8)))
+                    .withSchemas("djeng-financial.xsd").withCustomAttributes(FinancialAttribute.values()).build();
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Invalid bit number 193"));
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class BitmapTest {
+
+    private static Bitmap bitmap(int... bits) {
+        Bitmap bitmap = new Bitmap();
+        for (int bit : bits) {
+            bitmap.set(bit);
+        }
+        return bitmap;
+    }
+
+    private static List<Integer> bits(Bitmap bitmap) {
+        List<Integer> bits = new ArrayList<>();
+        for (int bit = bitmap.nextSetBit(1); bit > 0; bit = bitmap.nextSetBit(bit + 1)) {
+            bits.add(bit);
+        }
+        return bits;
+    }
+
+    @Test
+    public void keepsBitOneAsTheMostSignificantBitOfTheFirstWord() {
+        Bitmap bitmap = bitmap(1, 64, 65, 192);
+        assertEquals(0x8000000000000001L, bitmap.getWord(0));
+        assertEquals(0x8000000000000000L, bitmap.getWord(1));
+        assertEquals(0x0000000000000001L, bitmap.getWord(2));
+
+        Bitmap fromWords = new Bitmap();
+        fromWords.setWord(0, 0x8000000000000001L);
+        fromWords.setWord(1, 0x8000000000000000L);
+        fromWords.setWord(2, 0x0000000000000001L);
+        assertEquals(bitmap, fromWords);
+        assertEquals(bitmap.hashCode(), fromWords.hashCode());
+    }
+
+    @Test
+    public void setsClearsAndTestsBits() {
+        Bitmap bitmap = bitmap(2, 3, 128, 129);
+        assertTrue(bitmap.isSet(2));
+        assertTrue(bitmap.isSet(129));
+        assertFalse(bitmap.isSet(1));
+        assertFalse(bitmap.isSet(0));
+        assertFalse(bitmap.isSet(193));
+        bitmap.clear(3);
+        bitmap.clear(4);
+        assertEquals(Arrays.asList(2, 128, 129), bits(bitmap));
+        assertEquals(3, bitmap.cardinality());
+        assertEquals("[2, 128, 129]", bitmap.toString());
+    }
+
+    @Test
+    public void rejectsBitsOutOfRange() {
+        Bitmap bitmap = new Bitmap();
+        for (int bit : new int[]{0, 193}) {
+            try {
+                bitmap.set(bit);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("Bit should be from 1 to 192", e.getMessage());
+            }
+            try {
+                bitmap.clear(bit);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("Bit should be from 1 to 192", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void findsTheNextSetBitAcrossWords() {
+        Bitmap bitmap = bitmap(63, 64, 65, 191);
+        assertEquals(63, bitmap.nextSetBit(-5));
+        assertEquals(64, bitmap.nextSetBit(64));
+        assertEquals(65, bitmap.nextSetBit(65));
+        assertEquals(191, bitmap.nextSetBit(66));
+        assertEquals(-1, bitmap.nextSetBit(192));
+        assertEquals(-1, bitmap.nextSetBit(193));
+        assertEquals(-1, new Bitmap().nextSetBit(1));
+    }
+
+    @Test
+    public void combinesBitmaps() {
+        Bitmap and = bitmap(1, 70, 150);
+        and.and(bitmap(70, 150, 151));
+        assertEquals(Arrays.asList(70, 150), bits(and));
+
+        Bitmap or = bitmap(1, 70);
+        or.or(bitmap(70, 192));
+        assertEquals(Arrays.asList(1, 70, 192), bits(or));
+
+        Bitmap andNot = bitmap(1, 70, 192);
+        andNot.andNot(bitmap(70, 100));
+        assertEquals(Arrays.asList(1, 192), bits(andNot));
+    }
+
+    @Test
+    public void iteratesAndRemovesBitsInOrder() {
+        Bitmap bitmap = bitmap(192, 7, 65);
+        List<Integer> iterated = new ArrayList<>();
+        Iterator<Integer> iterator = bitmap.iterator();
+        while (iterator.hasNext()) {
+            int bit = iterator.next();
+            iterated.add(bit);
+            if (bit == 65) {
+                iterator.remove();
+                try {
+                    iterator.remove();
+                    fail();
+                } catch (IllegalStateException e) {
+                    // already removed
+                }
+            }
+        }
+        assertEquals(Arrays.asList(7, 65, 192), iterated);
+        assertEquals(Arrays.asList(7, 192), bits(bitmap));
+        try {
+            iterator.next();
+            fail();
+        } catch (NoSuchElementException e) {
+            // no more bits
+        }
+    }
+
+    @Test
+    public void comparesTheBits() {
+        assertEquals(bitmap(1, 100), bitmap(100, 1));
+        assertNotEquals(bitmap(1, 100), bitmap(1, 101));
+        assertNotEquals(bitmap(1), null);
+        assertNotEquals(bitmap(1), "[1]");
+    }
+
+}
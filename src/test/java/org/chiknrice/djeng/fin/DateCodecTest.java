@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.ByteUtil;
+import org.chiknrice.djeng.CodecException;
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.Samples;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The dates are compared with the dates parsed by a non lenient {@code SimpleDateFormat}.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class DateCodecTest {
+
+    private final MessageCodec codec = Samples.codec("dates.xml");
+
+    private static Date parse(String pattern, String value, TimeZone timeZone) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setLenient(false);
+        format.setTimeZone(timeZone);
+        try {
+            return format.parse(value);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static Date parse(String pattern, String value) {
+        return parse(pattern, value, TimeZone.getDefault());
+    }
+
+    private static byte[] encoded(String dateTime, String date, String timestamp, String dayOfYear) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            bytes.write(dateTime.getBytes(StandardCharsets.ISO_8859_1));
+            bytes.write(date.getBytes(StandardCharsets.ISO_8859_1));
+            bytes.write(ByteUtil.decodeHex(date));
+            bytes.write(timestamp.getBytes(StandardCharsets.ISO_8859_1));
+            bytes.write(date.getBytes(StandardCharsets.ISO_8859_1));
+            bytes.write(dayOfYear.getBytes(StandardCharsets.ISO_8859_1));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void decodesTheSameDatesAsSimpleDateFormat() {
+        byte[] encoded = encoded("1017235959", "261018", "20261017235959123", "2026290");
+        Message decoded = codec.decode(encoded);
+        assertEquals(parse("MMddHHmmss", "1017235959"), decoded.getElement("1"));
+        assertEquals(parse("yyMMdd", "261018"), decoded.getElement("2"));
+        assertEquals(parse("yyMMdd", "261018"), decoded.getElement("3"));
+        assertEquals(parse("yyyyMMddHHmmssSSS", "20261017235959123"), decoded.getElement("4"));
+        assertEquals(parse("yyMMdd", "261018", TimeZone.getTimeZone("UTC")), decoded.getElement("5"));
+        assertEquals(parse("yyyyDDD", "2026290"), decoded.getElement("6"));
+        assertArrayEquals(encoded, codec.encode(decoded));
+    }
+
+    @Test
+    public void decodesTwoDigitYearsWithinTheCenturyOfSimpleDateFormat() {
+        for (int yy = 0; yy < 100; yy++) {
+            for (String monthDay : new String[]{"0101", "1231"}) {
+                String date = String.format("%02d%s", yy, monthDay);
+                byte[] encoded = encoded("0101000000", date, "20000101000000000", "2000001");
+                Message decoded = codec.decode(encoded);
+                assertEquals(date, parse("yyMMdd", date), decoded.getElement("2"));
+                assertEquals(date, parse("yyMMdd", date), decoded.getElement("3"));
+                assertEquals(date, parse("yyMMdd", date, TimeZone.getTimeZone("UTC")), decoded.getElement("5"));
+                assertArrayEquals(date, encoded, codec.encode(decoded));
+            }
+        }
+    }
+
+    @Test
+    public void encodesTheSameDatesAsSimpleDateFormat() {
+        Date date = parse("yyyyMMddHHmmssSSS", "19991231235959999");
+        Message message = new Message();
+        for (int i = 1; i <= 6; i++) {
+            message.setElement(String.valueOf(i), date);
+        }
+        SimpleDateFormat utc = new SimpleDateFormat("yyMMdd");
+        utc.setTimeZone(TimeZone.getTimeZone("UTC"));
+        byte[] expected = encoded("1231235959", "991231", "19991231235959999", "1999365");
+        byte[] utcDate = utc.format(date).getBytes(StandardCharsets.ISO_8859_1);
+        System.arraycopy(utcDate, 0, expected, 36, 6);
+        assertArrayEquals(expected, codec.encode(message));
+    }
+
+    @Test
+    public void rejectsInvalidDates() {
+        for (String date : new String[]{"261318", "261032", "260230"}) {
+            try {
+                codec.decode(encoded("1017235959", date, "20261017235959123", "2026290"));
+                fail(date);
+            } catch (CodecException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("[2]"));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Compares {@code DigitsDateFormat} with a non lenient {@code SimpleDateFormat} for every supported field, around the
+ * daylight saving transitions of a few zones and on both sides of the 2 digit year window.
+ *
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class DigitsDateFormatTest {
+
+    private static final String[] PATTERNS = {"MMddHHmmss", "yyMMdd", "yyyyMMdd", "HHmmss", "yyMMddHHmmss",
+            "yyyyMMddHHmmssSSS", "MMdd", "yyMM", "ddMMyy", "HHmm", "mmssSSS", "ddHHmm"};
+
+    private static final String[] TIME_ZONES = {"UTC", "Australia/Sydney", "America/New_York", "Europe/London",
+            "Asia/Kolkata", "Australia/Lord_Howe"};
+
+    private static final long MINUTE = 60000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    private static SimpleDateFormat simpleFormat(String pattern, TimeZone timeZone) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setLenient(false);
+        format.setTimeZone(timeZone);
+        return format;
+    }
+
+    /**
+     * @return the instants where the offset of the zone changes in the year
+     */
+    private static List<Long> transitions(TimeZone timeZone, int year) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(year, Calendar.JANUARY, 1);
+        long end = calendar.getTimeInMillis() + 366 * DAY;
+        List<Long> transitions = new ArrayList<>();
+        for (long time = calendar.getTimeInMillis(); time < end; time += 15 * MINUTE) {
+            if (timeZone.getOffset(time) != timeZone.getOffset(time + 15 * MINUTE)) {
+                transitions.add(time);
+            }
+        }
+        return transitions;
+    }
+
+    /**
+     * @return the instants every 10 minutes and 7 seconds from 6 hours before to 6 hours after the time
+     */
+    private static List<Long> around(long time) {
+        List<Long> times = new ArrayList<>();
+        for (long t = time - 6 * HOUR; t <= time + 6 * HOUR; t += 10 * MINUTE + 7001) {
+            times.add(t);
+        }
+        return times;
+    }
+
+    private static void assertSameFormat(String pattern, TimeZone timeZone, List<Long> times) {
+        DigitsDateFormat digitsFormat = DigitsDateFormat.compile(pattern, timeZone);
+        assertNotNull(pattern, digitsFormat);
+        SimpleDateFormat simpleFormat = simpleFormat(pattern, timeZone);
+        for (long time : times) {
+            String expected = simpleFormat.format(new Date(time));
+            assertEquals(pattern + " " + timeZone.getID() + " " + time, Long.parseLong(expected),
+                    digitsFormat.format(time));
+        }
+    }
+
+    /**
+     * Parses the digits of the times formatted in the zone, and of the times formatted in UTC which include the local
+     * times skipped and repeated by the transitions.
+     */
+    private static void assertSameParse(String pattern, TimeZone timeZone, List<Long> times) {
+        DigitsDateFormat digitsFormat = DigitsDateFormat.compile(pattern, timeZone);
+        SimpleDateFormat simpleFormat = simpleFormat(pattern, timeZone);
+        SimpleDateFormat[] sources = {simpleFormat, simpleFormat(pattern, TimeZone.getTimeZone("UTC"))};
+        for (long time : times) {
+            for (SimpleDateFormat source : sources) {
+                String digits = source.format(new Date(time));
+                String expected;
+                try {
+                    expected = Long.toString(simpleFormat.parse(digits).getTime());
+                } catch (ParseException e) {
+                    expected = "invalid";
+                }
+                String actual;
+                try {
+                    actual = Long.toString(digitsFormat.parse(Long.parseLong(digits)));
+                } catch (IllegalArgumentException e) {
+                    actual = "invalid";
+                }
+                assertEquals(pattern + " " + timeZone.getID() + " " + digits, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void formatsAndParsesLikeSimpleDateFormatAroundTransitions() {
+        for (String id : TIME_ZONES) {
+            TimeZone timeZone = TimeZone.getTimeZone(id);
+            List<Long> times = new ArrayList<>();
+            for (int year : new int[]{1970, 1995, 2016}) {
+                for (long transition : transitions(timeZone, year)) {
+                    times.addAll(around(transition));
+                }
+            }
+            // zones without transitions
+            times.addAll(around(1475539200000L));
+            for (String pattern : PATTERNS) {
+                assertSameFormat(pattern, timeZone, times);
+                assertSameParse(pattern, timeZone, times);
+            }
+        }
+    }
+
+    @Test
+    public void parsesTwoDigitYearsLikeSimpleDateFormatAcrossTheWindow() {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            // the window is computed in the default time zone
+            for (String defaultId : new String[]{"UTC", "Australia/Sydney", "America/New_York"}) {
+                TimeZone.setDefault(TimeZone.getTimeZone(defaultId));
+                for (String id : TIME_ZONES) {
+                    assertSameTwoDigitYears(TimeZone.getTimeZone(id));
+                }
+            }
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    private static void assertSameTwoDigitYears(TimeZone timeZone) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.YEAR, -80);
+        long windowStart = calendar.getTimeInMillis();
+        List<Long> times = new ArrayList<>();
+        for (long time = windowStart - 3 * DAY; time <= windowStart + 3 * DAY; time += HOUR + 61001) {
+            times.add(time);
+            // the same day and month at the end of the window
+            times.add(time + 100 * 365 * DAY + 24 * DAY);
+        }
+        for (String pattern : PATTERNS) {
+            if (pattern.contains("yy") && !pattern.contains("yyyy")) {
+                assertSameFormat(pattern, timeZone, times);
+                assertSameParse(pattern, timeZone, times);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.Samples;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class ElementCodecTest {
+
+    /**
+     * Overrides only the {@code byte[]} methods of {@code StringCodec} which overrides the {@code ByteBuffer} methods.
+     */
+    public static class ReversedStringCodec extends StringCodec {
+
+        @Override
+        protected byte[] encodeValue(String value) {
+            return super.encodeValue(new StringBuilder(value).reverse().toString());
+        }
+
+        @Override
+        protected String decodeValue(byte[] bytes) {
+            return new StringBuilder(super.decodeValue(bytes)).reverse().toString();
+        }
+
+    }
+
+    /**
+     * Overrides only {@code putDataBytes} of {@code StringCodec} to mask all but the last 4 characters.
+     */
+    public static class MaskedStringCodec extends StringCodec {
+
+        @Override
+        protected void putDataBytes(ByteBuffer buffer, byte[] bytes) {
+            for (int i = 0; i < bytes.length; i++) {
+                buffer.put(i < bytes.length - 4 ? (byte) '*' : bytes[i]);
+            }
+        }
+
+    }
+
+    /**
+     * Overrides only {@code getDataBytes} of {@code NumericCodec} to read numbers padded with spaces.
+     */
+    public static class SpacePaddedNumericCodec extends NumericCodec {
+
+        @Override
+        protected byte[] getDataBytes(ByteBuffer buffer) {
+            byte[] bytes = super.getDataBytes(buffer);
+            for (int i = 0; i < bytes.length && bytes[i] == ' '; i++) {
+                bytes[i] = '0';
+            }
+            return bytes;
+        }
+
+    }
+
+    /**
+     * Overrides {@code putDataBytes} and {@code getDataBytes} of {@code StringCodec} to write and consume a terminator
+     * after the data bytes.
+     */
+    public static class TerminatedStringCodec extends StringCodec {
+
+        @Override
+        protected void putDataBytes(ByteBuffer buffer, byte[] bytes) {
+            buffer.put(bytes);
+            buffer.put((byte) ';');
+        }
+
+        @Override
+        protected byte[] getDataBytes(ByteBuffer buffer) {
+            byte[] bytes = super.getDataBytes(buffer);
+            if (buffer.get() != ';') {
+                throw new IllegalArgumentException("Missing terminator");
+            }
+            return bytes;
+        }
+
+    }
+
+    private final MessageCodec codec = Samples.codec("element-codecs.xml");
+    private final MessageCodec dataBytesCodec = Samples.codec("data-bytes.xml");
+
+    private Message message() {
+        Message message = new Message();
+        message.setElement("1", "struct");
+        message.setElement("2", "abcde");
+        message.setElement("3", "variable struct");
+        return message;
+    }
+
+    @Test
+    public void encodesTheElementsInPlace() {
+        byte[] encoded = codec.encode(message());
+        assertEquals("210    structedcba215variable struct", new String(encoded, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void decodesTheElementsInPlace() {
+        byte[] encoded = "210    structedcba215variable struct".getBytes(StandardCharsets.ISO_8859_1);
+        Message decoded = codec.decode(encoded);
+        assertEquals("    struct", decoded.getElement("1"));
+        assertEquals("abcde", decoded.getElement("2"));
+        assertEquals("variable struct", decoded.getElement("3"));
+    }
+
+    @Test
+    public void encodesThroughOverriddenPutDataBytes() {
+        Message message = new Message();
+        message.setElement("1", "41111111");
+        message.setElement("2", 1234L);
+        message.setElement("3", "abc");
+        message.setElement("4", "xy");
+        byte[] encoded = dataBytesCodec.encode(message);
+        assertEquals("****1111001234abc;xy", new String(encoded, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void decodesThroughOverriddenGetDataBytes() {
+        byte[] encoded = "****1111  1234abc;xy".getBytes(StandardCharsets.ISO_8859_1);
+        Message decoded = dataBytesCodec.decode(encoded);
+        assertEquals("****1111", decoded.getElement("1"));
+        assertEquals(1234L, decoded.<Object>getElement("2"));
+        assertEquals("abc", decoded.getElement("3"));
+        assertEquals("xy", decoded.getElement("4"));
+    }
+
+    @Test
+    public void roundTripsTheBuiltInCodecs() {
+        MessageCodec as2805 = Samples.codec(Samples.AS2805);
+        Message message = Samples.as2805Message();
+        byte[] encoded = as2805.encode(message);
+        assertEquals(Samples.elements(message), Samples.elements(as2805.decode(encoded)));
+    }
+
+}
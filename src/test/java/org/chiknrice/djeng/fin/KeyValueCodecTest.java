@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.CodecException;
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.MessageCodecConfig;
+import org.chiknrice.djeng.Samples;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class KeyValueCodecTest {
+
+    private static MessageCodec codec(String subElements, String... selected) {
+        String config = "<config xmlns=\"http://www.chiknrice.org/djeng\" xmlns:fin=\"http://www.chiknrice.org/djeng/financial\">" +
+                "<codecs>" +
+                "<codec-filter id=\"lvar\" class=\"org.chiknrice.djeng.fin.LengthPrefixCodecFilter\" fin:lvar-encoding=\"CHAR\"/>" +
+                "<element-codec id=\"an\" class=\"org.chiknrice.djeng.fin.StringCodec\"/>" +
+                "<element-codec id=\"delimited\" class=\"org.chiknrice.djeng.fin.DelimitedStringCodec\" fin:delimiter=\"3B\"/>" +
+                "<composite-codec id=\"fixed\" class=\"org.chiknrice.djeng.CompositeCodec\"/>" +
+                "<composite-codec id=\"kv\" class=\"org.chiknrice.djeng.fin.KeyValueCodec\">" +
+                "<filter codec=\"lvar\" fin:lvar-length=\"3\"/>" +
+                "</composite-codec>" +
+                "</codecs>" +
+                "<message-elements codec=\"fixed\">" +
+                "<element index=\"1\" codec=\"an\" fin:length=\"2\"/>" +
+                "<composite index=\"2\" codec=\"kv\">" + subElements + "</composite>" +
+                "<element index=\"3\" codec=\"an\" fin:length=\"2\"/>" +
+                "</message-elements>" +
+                "</config>";
+        MessageCodecConfig.MessageCodecConfigBuilder builder = MessageCodecConfig.fromXml(
+                new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8))).withSchemas("djeng-financial.xsd")
+                .withCustomAttributes(FinancialAttribute.values());
+        if (selected.length > 0) {
+            builder.withSelectiveDecoding(selected);
+        }
+        return new MessageCodec(builder.build());
+    }
+
+    private static final String KEY_VALUE = "<element index=\"key\" codec=\"delimited\"/>" +
+            "<element index=\"value\" codec=\"delimited\"/>";
+
+    private static Message message() {
+        Message message = new Message();
+        message.setElement("1", "AB");
+        message.setElement("2.K1", "V1");
+        message.setElement("2.K2", "V2");
+        message.setElement("3", "CD");
+        return message;
+    }
+
+    @Test
+    public void roundTripsKeysAndValues() {
+        MessageCodec codec = codec(KEY_VALUE);
+        byte[] encoded = codec.encode(message());
+        assertEquals(Samples.elements(message()), Samples.elements(codec.decode(encoded)));
+    }
+
+    @Test
+    public void skipsKeysAndValues() {
+        byte[] encoded = codec(KEY_VALUE).encode(message());
+        Message decoded = codec(KEY_VALUE, "1", "3").decode(encoded);
+        assertEquals("AB", decoded.getElement("1"));
+        assertEquals(null, decoded.getElement("2"));
+        assertEquals("CD", decoded.getElement("3"));
+    }
+
+    @Test
+    public void rejectsOtherSubElements() {
+        MessageCodec codec = codec(KEY_VALUE + "<element index=\"other\" codec=\"delimited\"/>");
+        try {
+            codec.encode(message());
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Invalid KeyValueCodec configuration"));
+        }
+        try {
+            codec.decode("AB012K1;V1;K2;V2;CD".getBytes(StandardCharsets.ISO_8859_1));
+            fail();
+        } catch (CodecException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Invalid KeyValueCodec configuration"));
+        }
+    }
+
+}
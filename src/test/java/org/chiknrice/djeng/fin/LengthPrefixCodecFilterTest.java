@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.ByteUtil;
+import org.chiknrice.djeng.CodecException;
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.Samples;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class LengthPrefixCodecFilterTest {
+
+    private static final String ENCODED = "3033" + "616263" + "0003" + "616263" + "0003" + "616263" + "3035" + "12345F"
+            + "0000000003" + "616263";
+
+    private final MessageCodec codec = Samples.codec("length-prefixes.xml");
+
+    private static Message message(String value) {
+        Message message = new Message();
+        message.setElement("1", value);
+        message.setElement("2", value);
+        message.setElement("3", value);
+        message.setElement("4", "12345");
+        message.setElement("5", value);
+        return message;
+    }
+
+    private void assertNotDecodable(String hex, Class<? extends Exception> type, String message) {
+        try {
+            codec.decode(ByteUtil.decodeHex(hex));
+            fail();
+        } catch (CodecException e) {
+            assertEquals(type, e.getCause().getClass());
+            assertEquals(message, e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void prefixesTheLengthOfTheValue() {
+        assertEquals(ENCODED, ByteUtil.encodeHex(codec.encode(message("abc"))));
+    }
+
+    @Test
+    public void decodesTheValueWithinTheLength() {
+        assertEquals(Samples.elements(message("abc")), Samples.elements(codec.decode(ByteUtil.decodeHex(ENCODED))));
+
+        MessageCodec lazyCodec = new MessageCodec(Samples.config("length-prefixes.xml").withLazyDecoding().build());
+        Message decoded = lazyCodec.decode(ByteUtil.decodeHex(ENCODED));
+        assertEquals("abc", decoded.getElement("5"));
+        assertEquals("12345", decoded.getElement("4"));
+    }
+
+    @Test
+    public void encodesEmptyValues() {
+        Message message = message("");
+        message.setElement("4", "1");
+        String encoded = ByteUtil.encodeHex(codec.encode(message));
+        assertEquals("3030" + "0000" + "0000" + "3031" + "1F" + "0000000000", encoded);
+        assertEquals(Samples.elements(message), Samples.elements(codec.decode(ByteUtil.decodeHex(encoded))));
+    }
+
+    @Test
+    public void rejectsLengthsWhichDontFitThePrefix() {
+        char[] chars = new char[100];
+        Arrays.fill(chars, 'x');
+        Message message = message("abc");
+        message.setElement("1", new String(chars));
+        try {
+            codec.encode(message);
+            fail();
+        } catch (CodecException e) {
+            assertEquals("element[1] java.lang.IllegalArgumentException: 100 exceeds 2 characters", e.getMessage());
+        }
+
+        chars = new char[0x10000];
+        Arrays.fill(chars, 'x');
+        message = message("abc");
+        message.setElement("3", new String(chars));
+        MessageCodec largeBufferCodec = new MessageCodec(Samples.config("length-prefixes.xml")
+                .withEncodeBufferSize(0x20000).build());
+        try {
+            largeBufferCodec.encode(message);
+            fail();
+        } catch (CodecException e) {
+            assertEquals("element[3] java.lang.IllegalArgumentException: 65536 trimmed on encoding to 2 bytes",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsPrefixesBeyondTheBuffer() {
+        assertNotDecodable("3034" + "616263", RuntimeException.class, "Not enough bytes in buffer for var length 4");
+        assertNotDecodable("3061" + "616263", NumberFormatException.class, "For input string: \"0a\"");
+        assertNotDecodable("3033" + "616263" + "0A03", IllegalArgumentException.class, "Invalid BCD: 0A03");
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.ByteUtil;
+import org.chiknrice.djeng.CodecException;
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.Samples;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class NumericCodecTest {
+
+    private static final int BITMAP_LENGTH = 8;
+
+    private final MessageCodec codec = Samples.codec("numerics.xml");
+
+    /**
+     * @return the hex of the encoded element without the bitmap
+     */
+    private String encode(String index, Object value) {
+        Message message = new Message();
+        message.setElement(index, value);
+        byte[] encoded = codec.encode(message);
+        return ByteUtil.encodeHex(Arrays.copyOfRange(encoded, BITMAP_LENGTH, encoded.length));
+    }
+
+    /**
+     * @param hex the hex of the encoded element without the bitmap
+     */
+    private Message decode(MessageCodec codec, int index, String hex) {
+        return codec.decode(ByteUtil.decodeHex(String.format("%016X", 1L << (64 - index)) + hex));
+    }
+
+    private void assertNotDecodable(int index, String hex, Class<? extends Exception> type, String message) {
+        try {
+            decode(codec, index, hex).getElement(Integer.toString(index));
+            fail();
+        } catch (CodecException e) {
+            assertEquals(type, e.getCause().getClass());
+            assertEquals(message, e.getCause().getMessage());
+        }
+    }
+
+    private static String chars(String value) {
+        return ByteUtil.encodeHex(value.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private void assertNotEncodable(String index, Object value, String message) {
+        try {
+            encode(index, value);
+            fail();
+        } catch (CodecException e) {
+            assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+            assertEquals(message, e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void padsFixedLengthCharValues() {
+        assertEquals(chars("000042"), encode("2", 42));
+        assertEquals(chars("-00042"), encode("2", -42));
+        assertEquals(chars("-00007"), encode("6", BigInteger.valueOf(-7)));
+        assertEquals(chars("0001180591620717411303424"), encode("7", BigInteger.ONE.shiftLeft(70)));
+        assertEquals(chars("-001180591620717411303424"), encode("7", BigInteger.ONE.shiftLeft(70).negate()));
+    }
+
+    @Test
+    public void padsFixedLengthBcdValues() {
+        assertEquals("012345", encode("3", 12345L));
+        assertEquals("000001", encode("3", 1L));
+        assertEquals("C045", encode("4", 45));
+        assertEquals("D045", encode("4", -45));
+        assertEquals("430123", encode("5", 123L));
+        assertEquals("440123", encode("5", -123L));
+        assertEquals("001234", encode("8", "01234"));
+    }
+
+    @Test
+    public void padsWholeNumbersOfAnyTypeLikeTheNumericType() {
+        assertEquals(chars("000042"), encode("2", 42L));
+        assertEquals(chars("-00042"), encode("2", BigInteger.valueOf(-42)));
+        assertEquals("000042", encode("3", 42));
+        assertEquals("440123", encode("5", BigInteger.valueOf(-123)));
+        assertEquals(chars("000042"), encode("6", 42));
+        assertEquals(chars("-00007"), encode("6", -7L));
+    }
+
+    @Test
+    public void encodesVarLengthValues() {
+        assertEquals(chars("05") + "12345F", encode("9", 12345L));
+        assertEquals(chars("03-12"), encode("10", -12));
+    }
+
+    @Test
+    public void rejectsValuesLongerThanTheFixedLength() {
+        assertNotEncodable("2", 1234567, "1234567 exceeds 6 characters");
+        assertNotEncodable("2", -123456, "-123456 exceeds 6 characters");
+        assertNotEncodable("3", 123456L, "123456 exceeds 5 digits");
+        assertNotEncodable("4", 1000, "1000 exceeds 3 digits");
+        assertNotEncodable("5", -10000L, "10000 exceeds 4 digits");
+        assertNotEncodable("6", BigInteger.valueOf(1000000), "1000000 exceeds 6 characters");
+    }
+
+    @Test
+    public void decodesTheNumericTypes() {
+        assertEquals(-42, decode(codec, 2, chars("-00042")).<Object>getElement("2"));
+        assertEquals(12345L, decode(codec, 3, "012345").<Object>getElement("3"));
+        assertEquals(-45, decode(codec, 4, "D045").<Object>getElement("4"));
+        assertEquals(45, decode(codec, 4, "0045").<Object>getElement("4"));
+        assertEquals(-123L, decode(codec, 5, "440123").<Object>getElement("5"));
+        assertEquals(BigInteger.ONE.shiftLeft(70).negate(),
+                decode(codec, 7, chars("-001180591620717411303424")).<Object>getElement("7"));
+        // odd length BCD strings are decoded with the padding nibble
+        assertEquals("001234", decode(codec, 8, "001234").<Object>getElement("8"));
+        assertEquals(12345L, decode(codec, 9, chars("05") + "12345F").<Object>getElement("9"));
+        assertEquals(-12, decode(codec, 10, chars("03-12")).<Object>getElement("10"));
+    }
+
+    @Test
+    public void readsLazilyDecodedElementsAsPrimitives() {
+        MessageCodec lazyCodec = new MessageCodec(Samples.config("numerics.xml").withLazyDecoding().build());
+        assertEquals(-42, decode(lazyCodec, 2, chars("-00042")).getIntElement("2"));
+        assertEquals(12345L, decode(lazyCodec, 3, "012345").getLongElement("3"));
+        assertEquals(-45L, decode(lazyCodec, 4, "D045").getLongElement("4"));
+        assertEquals(-123L, decode(lazyCodec, 5, "440123").getLongElement("5"));
+        assertEquals(-7L, decode(lazyCodec, 6, chars("-00007")).getLongElement("6"));
+        assertEquals(1234L, decode(lazyCodec, 8, "001234").getLongElement("8"));
+        assertEquals(123L, decode(lazyCodec, 9, chars("03") + "123F").getLongElement("9"));
+
+        Message message = decode(lazyCodec, 7, chars("0001180591620717411303424"));
+        try {
+            message.getLongElement("7");
+            fail();
+        } catch (CodecException e) {
+            assertEquals(NumberFormatException.class, e.getCause().getClass());
+            assertEquals("For input string: \"0001180591620717411303424\"", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsStringElementsWhichAreNotLongs() {
+        Message message = new Message();
+        message.setElement("8", "12.5");
+        try {
+            message.getLongElement("8");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Element at 8 is not a long", e.getMessage());
+            assertEquals(NumberFormatException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void rejectsInvalidDigits() {
+        assertNotDecodable(2, chars("0004a2"), NumberFormatException.class, "For input string: \"0004a2\"");
+        assertNotDecodable(3, "01234A", IllegalArgumentException.class, "Invalid BCD: 01234A");
+        assertNotDecodable(4, "A045", IllegalArgumentException.class, "Invalid C_BCD: A045");
+        assertNotDecodable(5, "450123", IllegalArgumentException.class, "Invalid CC_BCD: 450123");
+        assertNotDecodable(9, chars("03") + "12EF", IllegalArgumentException.class, "Invalid BCD_F: 12E");
+        assertNotDecodable(10, chars("109999999999"), NumberFormatException.class,
+                "Value out of int range: 9999999999");
+        assertNotDecodable(10, chars("00"), NumberFormatException.class, "Empty numeric value");
+    }
+
+}
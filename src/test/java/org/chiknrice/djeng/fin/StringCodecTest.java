@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 Ian Bondoc
+ *
+ * This file is part of Djeng
+ *
+ * Djeng is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License, or(at your option) any later version.
+ *
+ * Djeng is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.chiknrice.djeng.fin;
+
+import org.chiknrice.djeng.Message;
+import org.chiknrice.djeng.MessageCodec;
+import org.chiknrice.djeng.Samples;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:chiknrice@gmail.com">Ian Bondoc</a>
+ */
+public class StringCodecTest {
+
+    private final MessageCodec codec = Samples.codec("strings.xml");
+
+    private static Message message(String... values) {
+        Message message = new Message();
+        for (int i = 0; i < values.length; i++) {
+            message.setElement(Integer.toString(i + 1), values[i]);
+        }
+        return message;
+    }
+
+    private String encode(Message message) {
+        return new String(codec.encode(message), StandardCharsets.ISO_8859_1);
+    }
+
+    private Message decode(String encoded) {
+        return codec.decode(encoded.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void padsToTheFixedLength() {
+        assertEquals("   ab" + "ab   " + "ab   " + "ab___" + "000ab", encode(message("ab", "ab", "ab", "ab", "ab")));
+        assertEquals("abcde" + "abcde" + "abcde" + "abcde" + "abcde",
+                encode(message("abcde", "abcde", "abcde", "abcde", "abcde")));
+        assertEquals("     " + "     " + "     " + "_____" + "00000", encode(message("", "", "", "", "")));
+    }
+
+    @Test
+    public void stripsThePaddingFromThePaddedSide() {
+        Message decoded = decode("   ab" + "ab   " + " ab  " + "_a_b_" + "0a0b0");
+        assertEquals("   ab", decoded.getElement("1"));
+        assertEquals("ab   ", decoded.getElement("2"));
+        // without a padding byte the value is trimmed
+        assertEquals("ab", decoded.getElement("3"));
+        assertEquals("_a_b", decoded.getElement("4"));
+        assertEquals("a0b0", decoded.getElement("5"));
+    }
+
+    @Test
+    public void stripsValuesWhichAreAllPadding() {
+        Message decoded = decode("     " + "     " + "     " + "_____" + "00000");
+        assertEquals("", decoded.getElement("3"));
+        assertEquals("", decoded.getElement("4"));
+        assertEquals("", decoded.getElement("5"));
+    }
+
+    @Test
+    public void roundTripsTheStrippedValues() {
+        Message message = message("ab", "ab   ", "a b", "a_b", "0ab");
+        Message decoded = decode(encode(message));
+        assertEquals("   ab", decoded.getElement("1"));
+        assertEquals("a b", decoded.getElement("3"));
+        assertEquals("a_b", decoded.getElement("4"));
+        // leading zeros of the value are stripped with the padding
+        assertEquals("ab", decoded.getElement("5"));
+        assertEquals(encode(message), encode(decoded));
+    }
+
+}